@@ -0,0 +1,15 @@
+package com.statful.client;
+
+/**
+ * Implementations available for the buffer that holds metrics between flushes
+ */
+public enum BufferType {
+    /**
+     * Lock based bounded queue, a single lock is shared by producers and the consumer
+     */
+    BLOCKING,
+    /**
+     * Lock-free bounded ring buffer, optimized for many producers and a single consumer
+     */
+    RING
+}
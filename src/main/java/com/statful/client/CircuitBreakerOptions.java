@@ -0,0 +1,92 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration of the circuit breaker guarding a transport against an unresponsive endpoint
+ */
+public final class CircuitBreakerOptions {
+
+    /**
+     * Default number of consecutive failures that open the circuit
+     */
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Default time in milliseconds the circuit stays open before a probe is let through
+     */
+    private static final long DEFAULT_RESET_TIMEOUT = 10000;
+
+    /**
+     * Number of consecutive failures or timeouts that open the circuit, zero disables the circuit breaker,
+     * default value {@value #DEFAULT_FAILURE_THRESHOLD}
+     */
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * Time in milliseconds the circuit stays open before a probe is let through, default value {@value #DEFAULT_RESET_TIMEOUT}
+     */
+    private long resetTimeout = DEFAULT_RESET_TIMEOUT;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public CircuitBreakerOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link CircuitBreakerOptions} to copy from
+     */
+    public CircuitBreakerOptions(@Nonnull final CircuitBreakerOptions other) {
+        this.failureThreshold = other.failureThreshold;
+        this.resetTimeout = other.resetTimeout;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public CircuitBreakerOptions(@Nonnull final JsonObject config) {
+        this.failureThreshold = config.getInteger("failureThreshold", DEFAULT_FAILURE_THRESHOLD);
+        this.resetTimeout = config.getLong("resetTimeout", DEFAULT_RESET_TIMEOUT);
+    }
+
+    /**
+     * @return number of consecutive failures or timeouts that open the circuit
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failures or timeouts that open the circuit, zero disables the circuit breaker
+     * @param failureThreshold number of consecutive failures
+     * @return a reference to this, so the API can be used fluently
+     */
+    public CircuitBreakerOptions setFailureThreshold(final int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds the circuit stays open before a probe is let through
+     */
+    public long getResetTimeout() {
+        return resetTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds the circuit stays open before a probe is let through
+     * @param resetTimeout time in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public CircuitBreakerOptions setResetTimeout(final long resetTimeout) {
+        this.resetTimeout = resetTimeout;
+        return this;
+    }
+}
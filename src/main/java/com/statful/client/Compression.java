@@ -0,0 +1,19 @@
+package com.statful.client;
+
+/**
+ * Possible content encodings for HTTP payloads
+ */
+public enum Compression {
+    /**
+     * Sends payloads uncompressed
+     */
+    NONE,
+    /**
+     * Sends payloads with gzip content encoding
+     */
+    GZIP,
+    /**
+     * Sends payloads with deflate content encoding, zlib wrapped as defined by HTTP
+     */
+    DEFLATE
+}
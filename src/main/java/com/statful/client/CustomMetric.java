@@ -6,8 +6,9 @@ import com.statful.utils.Pair;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageCodec;
 
-import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,13 +21,21 @@ import static java.util.Objects.isNull;
 public class CustomMetric implements DataPoint {
 
     /**
-     * Formatter to avoid scientific notation for decimal values
+     * How the value to collect is held, numbers are only formatted when the metric line is written
      */
-    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance();
-
-    static {
-        NUMBER_FORMAT.setMaximumFractionDigits(Integer.MAX_VALUE);
-        NUMBER_FORMAT.setGroupingUsed(false);
+    private enum ValueType {
+        /**
+         * Held as text
+         */
+        TEXT,
+        /**
+         * Held as a long
+         */
+        INTEGER,
+        /**
+         * Held as a double
+         */
+        DECIMAL
     }
 
     /**
@@ -40,10 +49,25 @@ public class CustomMetric implements DataPoint {
     private final String metricName;
 
     /**
-     * Value to collect
+     * Value to collect, when held as text
      */
     private final String value;
 
+    /**
+     * Value to collect, when held as a long
+     */
+    private final long longValue;
+
+    /**
+     * Value to collect, when held as a double
+     */
+    private final double doubleValue;
+
+    /**
+     * How the value to collect is held
+     */
+    private final ValueType valueType;
+
     /**
      * List of tags to apply to the request
      */
@@ -77,7 +101,10 @@ public class CustomMetric implements DataPoint {
     public CustomMetric(final CustomMetric customMetric) {
         this.options = customMetric.getOptions();
         this.metricName = customMetric.getMetricName();
-        this.value = customMetric.getValue();
+        this.value = customMetric.value;
+        this.longValue = customMetric.longValue;
+        this.doubleValue = customMetric.doubleValue;
+        this.valueType = customMetric.valueType;
         this.tags = customMetric.getTags();
         this.metricType = customMetric.getMetricType().orElse(null);
         this.aggregations = customMetric.getAggregations();
@@ -93,6 +120,9 @@ public class CustomMetric implements DataPoint {
     public CustomMetric(final Builder builder) {
         this.metricName = Objects.requireNonNull(builder.metricName, "MetricName cannot be null");
         this.value = builder.value;
+        this.longValue = builder.longValue;
+        this.doubleValue = builder.doubleValue;
+        this.valueType = builder.valueType;
         this.tags = builder.tags;
         this.metricType = builder.metricType;
         this.aggregations = builder.aggregations;
@@ -107,13 +137,79 @@ public class CustomMetric implements DataPoint {
 
     @Override
     public String toMetricLine() {
+        return this.metricLine().build();
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer) {
+        this.metricLine().appendTo(buffer);
+    }
+
+    @Override
+    public MetricLineBuilder metricLineBuilder() {
+        return this.metricLine();
+    }
+
+    @Override
+    public String seriesKey() {
+        final StringBuilder key = new StringBuilder();
+        getMetricType().ifPresent(type -> key.append(type).append('.'));
+        key.append(this.metricName);
+
+        // tags are sorted by name so that points tagged in another order belong to the same series
+        List<Pair<String, String>> seriesTags = getTags();
+        if (!isSortedByName(seriesTags)) {
+            seriesTags = new ArrayList<>(seriesTags);
+            seriesTags.sort(Comparator.comparing(Pair::getLeft));
+        }
+        for (int i = 0; i < seriesTags.size(); i++) {
+            key.append(',').append(seriesTags.get(i).getLeft()).append('=').append(seriesTags.get(i).getRight());
+        }
+        return key.toString();
+    }
+
+    private static boolean isSortedByName(final List<Pair<String, String>> tags) {
+        for (int i = 1; i < tags.size(); i++) {
+            if (tags.get(i - 1).getLeft().compareTo(tags.get(i).getLeft()) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double getValueAsDouble() {
+        if (this.valueType == ValueType.INTEGER) {
+            return this.longValue;
+        }
+        if (this.valueType == ValueType.DECIMAL) {
+            return this.doubleValue;
+        }
+        if (isNull(this.value)) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(this.value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private MetricLineBuilder metricLine() {
         final MetricLineBuilder metricLineBuilder = new MetricLineBuilder()
                 .withNamespace(this.options.getNamespace())
                 .withMetricName(this.metricName)
-                .withValue(this.value)
                 .withTimestamp(this.timestamp)
                 .withSampleRate(this.options.getSampleRate());
 
+        if (this.valueType == ValueType.INTEGER) {
+            metricLineBuilder.withValue(this.longValue);
+        } else if (this.valueType == ValueType.DECIMAL) {
+            metricLineBuilder.withValue(this.doubleValue);
+        } else {
+            metricLineBuilder.withValue(this.value);
+        }
+
         if (!getAggregations().isEmpty()) {
             // Add optional aggregations
             metricLineBuilder.withAggregations(getAggregations());
@@ -137,7 +233,7 @@ public class CustomMetric implements DataPoint {
         // Add global list of tags
         this.options.getTags().forEach(pair -> metricLineBuilder.withTag(pair.getLeft(), pair.getRight()));
 
-        return metricLineBuilder.build();
+        return metricLineBuilder;
     }
 
     private List<Aggregation> supplyGlobalAggregations() {
@@ -164,10 +260,6 @@ public class CustomMetric implements DataPoint {
         return metricName;
     }
 
-    private String getValue() {
-        return value;
-    }
-
     private List<Pair<String, String>> getTags() {
         if (isNull(tags)) {
             return Collections.emptyList();
@@ -192,6 +284,7 @@ public class CustomMetric implements DataPoint {
         return Optional.ofNullable(frequency);
     }
 
+    @Override
     public long getTimestamp() {
         return timestamp;
     }
@@ -211,10 +304,25 @@ public class CustomMetric implements DataPoint {
         private String metricName;
 
         /**
-         * Value to collect
+         * Value to collect, when held as text
          */
         private String value;
 
+        /**
+         * Value to collect, when held as a long
+         */
+        private long longValue;
+
+        /**
+         * Value to collect, when held as a double
+         */
+        private double doubleValue;
+
+        /**
+         * How the value to collect is held
+         */
+        private ValueType valueType;
+
         /**
          * Timestamp to apply
          */
@@ -269,8 +377,7 @@ public class CustomMetric implements DataPoint {
          * @return a reference to self
          */
         public Builder withValue(final int metricValue) {
-            this.value = String.valueOf(metricValue);
-            return this;
+            return this.withValue((long) metricValue);
         }
 
         /**
@@ -278,7 +385,9 @@ public class CustomMetric implements DataPoint {
          * @return a reference to self
          */
         public Builder withValue(final long metricValue) {
-            this.value = String.valueOf(metricValue);
+            this.value = null;
+            this.longValue = metricValue;
+            this.valueType = ValueType.INTEGER;
             return this;
         }
 
@@ -287,8 +396,7 @@ public class CustomMetric implements DataPoint {
          * @return a reference to self
          */
         public Builder withValue(final float metricValue) {
-            this.value = NUMBER_FORMAT.format(metricValue);
-            return this;
+            return this.withValue((double) metricValue);
         }
 
         /**
@@ -296,7 +404,9 @@ public class CustomMetric implements DataPoint {
          * @return a reference to self
          */
         public Builder withValue(final double metricValue) {
-            this.value = NUMBER_FORMAT.format(metricValue);
+            this.value = null;
+            this.doubleValue = metricValue;
+            this.valueType = ValueType.DECIMAL;
             return this;
         }
 
@@ -306,6 +416,7 @@ public class CustomMetric implements DataPoint {
          */
         public Builder withValue(final String metricValue) {
             this.value = metricValue;
+            this.valueType = ValueType.TEXT;
             return this;
         }
 
@@ -0,0 +1,109 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Host and port of a Statful endpoint, or of a relay in front of it, optionally reached with a transport other than
+ * the configured one
+ */
+public final class Endpoint {
+
+    /**
+     * Host of the endpoint
+     */
+    private final String host;
+
+    /**
+     * Port of the endpoint
+     */
+    private final int port;
+
+    /**
+     * Transport to reach the endpoint, null to use the configured one
+     */
+    private final Transport transport;
+
+    /**
+     * @param host host of the endpoint
+     * @param port port of the endpoint
+     */
+    public Endpoint(@Nonnull final String host, final int port) {
+        this(host, port, null);
+    }
+
+    /**
+     * @param host      host of the endpoint
+     * @param port      port of the endpoint
+     * @param transport transport to reach the endpoint, null to use the configured one
+     */
+    public Endpoint(@Nonnull final String host, final int port, @Nullable final Transport transport) {
+        this.host = requireNonNull(host);
+        this.port = port;
+        this.transport = transport;
+    }
+
+    /**
+     * Constructor to create an endpoint based on a json object with host, port and optionally transport
+     *
+     * @param config Json object with the configuration
+     */
+    public Endpoint(@Nonnull final JsonObject config) {
+        this(config.getString("host"), config.getInteger("port"),
+                Optional.ofNullable(config.getString("transport")).map(Transport::valueOf).orElse(null));
+    }
+
+    /**
+     * @return host of the endpoint
+     */
+    @Nonnull
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return port of the endpoint
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return transport to reach the endpoint, null to use the configured one
+     */
+    @Nullable
+    public Transport getTransport() {
+        return transport;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final Endpoint endpoint = (Endpoint) o;
+        return port == endpoint.port && host.equals(endpoint.host) && transport == endpoint.transport;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, transport);
+    }
+
+    @Override
+    public String toString() {
+        if (transport == null) {
+            return host + ":" + port;
+        }
+        return transport + " " + host + ":" + port;
+    }
+}
@@ -0,0 +1,15 @@
+package com.statful.client;
+
+/**
+ * Defines how metrics are spread over several endpoints
+ */
+public enum EndpointMode {
+    /**
+     * Sends to the first healthy endpoint, in the configured order, so the first one is the primary
+     */
+    FAILOVER,
+    /**
+     * Routes each metric series to one endpoint by consistent hashing of the series key
+     */
+    SHARDING
+}
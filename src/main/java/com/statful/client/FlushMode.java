@@ -0,0 +1,19 @@
+package com.statful.client;
+
+/**
+ * Defines on which thread the buffer is drained, serialized and sent when a flush is triggered
+ */
+public enum FlushMode {
+    /**
+     * Flushes on the thread that triggered the flush, usually the one adding a metric
+     */
+    INLINE,
+    /**
+     * Signals the sender's Vert.x context, which performs the flush
+     */
+    CONTEXT,
+    /**
+     * Signals a dedicated flusher thread, which performs the flush
+     */
+    THREAD
+}
@@ -0,0 +1,266 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration of the HTTP transport's connections and their pool
+ */
+public final class HttpConnectionOptions {
+
+    /**
+     * Default maximum number of pooled HTTP/1.x connections
+     */
+    private static final int DEFAULT_MAX_POOL_SIZE = 5;
+
+    /**
+     * Default for keeping connections open between requests
+     */
+    private static final boolean DEFAULT_KEEP_ALIVE = true;
+
+    /**
+     * Default time in milliseconds after which an idle connection is closed, zero keeps it open
+     */
+    private static final int DEFAULT_IDLE_TIMEOUT = 0;
+
+    /**
+     * Default for disabling Nagle's algorithm
+     */
+    private static final boolean DEFAULT_TCP_NO_DELAY = true;
+
+    /**
+     * Default size in bytes of the socket send buffer, -1 leaves it to the operating system
+     */
+    private static final int DEFAULT_SEND_BUFFER_SIZE = -1;
+
+    /**
+     * Default for pipelining requests on HTTP/1.1 connections
+     */
+    private static final boolean DEFAULT_PIPELINING = false;
+
+    /**
+     * Default maximum number of pipelined requests per connection
+     */
+    private static final int DEFAULT_PIPELINING_LIMIT = 10;
+
+    /**
+     * Default for opening connections when the sender starts
+     */
+    private static final boolean DEFAULT_PRE_WARM = false;
+
+    /**
+     * Maximum number of pooled HTTP/1.x connections, default value {@value #DEFAULT_MAX_POOL_SIZE}
+     */
+    private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+
+    /**
+     * Keeps connections open between requests, default value {@value #DEFAULT_KEEP_ALIVE}
+     */
+    private boolean keepAlive = DEFAULT_KEEP_ALIVE;
+
+    /**
+     * Time in milliseconds after which an idle connection is closed, zero keeps it open, default value {@value #DEFAULT_IDLE_TIMEOUT}
+     */
+    private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * Disables Nagle's algorithm, default value {@value #DEFAULT_TCP_NO_DELAY}
+     */
+    private boolean tcpNoDelay = DEFAULT_TCP_NO_DELAY;
+
+    /**
+     * Size in bytes of the socket send buffer, -1 leaves it to the operating system, default value {@value #DEFAULT_SEND_BUFFER_SIZE}
+     */
+    private int sendBufferSize = DEFAULT_SEND_BUFFER_SIZE;
+
+    /**
+     * Pipelines requests on HTTP/1.1 connections, default value {@value #DEFAULT_PIPELINING}
+     */
+    private boolean pipelining = DEFAULT_PIPELINING;
+
+    /**
+     * Maximum number of pipelined requests per connection, default value {@value #DEFAULT_PIPELINING_LIMIT}
+     */
+    private int pipeliningLimit = DEFAULT_PIPELINING_LIMIT;
+
+    /**
+     * Opens connections when the sender starts, so that the first flush doesn't pay for name resolution and
+     * connection setup, default value {@value #DEFAULT_PRE_WARM}
+     */
+    private boolean preWarm = DEFAULT_PRE_WARM;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public HttpConnectionOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link HttpConnectionOptions} to copy from
+     */
+    public HttpConnectionOptions(@Nonnull final HttpConnectionOptions other) {
+        this.maxPoolSize = other.maxPoolSize;
+        this.keepAlive = other.keepAlive;
+        this.idleTimeout = other.idleTimeout;
+        this.tcpNoDelay = other.tcpNoDelay;
+        this.sendBufferSize = other.sendBufferSize;
+        this.pipelining = other.pipelining;
+        this.pipeliningLimit = other.pipeliningLimit;
+        this.preWarm = other.preWarm;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public HttpConnectionOptions(@Nonnull final JsonObject config) {
+        this.maxPoolSize = config.getInteger("maxPoolSize", DEFAULT_MAX_POOL_SIZE);
+        this.keepAlive = config.getBoolean("keepAlive", DEFAULT_KEEP_ALIVE);
+        this.idleTimeout = config.getInteger("idleTimeout", DEFAULT_IDLE_TIMEOUT);
+        this.tcpNoDelay = config.getBoolean("tcpNoDelay", DEFAULT_TCP_NO_DELAY);
+        this.sendBufferSize = config.getInteger("sendBufferSize", DEFAULT_SEND_BUFFER_SIZE);
+        this.pipelining = config.getBoolean("pipelining", DEFAULT_PIPELINING);
+        this.pipeliningLimit = config.getInteger("pipeliningLimit", DEFAULT_PIPELINING_LIMIT);
+        this.preWarm = config.getBoolean("preWarm", DEFAULT_PRE_WARM);
+    }
+
+    /**
+     * @return maximum number of pooled HTTP/1.x connections
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of pooled HTTP/1.x connections
+     * @param maxPoolSize maximum number of connections
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setMaxPoolSize(final int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    /**
+     * @return true if connections are kept open between requests
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Sets whether connections are kept open between requests
+     * @param keepAlive true to keep connections open
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setKeepAlive(final boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds after which an idle connection is closed
+     */
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds after which an idle connection is closed, zero keeps it open
+     * @param idleTimeout time in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setIdleTimeout(final int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * @return true if Nagle's algorithm is disabled
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Sets whether Nagle's algorithm is disabled
+     * @param tcpNoDelay true to disable Nagle's algorithm
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setTcpNoDelay(final boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    /**
+     * @return size in bytes of the socket send buffer
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * Sets the size in bytes of the socket send buffer, -1 leaves it to the operating system
+     * @param sendBufferSize size in bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setSendBufferSize(final int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+        return this;
+    }
+
+    /**
+     * @return true if requests are pipelined on HTTP/1.1 connections
+     */
+    public boolean isPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Sets whether requests are pipelined on HTTP/1.1 connections
+     * @param pipelining true to pipeline requests
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setPipelining(final boolean pipelining) {
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    /**
+     * @return maximum number of pipelined requests per connection
+     */
+    public int getPipeliningLimit() {
+        return pipeliningLimit;
+    }
+
+    /**
+     * Sets the maximum number of pipelined requests per connection
+     * @param pipeliningLimit maximum number of requests
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setPipeliningLimit(final int pipeliningLimit) {
+        this.pipeliningLimit = pipeliningLimit;
+        return this;
+    }
+
+    /**
+     * @return true if connections are opened when the sender starts
+     */
+    public boolean isPreWarm() {
+        return preWarm;
+    }
+
+    /**
+     * Sets whether connections are opened when the sender starts
+     * @param preWarm true to open connections up front
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpConnectionOptions setPreWarm(final boolean preWarm) {
+        this.preWarm = preWarm;
+        return this;
+    }
+}
@@ -0,0 +1,222 @@
+package com.statful.client;
+
+import com.google.common.collect.ImmutableSet;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the HTTP transport's retries of failed batches
+ */
+public final class HttpRetryOptions {
+
+    /**
+     * Default number of times a failed batch is retried
+     */
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * Default backoff in milliseconds before the first retry
+     */
+    private static final long DEFAULT_INITIAL_BACKOFF = 100;
+
+    /**
+     * Default maximum backoff in milliseconds between retries
+     */
+    private static final long DEFAULT_MAX_BACKOFF = 10000;
+
+    /**
+     * Default maximum number of bytes held for retrying
+     */
+    private static final long DEFAULT_MAX_QUEUE_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Default maximum size in bytes of a request carrying coalesced retries
+     */
+    private static final long DEFAULT_MAX_COALESCED_BYTES = 1024 * 1024;
+
+    /**
+     * Default response status codes worth retrying
+     */
+    private static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES = ImmutableSet.of(408, 429, 500, 502, 503, 504);
+
+    /**
+     * Number of times a failed batch is retried, zero disables retries, default value {@value #DEFAULT_MAX_RETRIES}
+     */
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+
+    /**
+     * Backoff in milliseconds before the first retry, doubled on each following one, default value {@value #DEFAULT_INITIAL_BACKOFF}
+     */
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+    /**
+     * Maximum backoff in milliseconds between retries, default value {@value #DEFAULT_MAX_BACKOFF}
+     */
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    /**
+     * Maximum number of bytes held for retrying, the oldest batches are discarded beyond it,
+     * default value {@value #DEFAULT_MAX_QUEUE_BYTES}
+     */
+    private long maxQueueBytes = DEFAULT_MAX_QUEUE_BYTES;
+
+    /**
+     * Maximum size in bytes of a request carrying coalesced retries, default value {@value #DEFAULT_MAX_COALESCED_BYTES}
+     */
+    private long maxCoalescedBytes = DEFAULT_MAX_COALESCED_BYTES;
+
+    /**
+     * Response status codes worth retrying, connection failures are always retried
+     */
+    private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public HttpRetryOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link HttpRetryOptions} to copy from
+     */
+    public HttpRetryOptions(@Nonnull final HttpRetryOptions other) {
+        this.maxRetries = other.maxRetries;
+        this.initialBackoff = other.initialBackoff;
+        this.maxBackoff = other.maxBackoff;
+        this.maxQueueBytes = other.maxQueueBytes;
+        this.maxCoalescedBytes = other.maxCoalescedBytes;
+        this.retryableStatusCodes = other.retryableStatusCodes;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public HttpRetryOptions(@Nonnull final JsonObject config) {
+        this.maxRetries = config.getInteger("maxRetries", DEFAULT_MAX_RETRIES);
+        this.initialBackoff = config.getLong("initialBackoff", DEFAULT_INITIAL_BACKOFF);
+        this.maxBackoff = config.getLong("maxBackoff", DEFAULT_MAX_BACKOFF);
+        this.maxQueueBytes = config.getLong("maxQueueBytes", DEFAULT_MAX_QUEUE_BYTES);
+        this.maxCoalescedBytes = config.getLong("maxCoalescedBytes", DEFAULT_MAX_COALESCED_BYTES);
+
+        final JsonArray statusCodes = config.getJsonArray("retryableStatusCodes");
+        if (statusCodes != null) {
+            this.retryableStatusCodes = statusCodes.stream()
+                    .map(code -> ((Number) code).intValue())
+                    .collect(Collectors.collectingAndThen(Collectors.toSet(), ImmutableSet::copyOf));
+        }
+    }
+
+    /**
+     * @return number of times a failed batch is retried
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the number of times a failed batch is retried, zero disables retries
+     * @param maxRetries number of retries
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @return backoff in milliseconds before the first retry
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Sets the backoff before the first retry, doubled on each following one and randomized by up to half
+     * @param initialBackoff backoff in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setInitialBackoff(final long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    /**
+     * @return maximum backoff in milliseconds between retries
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Sets the maximum backoff between retries
+     * @param maxBackoff backoff in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setMaxBackoff(final long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * @return maximum number of bytes held for retrying
+     */
+    public long getMaxQueueBytes() {
+        return maxQueueBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes held for retrying, the oldest batches are discarded beyond it
+     * @param maxQueueBytes maximum number of bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setMaxQueueBytes(final long maxQueueBytes) {
+        this.maxQueueBytes = maxQueueBytes;
+        return this;
+    }
+
+    /**
+     * @return maximum size in bytes of a request carrying coalesced retries
+     */
+    public long getMaxCoalescedBytes() {
+        return maxCoalescedBytes;
+    }
+
+    /**
+     * Sets the maximum size of a request carrying coalesced retries. Batches waiting for a retry are added to the next
+     * request as long as it stays within this size
+     * @param maxCoalescedBytes maximum size in bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setMaxCoalescedBytes(final long maxCoalescedBytes) {
+        this.maxCoalescedBytes = maxCoalescedBytes;
+        return this;
+    }
+
+    /**
+     * @return response status codes worth retrying
+     */
+    @Nonnull
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    /**
+     * Sets the response status codes worth retrying, connection failures are always retried
+     * @param retryableStatusCodes status codes to retry
+     * @return a reference to this, so the API can be used fluently
+     */
+    public HttpRetryOptions setRetryableStatusCodes(@Nonnull final Set<Integer> retryableStatusCodes) {
+        this.retryableStatusCodes = ImmutableSet.copyOf(requireNonNull(retryableStatusCodes));
+        return this;
+    }
+}
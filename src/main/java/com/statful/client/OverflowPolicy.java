@@ -0,0 +1,20 @@
+package com.statful.client;
+
+/**
+ * Policies applied when a metric is added to a full buffer
+ */
+public enum OverflowPolicy {
+    /**
+     * Discards the metric being added
+     */
+    DROP_NEWEST,
+    /**
+     * Evicts the oldest metric in the buffer to make room for the one being added
+     */
+    DROP_OLDEST,
+    /**
+     * Signals a flush and waits for free space up to a timeout, then discards the metric being added. Event loop
+     * threads are never blocked and discard the metric right away
+     */
+    BLOCK
+}
@@ -0,0 +1,146 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration of the client-side aggregation of counters, gauges and timers before they are sent
+ */
+public final class PreAggregationOptions {
+
+    /**
+     * Default maximum number of series aggregated at once
+     */
+    private static final int DEFAULT_MAX_SERIES = 10000;
+
+    /**
+     * Default largest value of a timer's distribution, one minute in milliseconds
+     */
+    private static final long DEFAULT_TIMER_HIGHEST_TRACKABLE_VALUE = 60 * 1000;
+
+    /**
+     * Default number of significant digits kept in a timer's distribution
+     */
+    private static final int DEFAULT_TIMER_SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Enables the aggregation, disabled by default
+     */
+    private boolean enabled;
+
+    /**
+     * Maximum number of series aggregated at once, points of further series are sent as they are, default value {@value #DEFAULT_MAX_SERIES}
+     */
+    private int maxSeries = DEFAULT_MAX_SERIES;
+
+    /**
+     * Largest value of a timer's distribution, in the timers' unit, larger values count as it in percentiles,
+     * default value {@value #DEFAULT_TIMER_HIGHEST_TRACKABLE_VALUE}
+     */
+    private long timerHighestTrackableValue = DEFAULT_TIMER_HIGHEST_TRACKABLE_VALUE;
+
+    /**
+     * Number of significant digits kept in a timer's distribution, from 1 to 5, default value {@value #DEFAULT_TIMER_SIGNIFICANT_DIGITS}
+     */
+    private int timerSignificantDigits = DEFAULT_TIMER_SIGNIFICANT_DIGITS;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public PreAggregationOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link PreAggregationOptions} to copy from
+     */
+    public PreAggregationOptions(@Nonnull final PreAggregationOptions other) {
+        this.enabled = other.enabled;
+        this.maxSeries = other.maxSeries;
+        this.timerHighestTrackableValue = other.timerHighestTrackableValue;
+        this.timerSignificantDigits = other.timerSignificantDigits;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public PreAggregationOptions(@Nonnull final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.maxSeries = config.getInteger("maxSeries", DEFAULT_MAX_SERIES);
+        this.timerHighestTrackableValue = config.getLong("timerHighestTrackableValue", DEFAULT_TIMER_HIGHEST_TRACKABLE_VALUE);
+        this.timerSignificantDigits = config.getInteger("timerSignificantDigits", DEFAULT_TIMER_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * @return true if the aggregation is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the aggregation
+     * @param enabled true to aggregate points of the same series before sending them
+     * @return a reference to this, so the API can be used fluently
+     */
+    public PreAggregationOptions setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return maximum number of series aggregated at once
+     */
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    /**
+     * Sets the maximum number of series aggregated at once, guarding memory against a blowup of tag values
+     * @param maxSeries number of series
+     * @return a reference to this, so the API can be used fluently
+     */
+    public PreAggregationOptions setMaxSeries(final int maxSeries) {
+        this.maxSeries = maxSeries;
+        return this;
+    }
+
+    /**
+     * @return largest value of a timer's distribution, in the timers' unit
+     */
+    public long getTimerHighestTrackableValue() {
+        return timerHighestTrackableValue;
+    }
+
+    /**
+     * Sets the largest value of a timer's distribution, in the timers' unit. Distributions hold microseconds, so
+     * together with the significant digits its value in microseconds sets the memory taken by each timer series
+     * @param timerHighestTrackableValue largest value
+     * @return a reference to this, so the API can be used fluently
+     */
+    public PreAggregationOptions setTimerHighestTrackableValue(final long timerHighestTrackableValue) {
+        this.timerHighestTrackableValue = timerHighestTrackableValue;
+        return this;
+    }
+
+    /**
+     * @return number of significant digits kept in a timer's distribution
+     */
+    public int getTimerSignificantDigits() {
+        return timerSignificantDigits;
+    }
+
+    /**
+     * Sets the number of significant digits kept in a timer's distribution, percentiles are exact up to it
+     * @param timerSignificantDigits number of digits, from 1 to 5
+     * @return a reference to this, so the API can be used fluently
+     */
+    public PreAggregationOptions setTimerSignificantDigits(final int timerSignificantDigits) {
+        this.timerSignificantDigits = timerSignificantDigits;
+        return this;
+    }
+}
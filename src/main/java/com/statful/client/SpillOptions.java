@@ -0,0 +1,206 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the on-disk queue that keeps batches which could not be delivered
+ */
+public final class SpillOptions {
+
+    /**
+     * Default directory holding the queue's segments
+     */
+    private static final String DEFAULT_DIRECTORY = System.getProperty("java.io.tmpdir") + File.separator + "statful-spill";
+
+    /**
+     * Default size in bytes of a segment file
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Default maximum number of bytes on disk
+     */
+    private static final long DEFAULT_MAX_DISK_BYTES = 256 * 1024 * 1024;
+
+    /**
+     * Default maximum age in milliseconds of spilled batches, one day
+     */
+    private static final long DEFAULT_MAX_AGE = 24 * 60 * 60 * 1000;
+
+    /**
+     * Default number of batches replayed per second
+     */
+    private static final int DEFAULT_REPLAY_RATE = 10;
+
+    /**
+     * Enables the queue, disabled by default
+     */
+    private boolean enabled;
+
+    /**
+     * Directory holding the queue's segments, default value {@link #DEFAULT_DIRECTORY}
+     */
+    private String directory = DEFAULT_DIRECTORY;
+
+    /**
+     * Size in bytes of a segment file, default value {@value #DEFAULT_SEGMENT_SIZE}
+     */
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    /**
+     * Maximum number of bytes on disk, the oldest segments are deleted beyond it, default value {@value #DEFAULT_MAX_DISK_BYTES}
+     */
+    private long maxDiskBytes = DEFAULT_MAX_DISK_BYTES;
+
+    /**
+     * Maximum age in milliseconds of spilled batches, older ones are deleted, default value {@value #DEFAULT_MAX_AGE}
+     */
+    private long maxAge = DEFAULT_MAX_AGE;
+
+    /**
+     * Number of batches replayed per second once the transport recovers, default value {@value #DEFAULT_REPLAY_RATE}
+     */
+    private int replayRate = DEFAULT_REPLAY_RATE;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public SpillOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link SpillOptions} to copy from
+     */
+    public SpillOptions(@Nonnull final SpillOptions other) {
+        this.enabled = other.enabled;
+        this.directory = other.directory;
+        this.segmentSize = other.segmentSize;
+        this.maxDiskBytes = other.maxDiskBytes;
+        this.maxAge = other.maxAge;
+        this.replayRate = other.replayRate;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public SpillOptions(@Nonnull final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.directory = config.getString("directory", DEFAULT_DIRECTORY);
+        this.segmentSize = config.getInteger("segmentSize", DEFAULT_SEGMENT_SIZE);
+        this.maxDiskBytes = config.getLong("maxDiskBytes", DEFAULT_MAX_DISK_BYTES);
+        this.maxAge = config.getLong("maxAge", DEFAULT_MAX_AGE);
+        this.replayRate = config.getInteger("replayRate", DEFAULT_REPLAY_RATE);
+    }
+
+    /**
+     * @return true if the queue is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the queue
+     * @param enabled true to enable the queue
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return directory holding the queue's segments
+     */
+    @Nonnull
+    public String getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the directory holding the queue's segments, batches left there are replayed on the next start
+     * @param directory path of the directory
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setDirectory(@Nonnull final String directory) {
+        this.directory = requireNonNull(directory);
+        return this;
+    }
+
+    /**
+     * @return size in bytes of a segment file
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Sets the size of a segment file, the unit in which disk space is reclaimed
+     * @param segmentSize size in bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setSegmentSize(final int segmentSize) {
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * @return maximum number of bytes on disk
+     */
+    public long getMaxDiskBytes() {
+        return maxDiskBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes on disk, the oldest segments are deleted beyond it
+     * @param maxDiskBytes maximum number of bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setMaxDiskBytes(final long maxDiskBytes) {
+        this.maxDiskBytes = maxDiskBytes;
+        return this;
+    }
+
+    /**
+     * @return maximum age in milliseconds of spilled batches
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets the maximum age of spilled batches, older ones are deleted instead of replayed
+     * @param maxAge age in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setMaxAge(final long maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    /**
+     * @return number of batches replayed per second
+     */
+    public int getReplayRate() {
+        return replayRate;
+    }
+
+    /**
+     * Sets the number of batches replayed per second once the transport recovers
+     * @param replayRate batches per second
+     * @return a reference to this, so the API can be used fluently
+     */
+    public SpillOptions setReplayRate(final int replayRate) {
+        this.replayRate = replayRate;
+        return this;
+    }
+}
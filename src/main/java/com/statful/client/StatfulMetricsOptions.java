@@ -2,6 +2,7 @@ package com.statful.client;
 
 import com.google.common.collect.Lists;
 import com.statful.utils.Pair;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.metrics.MetricsOptions;
@@ -118,6 +119,131 @@ public class StatfulMetricsOptions extends MetricsOptions {
      */
     private static final String DEFAULT_HTTP_METRICS_PATH = "/tel/v2.0/metrics";
 
+    /**
+     * Default implementation of the buffer that holds metrics between flushes
+     */
+    private static final BufferType DEFAULT_BUFFER_TYPE = BufferType.BLOCKING;
+
+    /**
+     * Default strategy for threads contending on the ring buffer
+     */
+    private static final WaitStrategy DEFAULT_BUFFER_WAIT_STRATEGY = WaitStrategy.YIELD;
+
+    /**
+     * Default policy applied when a metric is added to a full buffer
+     */
+    private static final OverflowPolicy DEFAULT_BUFFER_OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+
+    /**
+     * Default time in milliseconds that worker threads wait for free space in a full buffer
+     */
+    private static final long DEFAULT_BUFFER_OFFER_TIMEOUT = 100;
+
+    /**
+     * Default thread on which flushes run
+     */
+    private static final FlushMode DEFAULT_FLUSH_MODE = FlushMode.INLINE;
+
+    /**
+     * Default maximum number of batches sent and not yet acknowledged
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+
+    /**
+     * Default time budget in milliseconds of a flush cycle
+     */
+    private static final long DEFAULT_FLUSH_CYCLE_TIME_BUDGET = 100;
+
+    /**
+     * Default byte budget of a flush cycle
+     */
+    private static final long DEFAULT_FLUSH_CYCLE_BYTE_BUDGET = 1024 * 1024;
+
+    /**
+     * Default content encoding of HTTP payloads
+     */
+    private static final Compression DEFAULT_HTTP_COMPRESSION = Compression.NONE;
+
+    /**
+     * Default compression level of HTTP payloads
+     */
+    private static final int DEFAULT_HTTP_COMPRESSION_LEVEL = 6;
+
+    /**
+     * Default minimum size of compressed HTTP payloads
+     */
+    private static final int DEFAULT_HTTP_COMPRESSION_MIN_SIZE = 1024;
+
+    /**
+     * Default size of HTTP payloads compressed on a worker thread
+     */
+    private static final int DEFAULT_HTTP_COMPRESSION_OFFLOAD_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum payload size of a datagram, fits a 1500 bytes MTU with room for IP and UDP headers
+     */
+    private static final int DEFAULT_UDP_MAX_PAYLOAD_SIZE = 1432;
+
+    /**
+     * Default maximum number of concurrent requests of the HTTP transport
+     */
+    private static final int DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS = 4;
+
+    /**
+     * Default maximum number of batches waiting for a request of the HTTP transport
+     */
+    private static final int DEFAULT_HTTP_MAX_PENDING_REQUESTS = 16;
+
+    /**
+     * Default HTTP protocol version
+     */
+    private static final HttpVersion DEFAULT_HTTP_VERSION = HttpVersion.HTTP_1_1;
+
+    /**
+     * Default maximum number of concurrent streams on an HTTP/2 connection
+     */
+    private static final int DEFAULT_HTTP2_MULTIPLEXING_LIMIT = 100;
+
+    /**
+     * Default HTTP/2 flow control window size
+     */
+    private static final int DEFAULT_HTTP2_WINDOW_SIZE = 65535;
+
+    /**
+     * Default path of the local relay's Unix domain socket
+     */
+    private static final String DEFAULT_UNIX_SOCKET_PATH = "/var/run/statful/statful.sock";
+
+    /**
+     * Default way of spreading metrics over several endpoints
+     */
+    private static final EndpointMode DEFAULT_ENDPOINT_MODE = EndpointMode.FAILOVER;
+
+    /**
+     * Default number of batches queued for each destination of a tee
+     */
+    private static final int DEFAULT_TEE_QUEUE_SIZE = 16;
+
+    /**
+     * Default number of series whose metric line template is cached by each collector
+     */
+    private static final int DEFAULT_METRIC_LINE_CACHE_SIZE = 1000;
+
+    /**
+     * Default unit in which timers are sent
+     */
+    private static final TimerUnit DEFAULT_TIMER_UNIT = TimerUnit.MILLISECONDS;
+
+    /**
+     * Default number of request paths whose normalized tag is cached by each http server collector
+     */
+    private static final int DEFAULT_PATH_CACHE_SIZE = 1000;
+
+    /**
+     * Default time in milliseconds an endpoint whose transport failed waits before it is tried again
+     */
+    private static final long DEFAULT_ENDPOINT_RETRY_INTERVAL = 10000L;
+
     /**
      * Statful host, default value {@value #DEFAULT_HOST}
      */
@@ -259,6 +385,174 @@ public class StatfulMetricsOptions extends MetricsOptions {
      */
     private String httpMetricsPath = DEFAULT_HTTP_METRICS_PATH;
 
+    /**
+     * Implementation of the buffer that holds metrics between flushes, default value {@link #DEFAULT_BUFFER_TYPE}
+     */
+    private BufferType bufferType = DEFAULT_BUFFER_TYPE;
+
+    /**
+     * How threads wait while contending on the ring buffer, default value {@link #DEFAULT_BUFFER_WAIT_STRATEGY}
+     */
+    private WaitStrategy bufferWaitStrategy = DEFAULT_BUFFER_WAIT_STRATEGY;
+
+    /**
+     * Policy applied when a metric is added to a full buffer, default value {@link #DEFAULT_BUFFER_OVERFLOW_POLICY}
+     */
+    private OverflowPolicy bufferOverflowPolicy = DEFAULT_BUFFER_OVERFLOW_POLICY;
+
+    /**
+     * Time in milliseconds that worker threads wait for free space in a full buffer, default value {@value #DEFAULT_BUFFER_OFFER_TIMEOUT}
+     */
+    private long bufferOfferTimeout = DEFAULT_BUFFER_OFFER_TIMEOUT;
+
+    /**
+     * Defines on which thread flushes run, default value {@link #DEFAULT_FLUSH_MODE}
+     */
+    private FlushMode flushMode = DEFAULT_FLUSH_MODE;
+
+    /**
+     * Maximum number of batches a flush cycle keeps sent and not yet acknowledged, default value {@value #DEFAULT_MAX_IN_FLIGHT_BATCHES}
+     */
+    private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+
+    /**
+     * Time in milliseconds a flush cycle keeps draining the buffer, zero or less for no limit, default value {@value #DEFAULT_FLUSH_CYCLE_TIME_BUDGET}
+     */
+    private long flushCycleTimeBudget = DEFAULT_FLUSH_CYCLE_TIME_BUDGET;
+
+    /**
+     * Number of bytes a flush cycle sends before yielding, zero or less for no limit, default value {@value #DEFAULT_FLUSH_CYCLE_BYTE_BUDGET}
+     */
+    private long flushCycleByteBudget = DEFAULT_FLUSH_CYCLE_BYTE_BUDGET;
+
+    /**
+     * Content encoding of HTTP payloads, default value {@link #DEFAULT_HTTP_COMPRESSION}
+     */
+    private Compression httpCompression = DEFAULT_HTTP_COMPRESSION;
+
+    /**
+     * Compression level of HTTP payloads, from 1 (fastest) to 9 (smallest), default value {@value #DEFAULT_HTTP_COMPRESSION_LEVEL}
+     */
+    private int httpCompressionLevel = DEFAULT_HTTP_COMPRESSION_LEVEL;
+
+    /**
+     * Payloads smaller than this number of bytes are sent uncompressed, default value {@value #DEFAULT_HTTP_COMPRESSION_MIN_SIZE}
+     */
+    private int httpCompressionMinSize = DEFAULT_HTTP_COMPRESSION_MIN_SIZE;
+
+    /**
+     * Payloads of at least this number of bytes are compressed on a worker thread instead of the flushing thread,
+     * default value {@value #DEFAULT_HTTP_COMPRESSION_OFFLOAD_SIZE}
+     */
+    private int httpCompressionOffloadSize = DEFAULT_HTTP_COMPRESSION_OFFLOAD_SIZE;
+
+    /**
+     * Maximum payload size in bytes of a datagram sent by the UDP transport, default value {@value #DEFAULT_UDP_MAX_PAYLOAD_SIZE}
+     */
+    private int udpMaxPayloadSize = DEFAULT_UDP_MAX_PAYLOAD_SIZE;
+
+    /**
+     * Maximum number of concurrent requests of the HTTP transport, default value {@value #DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS}
+     */
+    private int httpMaxInFlightRequests = DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS;
+
+    /**
+     * Maximum number of batches waiting for a request of the HTTP transport, default value {@value #DEFAULT_HTTP_MAX_PENDING_REQUESTS}
+     */
+    private int httpMaxPendingRequests = DEFAULT_HTTP_MAX_PENDING_REQUESTS;
+
+    /**
+     * Configuration of the HTTP transport's retries
+     */
+    private HttpRetryOptions httpRetryOptions = new HttpRetryOptions();
+
+    /**
+     * Configuration of the HTTP transport's connections and their pool
+     */
+    private HttpConnectionOptions httpConnectionOptions = new HttpConnectionOptions();
+
+    /**
+     * Configuration of the HTTP transport's circuit breaker
+     */
+    private CircuitBreakerOptions httpCircuitBreakerOptions = new CircuitBreakerOptions();
+
+    /**
+     * Configuration of the TCP transport's connection
+     */
+    private TcpOptions tcpOptions = new TcpOptions();
+
+    /**
+     * Configuration of the on-disk queue for undeliverable batches
+     */
+    private SpillOptions spillOptions = new SpillOptions();
+
+    /**
+     * Configuration of the client-side aggregation of points before sending
+     */
+    private PreAggregationOptions preAggregationOptions = new PreAggregationOptions();
+
+    /**
+     * HTTP protocol version, HTTP_2 negotiates with ALPN over TLS and uses h2c with prior knowledge otherwise, default value {@link #DEFAULT_HTTP_VERSION}
+     */
+    private HttpVersion httpVersion = DEFAULT_HTTP_VERSION;
+
+    /**
+     * Maximum number of concurrent streams on an HTTP/2 connection, -1 to use the server's limit, default value {@value #DEFAULT_HTTP2_MULTIPLEXING_LIMIT}
+     */
+    private int http2MultiplexingLimit = DEFAULT_HTTP2_MULTIPLEXING_LIMIT;
+
+    /**
+     * Flow control window size in bytes of HTTP/2 connections and streams, default value {@value #DEFAULT_HTTP2_WINDOW_SIZE}
+     */
+    private int http2WindowSize = DEFAULT_HTTP2_WINDOW_SIZE;
+
+    /**
+     * Path of the local relay's Unix domain socket, to be used by the unix transport, default value {@value #DEFAULT_UNIX_SOCKET_PATH}
+     */
+    private String unixSocketPath = DEFAULT_UNIX_SOCKET_PATH;
+
+    /**
+     * Endpoints to send metrics to instead of host and port, each with its own sender
+     */
+    private List<Endpoint> endpoints = Collections.emptyList();
+
+    /**
+     * Way of spreading metrics over the configured endpoints, default value {@link #DEFAULT_ENDPOINT_MODE}
+     */
+    private EndpointMode endpointMode = DEFAULT_ENDPOINT_MODE;
+
+    /**
+     * Endpoints also receiving every batch, next to host and port
+     */
+    private List<Endpoint> teeEndpoints = Collections.emptyList();
+
+    /**
+     * Number of batches queued for each tee destination, the oldest is dropped beyond it, default value {@value #DEFAULT_TEE_QUEUE_SIZE}
+     */
+    private int teeQueueSize = DEFAULT_TEE_QUEUE_SIZE;
+
+    /**
+     * Number of series whose metric line template is cached by each collector, 0 disables the cache, default value {@value #DEFAULT_METRIC_LINE_CACHE_SIZE}
+     */
+    private int metricLineCacheSize = DEFAULT_METRIC_LINE_CACHE_SIZE;
+
+    /**
+     * Unit in which timers are sent, as decimals of it, default value milliseconds
+     */
+    private TimerUnit timerUnit = DEFAULT_TIMER_UNIT;
+
+    /**
+     * Number of request paths whose normalized tag, or whether they are ignored, is cached by each http server collector,
+     * 0 disables the cache, default value {@value #DEFAULT_PATH_CACHE_SIZE}
+     */
+    private int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+
+    /**
+     * Time in milliseconds an endpoint whose transport failed waits before it is tried again, so that failover mode
+     * fails back to the primary once it recovers, default value {@value #DEFAULT_ENDPOINT_RETRY_INTERVAL}
+     */
+    private long endpointRetryInterval = DEFAULT_ENDPOINT_RETRY_INTERVAL;
+
     /**
      * Empty constructor that provides default values, all of which should be overridable
      */
@@ -296,6 +590,39 @@ public class StatfulMetricsOptions extends MetricsOptions {
         this.enableHttpServerMetrics = other.enableHttpServerMetrics;
         this.maxBufferSize = other.maxBufferSize;
         this.httpMetricsPath = other.httpMetricsPath;
+        this.bufferType = other.bufferType;
+        this.bufferWaitStrategy = other.bufferWaitStrategy;
+        this.bufferOverflowPolicy = other.bufferOverflowPolicy;
+        this.bufferOfferTimeout = other.bufferOfferTimeout;
+        this.flushMode = other.flushMode;
+        this.maxInFlightBatches = other.maxInFlightBatches;
+        this.flushCycleTimeBudget = other.flushCycleTimeBudget;
+        this.flushCycleByteBudget = other.flushCycleByteBudget;
+        this.httpCompression = other.httpCompression;
+        this.httpCompressionLevel = other.httpCompressionLevel;
+        this.httpCompressionMinSize = other.httpCompressionMinSize;
+        this.httpCompressionOffloadSize = other.httpCompressionOffloadSize;
+        this.udpMaxPayloadSize = other.udpMaxPayloadSize;
+        this.httpMaxInFlightRequests = other.httpMaxInFlightRequests;
+        this.httpMaxPendingRequests = other.httpMaxPendingRequests;
+        this.httpVersion = other.httpVersion;
+        this.http2MultiplexingLimit = other.http2MultiplexingLimit;
+        this.http2WindowSize = other.http2WindowSize;
+        this.unixSocketPath = other.unixSocketPath;
+        this.endpoints = other.endpoints;
+        this.endpointMode = other.endpointMode;
+        this.teeEndpoints = other.teeEndpoints;
+        this.teeQueueSize = other.teeQueueSize;
+        this.metricLineCacheSize = other.metricLineCacheSize;
+        this.timerUnit = other.timerUnit;
+        this.pathCacheSize = other.pathCacheSize;
+        this.endpointRetryInterval = other.endpointRetryInterval;
+        this.httpRetryOptions = new HttpRetryOptions(other.httpRetryOptions);
+        this.httpCircuitBreakerOptions = new CircuitBreakerOptions(other.httpCircuitBreakerOptions);
+        this.httpConnectionOptions = new HttpConnectionOptions(other.httpConnectionOptions);
+        this.tcpOptions = new TcpOptions(other.tcpOptions);
+        this.spillOptions = new SpillOptions(other.spillOptions);
+        this.preAggregationOptions = new PreAggregationOptions(other.preAggregationOptions);
     }
 
 
@@ -353,6 +680,50 @@ public class StatfulMetricsOptions extends MetricsOptions {
 
         this.maxBufferSize = config.getInteger("maxBufferSize", DEFAULT_MAX_BUFFER_SIZE);
         this.httpMetricsPath = config.getString("httpMetricsPath", DEFAULT_HTTP_METRICS_PATH);
+        this.bufferType = BufferType.valueOf(config.getString("bufferType", DEFAULT_BUFFER_TYPE.toString()));
+        this.bufferWaitStrategy = WaitStrategy.valueOf(config.getString("bufferWaitStrategy", DEFAULT_BUFFER_WAIT_STRATEGY.toString()));
+        this.bufferOverflowPolicy = OverflowPolicy.valueOf(config.getString("bufferOverflowPolicy", DEFAULT_BUFFER_OVERFLOW_POLICY.toString()));
+        this.bufferOfferTimeout = config.getLong("bufferOfferTimeout", DEFAULT_BUFFER_OFFER_TIMEOUT);
+        this.flushMode = FlushMode.valueOf(config.getString("flushMode", DEFAULT_FLUSH_MODE.toString()));
+        this.maxInFlightBatches = config.getInteger("maxInFlightBatches", DEFAULT_MAX_IN_FLIGHT_BATCHES);
+        this.flushCycleTimeBudget = config.getLong("flushCycleTimeBudget", DEFAULT_FLUSH_CYCLE_TIME_BUDGET);
+        this.flushCycleByteBudget = config.getLong("flushCycleByteBudget", DEFAULT_FLUSH_CYCLE_BYTE_BUDGET);
+        this.httpCompression = Compression.valueOf(config.getString("httpCompression", DEFAULT_HTTP_COMPRESSION.toString()));
+        this.httpCompressionLevel = config.getInteger("httpCompressionLevel", DEFAULT_HTTP_COMPRESSION_LEVEL);
+        this.httpCompressionMinSize = config.getInteger("httpCompressionMinSize", DEFAULT_HTTP_COMPRESSION_MIN_SIZE);
+        this.httpCompressionOffloadSize = config.getInteger("httpCompressionOffloadSize", DEFAULT_HTTP_COMPRESSION_OFFLOAD_SIZE);
+        this.udpMaxPayloadSize = config.getInteger("udpMaxPayloadSize", DEFAULT_UDP_MAX_PAYLOAD_SIZE);
+        this.httpMaxInFlightRequests = config.getInteger("httpMaxInFlightRequests", DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS);
+        this.httpMaxPendingRequests = config.getInteger("httpMaxPendingRequests", DEFAULT_HTTP_MAX_PENDING_REQUESTS);
+        this.httpRetryOptions = Optional.ofNullable(config.getJsonObject("httpRetry")).map(HttpRetryOptions::new).orElseGet(HttpRetryOptions::new);
+        this.httpCircuitBreakerOptions = Optional.ofNullable(config.getJsonObject("httpCircuitBreaker"))
+                .map(CircuitBreakerOptions::new).orElseGet(CircuitBreakerOptions::new);
+        this.httpConnectionOptions = Optional.ofNullable(config.getJsonObject("httpConnection"))
+                .map(HttpConnectionOptions::new).orElseGet(HttpConnectionOptions::new);
+        this.tcpOptions = Optional.ofNullable(config.getJsonObject("tcp")).map(TcpOptions::new).orElseGet(TcpOptions::new);
+        this.spillOptions = Optional.ofNullable(config.getJsonObject("spill")).map(SpillOptions::new).orElseGet(SpillOptions::new);
+        this.preAggregationOptions = Optional.ofNullable(config.getJsonObject("preAggregation")).map(PreAggregationOptions::new)
+                .orElseGet(PreAggregationOptions::new);
+        this.httpVersion = HttpVersion.valueOf(config.getString("httpVersion", DEFAULT_HTTP_VERSION.toString()));
+        this.http2MultiplexingLimit = config.getInteger("http2MultiplexingLimit", DEFAULT_HTTP2_MULTIPLEXING_LIMIT);
+        this.http2WindowSize = config.getInteger("http2WindowSize", DEFAULT_HTTP2_WINDOW_SIZE);
+        this.unixSocketPath = config.getString("unixSocketPath", DEFAULT_UNIX_SOCKET_PATH);
+        this.endpoints = config.getJsonArray("endpoints", new JsonArray())
+                .stream()
+                .map(JsonObject.class::cast)
+                .map(Endpoint::new)
+                .collect(Collectors.toList());
+        this.endpointMode = EndpointMode.valueOf(config.getString("endpointMode", DEFAULT_ENDPOINT_MODE.toString()));
+        this.teeEndpoints = config.getJsonArray("teeEndpoints", new JsonArray())
+                .stream()
+                .map(JsonObject.class::cast)
+                .map(Endpoint::new)
+                .collect(Collectors.toList());
+        this.teeQueueSize = config.getInteger("teeQueueSize", DEFAULT_TEE_QUEUE_SIZE);
+        this.metricLineCacheSize = config.getInteger("metricLineCacheSize", DEFAULT_METRIC_LINE_CACHE_SIZE);
+        this.timerUnit = TimerUnit.valueOf(config.getString("timerUnit", DEFAULT_TIMER_UNIT.toString()));
+        this.pathCacheSize = config.getInteger("pathCacheSize", DEFAULT_PATH_CACHE_SIZE);
+        this.endpointRetryInterval = config.getLong("endpointRetryInterval", DEFAULT_ENDPOINT_RETRY_INTERVAL);
     }
 
     private List<Aggregation> parseAggregationsConfiguration(final String key, final JsonObject config, final List<Aggregation> defaultConfig) {
@@ -893,4 +1264,587 @@ public class StatfulMetricsOptions extends MetricsOptions {
         this.httpMetricsPath = httpMetricsPath;
         return this;
     }
+
+    /**
+     * @return the implementation of the buffer that holds metrics between flushes
+     */
+    @Nonnull
+    public BufferType getBufferType() {
+        return bufferType;
+    }
+
+    /**
+     * Sets the implementation of the buffer that holds metrics between flushes
+     * @param bufferType buffer implementation to use
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setBufferType(@Nonnull final BufferType bufferType) {
+        this.bufferType = requireNonNull(bufferType);
+        return this;
+    }
+
+    /**
+     * @return the strategy used by threads contending on the ring buffer
+     */
+    @Nonnull
+    public WaitStrategy getBufferWaitStrategy() {
+        return bufferWaitStrategy;
+    }
+
+    /**
+     * Sets how threads wait while contending on the ring buffer, only used by {@link BufferType#RING}
+     * @param bufferWaitStrategy wait strategy to use
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setBufferWaitStrategy(@Nonnull final WaitStrategy bufferWaitStrategy) {
+        this.bufferWaitStrategy = requireNonNull(bufferWaitStrategy);
+        return this;
+    }
+
+    /**
+     * @return the policy applied when a metric is added to a full buffer
+     */
+    @Nonnull
+    public OverflowPolicy getBufferOverflowPolicy() {
+        return bufferOverflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when a metric is added to a full buffer
+     * @param bufferOverflowPolicy overflow policy to use
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setBufferOverflowPolicy(@Nonnull final OverflowPolicy bufferOverflowPolicy) {
+        this.bufferOverflowPolicy = requireNonNull(bufferOverflowPolicy);
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds that worker threads wait for free space in a full buffer
+     */
+    public long getBufferOfferTimeout() {
+        return bufferOfferTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds that worker threads wait for free space, only used by {@link OverflowPolicy#BLOCK}
+     * @param bufferOfferTimeout time to wait in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setBufferOfferTimeout(final long bufferOfferTimeout) {
+        this.bufferOfferTimeout = bufferOfferTimeout;
+        return this;
+    }
+
+    /**
+     * @return the mode that defines on which thread flushes run
+     */
+    @Nonnull
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * Sets on which thread flushes run. Asynchronous modes keep serialization and I/O off the thread adding metrics
+     * @param flushMode flush mode to use
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setFlushMode(@Nonnull final FlushMode flushMode) {
+        this.flushMode = requireNonNull(flushMode);
+        return this;
+    }
+
+    /**
+     * @return maximum number of batches sent and not yet acknowledged
+     */
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    /**
+     * Sets the maximum number of batches a flush cycle keeps sent and not yet acknowledged
+     * @param maxInFlightBatches maximum number of batches in flight
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setMaxInFlightBatches(final int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+        return this;
+    }
+
+    /**
+     * @return time budget in milliseconds of a flush cycle
+     */
+    public long getFlushCycleTimeBudget() {
+        return flushCycleTimeBudget;
+    }
+
+    /**
+     * Sets the time a flush cycle keeps draining the buffer, zero or less for no limit
+     * @param flushCycleTimeBudget time budget in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setFlushCycleTimeBudget(final long flushCycleTimeBudget) {
+        this.flushCycleTimeBudget = flushCycleTimeBudget;
+        return this;
+    }
+
+    /**
+     * @return byte budget of a flush cycle
+     */
+    public long getFlushCycleByteBudget() {
+        return flushCycleByteBudget;
+    }
+
+    /**
+     * Sets the number of bytes a flush cycle sends before yielding, zero or less for no limit
+     * @param flushCycleByteBudget byte budget
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setFlushCycleByteBudget(final long flushCycleByteBudget) {
+        this.flushCycleByteBudget = flushCycleByteBudget;
+        return this;
+    }
+
+    /**
+     * @return content encoding of HTTP payloads
+     */
+    @Nonnull
+    public Compression getHttpCompression() {
+        return httpCompression;
+    }
+
+    /**
+     * Sets the content encoding of HTTP payloads
+     * @param httpCompression compression to use
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpCompression(@Nonnull final Compression httpCompression) {
+        this.httpCompression = requireNonNull(httpCompression);
+        return this;
+    }
+
+    /**
+     * @return compression level of HTTP payloads
+     */
+    public int getHttpCompressionLevel() {
+        return httpCompressionLevel;
+    }
+
+    /**
+     * Sets the compression level of HTTP payloads, from 1 (fastest) to 9 (smallest)
+     * @param httpCompressionLevel compression level
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpCompressionLevel(final int httpCompressionLevel) {
+        this.httpCompressionLevel = httpCompressionLevel;
+        return this;
+    }
+
+    /**
+     * @return minimum size in bytes of compressed HTTP payloads
+     */
+    public int getHttpCompressionMinSize() {
+        return httpCompressionMinSize;
+    }
+
+    /**
+     * Sets the size in bytes below which payloads are sent uncompressed
+     * @param httpCompressionMinSize minimum payload size to compress
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpCompressionMinSize(final int httpCompressionMinSize) {
+        this.httpCompressionMinSize = httpCompressionMinSize;
+        return this;
+    }
+
+    /**
+     * @return size in bytes of HTTP payloads compressed on a worker thread
+     */
+    public int getHttpCompressionOffloadSize() {
+        return httpCompressionOffloadSize;
+    }
+
+    /**
+     * Sets the size in bytes from which payloads are compressed on a worker thread, keeping large batches off the event loop
+     * @param httpCompressionOffloadSize minimum payload size to compress on a worker thread
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpCompressionOffloadSize(final int httpCompressionOffloadSize) {
+        this.httpCompressionOffloadSize = httpCompressionOffloadSize;
+        return this;
+    }
+
+    /**
+     * @return maximum payload size in bytes of a datagram
+     */
+    public int getUdpMaxPayloadSize() {
+        return udpMaxPayloadSize;
+    }
+
+    /**
+     * Sets the maximum payload size of a datagram. Metric lines are packed into datagrams up to this size and never split
+     * @param udpMaxPayloadSize maximum payload size in bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setUdpMaxPayloadSize(final int udpMaxPayloadSize) {
+        this.udpMaxPayloadSize = udpMaxPayloadSize;
+        return this;
+    }
+
+    /**
+     * @return maximum number of concurrent requests of the HTTP transport
+     */
+    public int getHttpMaxInFlightRequests() {
+        return httpMaxInFlightRequests;
+    }
+
+    /**
+     * Sets the maximum number of concurrent requests of the HTTP transport
+     * @param httpMaxInFlightRequests maximum number of concurrent requests
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpMaxInFlightRequests(final int httpMaxInFlightRequests) {
+        this.httpMaxInFlightRequests = httpMaxInFlightRequests;
+        return this;
+    }
+
+    /**
+     * @return maximum number of batches waiting for a request of the HTTP transport
+     */
+    public int getHttpMaxPendingRequests() {
+        return httpMaxPendingRequests;
+    }
+
+    /**
+     * Sets the maximum number of batches waiting for a request of the HTTP transport.
+     * Once reached, the buffer stops being drained and its overflow policy applies
+     * @param httpMaxPendingRequests maximum number of pending batches
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpMaxPendingRequests(final int httpMaxPendingRequests) {
+        this.httpMaxPendingRequests = httpMaxPendingRequests;
+        return this;
+    }
+
+    /**
+     * @return configuration of the HTTP transport's retries
+     */
+    @Nonnull
+    public HttpRetryOptions getHttpRetryOptions() {
+        return httpRetryOptions;
+    }
+
+    /**
+     * Sets the configuration of the HTTP transport's retries
+     * @param httpRetryOptions retry configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpRetryOptions(@Nonnull final HttpRetryOptions httpRetryOptions) {
+        this.httpRetryOptions = requireNonNull(httpRetryOptions);
+        return this;
+    }
+
+    /**
+     * @return configuration of the HTTP transport's connections and their pool
+     */
+    @Nonnull
+    public HttpConnectionOptions getHttpConnectionOptions() {
+        return httpConnectionOptions;
+    }
+
+    /**
+     * Sets the configuration of the HTTP transport's connections and their pool
+     * @param httpConnectionOptions connection configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpConnectionOptions(@Nonnull final HttpConnectionOptions httpConnectionOptions) {
+        this.httpConnectionOptions = requireNonNull(httpConnectionOptions);
+        return this;
+    }
+
+    /**
+     * @return configuration of the HTTP transport's circuit breaker
+     */
+    @Nonnull
+    public CircuitBreakerOptions getHttpCircuitBreakerOptions() {
+        return httpCircuitBreakerOptions;
+    }
+
+    /**
+     * Sets the configuration of the HTTP transport's circuit breaker
+     * @param httpCircuitBreakerOptions circuit breaker configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpCircuitBreakerOptions(@Nonnull final CircuitBreakerOptions httpCircuitBreakerOptions) {
+        this.httpCircuitBreakerOptions = requireNonNull(httpCircuitBreakerOptions);
+        return this;
+    }
+
+    /**
+     * @return configuration of the TCP transport's connection
+     */
+    @Nonnull
+    public TcpOptions getTcpOptions() {
+        return tcpOptions;
+    }
+
+    /**
+     * Sets the configuration of the TCP transport's connection
+     * @param tcpOptions TCP configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setTcpOptions(@Nonnull final TcpOptions tcpOptions) {
+        this.tcpOptions = requireNonNull(tcpOptions);
+        return this;
+    }
+
+    /**
+     * @return configuration of the on-disk queue for undeliverable batches
+     */
+    @Nonnull
+    public SpillOptions getSpillOptions() {
+        return spillOptions;
+    }
+
+    /**
+     * Sets the configuration of the on-disk queue for undeliverable batches
+     * @param spillOptions spill configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setSpillOptions(@Nonnull final SpillOptions spillOptions) {
+        this.spillOptions = requireNonNull(spillOptions);
+        return this;
+    }
+
+    /**
+     * @return configuration of the client-side aggregation of points
+     */
+    @Nonnull
+    public PreAggregationOptions getPreAggregationOptions() {
+        return preAggregationOptions;
+    }
+
+    /**
+     * Sets the configuration of the client-side aggregation of points, sending one point per series and window
+     * @param preAggregationOptions aggregation configuration
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setPreAggregationOptions(@Nonnull final PreAggregationOptions preAggregationOptions) {
+        this.preAggregationOptions = requireNonNull(preAggregationOptions);
+        return this;
+    }
+
+    /**
+     * @return HTTP protocol version
+     */
+    @Nonnull
+    public HttpVersion getHttpVersion() {
+        return httpVersion;
+    }
+
+    /**
+     * Sets the HTTP protocol version, HTTP_2 multiplexes concurrent batches as streams on a single connection
+     * @param httpVersion protocol version
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttpVersion(@Nonnull final HttpVersion httpVersion) {
+        this.httpVersion = requireNonNull(httpVersion);
+        return this;
+    }
+
+    /**
+     * @return maximum number of concurrent streams on an HTTP/2 connection
+     */
+    public int getHttp2MultiplexingLimit() {
+        return http2MultiplexingLimit;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams on an HTTP/2 connection, -1 to use the server's limit
+     * @param http2MultiplexingLimit maximum number of concurrent streams
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttp2MultiplexingLimit(final int http2MultiplexingLimit) {
+        this.http2MultiplexingLimit = http2MultiplexingLimit;
+        return this;
+    }
+
+    /**
+     * @return flow control window size in bytes of HTTP/2 connections and streams
+     */
+    public int getHttp2WindowSize() {
+        return http2WindowSize;
+    }
+
+    /**
+     * Sets the flow control window size in bytes of HTTP/2 connections and streams
+     * @param http2WindowSize window size in bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setHttp2WindowSize(final int http2WindowSize) {
+        this.http2WindowSize = http2WindowSize;
+        return this;
+    }
+
+    /**
+     * @return path of the local relay's Unix domain socket
+     */
+    @Nonnull
+    public String getUnixSocketPath() {
+        return unixSocketPath;
+    }
+
+    /**
+     * Sets the path of the local relay's Unix domain socket, to be used by the unix transport
+     * @param unixSocketPath socket path
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setUnixSocketPath(@Nonnull final String unixSocketPath) {
+        this.unixSocketPath = requireNonNull(unixSocketPath);
+        return this;
+    }
+
+    /**
+     * @return endpoints to send metrics to instead of host and port, empty to use host and port
+     */
+    @Nonnull
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Sets several endpoints to send metrics to instead of host and port, spread according to the endpoint mode.
+     * Performs a shallow copy of the input list
+     *
+     * @param endpoints endpoints, empty to use host and port
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setEndpoints(@Nonnull final List<Endpoint> endpoints) {
+        this.endpoints = new ArrayList<>(requireNonNull(endpoints));
+        return this;
+    }
+
+    /**
+     * @return way of spreading metrics over the configured endpoints
+     */
+    @Nonnull
+    public EndpointMode getEndpointMode() {
+        return endpointMode;
+    }
+
+    /**
+     * Sets the way of spreading metrics over the configured endpoints
+     * @param endpointMode endpoint mode
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setEndpointMode(@Nonnull final EndpointMode endpointMode) {
+        this.endpointMode = requireNonNull(endpointMode);
+        return this;
+    }
+
+    /**
+     * @return endpoints also receiving every batch, next to host and port
+     */
+    @Nonnull
+    public List<Endpoint> getTeeEndpoints() {
+        return teeEndpoints;
+    }
+
+    /**
+     * Sets endpoints also receiving every batch, next to host and port, for instance to send the same metrics over
+     * two transports. Performs a shallow copy of the input list
+     *
+     * @param teeEndpoints endpoints, each with its own transport or the configured one
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setTeeEndpoints(@Nonnull final List<Endpoint> teeEndpoints) {
+        this.teeEndpoints = new ArrayList<>(requireNonNull(teeEndpoints));
+        return this;
+    }
+
+    /**
+     * @return number of batches queued for each tee destination
+     */
+    public int getTeeQueueSize() {
+        return teeQueueSize;
+    }
+
+    /**
+     * Sets the number of batches queued for each tee destination, a slow destination drops its oldest batches beyond it instead of stalling the others
+     * @param teeQueueSize number of batches
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setTeeQueueSize(final int teeQueueSize) {
+        this.teeQueueSize = teeQueueSize;
+        return this;
+    }
+
+    /**
+     * @return number of series whose metric line template is cached by each collector
+     */
+    public int getMetricLineCacheSize() {
+        return metricLineCacheSize;
+    }
+
+    /**
+     * Sets the number of series whose metric line template is cached by each collector, the least recently used are evicted beyond it
+     * @param metricLineCacheSize number of series
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setMetricLineCacheSize(final int metricLineCacheSize) {
+        this.metricLineCacheSize = metricLineCacheSize;
+        return this;
+    }
+
+    /**
+     * @return unit in which timers are sent
+     */
+    @Nonnull
+    public TimerUnit getTimerUnit() {
+        return timerUnit;
+    }
+
+    /**
+     * Sets the unit in which timers are sent. Timers are measured in nanoseconds and sent as decimals of the unit, so sub-unit durations aren't lost
+     * @param timerUnit unit of the timers
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setTimerUnit(@Nonnull final TimerUnit timerUnit) {
+        this.timerUnit = requireNonNull(timerUnit);
+        return this;
+    }
+
+    /**
+     * @return number of request paths whose normalized tag is cached by each http server collector
+     */
+    public int getPathCacheSize() {
+        return pathCacheSize;
+    }
+
+    /**
+     * Sets the number of request paths whose normalized tag is cached by each http server collector, the least recently used are evicted beyond it
+     * @param pathCacheSize number of request paths
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setPathCacheSize(final int pathCacheSize) {
+        this.pathCacheSize = pathCacheSize;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds an endpoint whose transport failed waits before it is tried again
+     */
+    public long getEndpointRetryInterval() {
+        return endpointRetryInterval;
+    }
+
+    /**
+     * Sets the time an endpoint whose transport failed waits before it is tried again, its next batches probe whether it recovered
+     * @param endpointRetryInterval time in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public StatfulMetricsOptions setEndpointRetryInterval(final long endpointRetryInterval) {
+        this.endpointRetryInterval = endpointRetryInterval;
+        return this;
+    }
 }
@@ -0,0 +1,122 @@
+package com.statful.client;
+
+import io.vertx.core.json.JsonObject;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration of the TCP transport's connection
+ */
+public final class TcpOptions {
+
+    /**
+     * Default backoff in milliseconds before the first reconnection attempt
+     */
+    private static final long DEFAULT_RECONNECT_INITIAL_BACKOFF = 100;
+
+    /**
+     * Default maximum backoff in milliseconds between reconnection attempts
+     */
+    private static final long DEFAULT_RECONNECT_MAX_BACKOFF = 10000;
+
+    /**
+     * Default number of bytes queued for writing before the connection pushes back
+     */
+    private static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 1024 * 1024;
+
+    /**
+     * Backoff in milliseconds before the first reconnection attempt, doubled on each following one,
+     * default value {@value #DEFAULT_RECONNECT_INITIAL_BACKOFF}
+     */
+    private long reconnectInitialBackoff = DEFAULT_RECONNECT_INITIAL_BACKOFF;
+
+    /**
+     * Maximum backoff in milliseconds between reconnection attempts, default value {@value #DEFAULT_RECONNECT_MAX_BACKOFF}
+     */
+    private long reconnectMaxBackoff = DEFAULT_RECONNECT_MAX_BACKOFF;
+
+    /**
+     * Number of bytes queued for writing before the connection pushes back, default value {@value #DEFAULT_WRITE_QUEUE_MAX_SIZE}
+     */
+    private int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+
+    /**
+     * Empty constructor that provides default values, all of which should be overridable
+     */
+    public TcpOptions() {
+    }
+
+    /**
+     * Copy based constructor
+     *
+     * @param other The other {@link TcpOptions} to copy from
+     */
+    public TcpOptions(@Nonnull final TcpOptions other) {
+        this.reconnectInitialBackoff = other.reconnectInitialBackoff;
+        this.reconnectMaxBackoff = other.reconnectMaxBackoff;
+        this.writeQueueMaxSize = other.writeQueueMaxSize;
+    }
+
+    /**
+     * Constructor to create a configuration based on a json object
+     *
+     * @param config Json object with the configuration
+     */
+    public TcpOptions(@Nonnull final JsonObject config) {
+        this.reconnectInitialBackoff = config.getLong("reconnectInitialBackoff", DEFAULT_RECONNECT_INITIAL_BACKOFF);
+        this.reconnectMaxBackoff = config.getLong("reconnectMaxBackoff", DEFAULT_RECONNECT_MAX_BACKOFF);
+        this.writeQueueMaxSize = config.getInteger("writeQueueMaxSize", DEFAULT_WRITE_QUEUE_MAX_SIZE);
+    }
+
+    /**
+     * @return backoff in milliseconds before the first reconnection attempt
+     */
+    public long getReconnectInitialBackoff() {
+        return reconnectInitialBackoff;
+    }
+
+    /**
+     * Sets the backoff in milliseconds before the first reconnection attempt, doubled on each following one
+     * @param reconnectInitialBackoff backoff in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public TcpOptions setReconnectInitialBackoff(final long reconnectInitialBackoff) {
+        this.reconnectInitialBackoff = reconnectInitialBackoff;
+        return this;
+    }
+
+    /**
+     * @return maximum backoff in milliseconds between reconnection attempts
+     */
+    public long getReconnectMaxBackoff() {
+        return reconnectMaxBackoff;
+    }
+
+    /**
+     * Sets the maximum backoff in milliseconds between reconnection attempts
+     * @param reconnectMaxBackoff backoff in milliseconds
+     * @return a reference to this, so the API can be used fluently
+     */
+    public TcpOptions setReconnectMaxBackoff(final long reconnectMaxBackoff) {
+        this.reconnectMaxBackoff = reconnectMaxBackoff;
+        return this;
+    }
+
+    /**
+     * @return number of bytes queued for writing before the connection pushes back
+     */
+    public int getWriteQueueMaxSize() {
+        return writeQueueMaxSize;
+    }
+
+    /**
+     * Sets the number of bytes queued for writing before the connection pushes back, the holder then stops draining
+     * its buffer until the queue drains
+     * @param writeQueueMaxSize number of bytes
+     * @return a reference to this, so the API can be used fluently
+     */
+    public TcpOptions setWriteQueueMaxSize(final int writeQueueMaxSize) {
+        this.writeQueueMaxSize = writeQueueMaxSize;
+        return this;
+    }
+}
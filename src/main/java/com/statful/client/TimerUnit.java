@@ -0,0 +1,49 @@
+package com.statful.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Possible units in which timers are sent, measured in nanoseconds and converted to a decimal value of the unit
+ */
+public enum TimerUnit {
+    /**
+     * Value for timers sent in nanoseconds
+     */
+    NANOSECONDS(TimeUnit.NANOSECONDS),
+    /**
+     * Value for timers sent in microseconds
+     */
+    MICROSECONDS(TimeUnit.MICROSECONDS),
+    /**
+     * Value for timers sent in milliseconds
+     */
+    MILLISECONDS(TimeUnit.MILLISECONDS);
+
+    /**
+     * Nanoseconds in one unit
+     */
+    private final long nanosPerUnit;
+
+    /**
+     * @param unit time unit matching this one
+     */
+    TimerUnit(final TimeUnit unit) {
+        this.nanosPerUnit = unit.toNanos(1);
+    }
+
+    /**
+     * @param nanos duration in nanoseconds
+     * @return the duration in this unit, with the fraction of the unit as decimals
+     */
+    public double fromNanos(final long nanos) {
+        return nanos / (double) this.nanosPerUnit;
+    }
+
+    /**
+     * @param duration duration in this unit
+     * @return the duration in nanoseconds, with the fraction of a nanosecond as decimals
+     */
+    public double toNanos(final double duration) {
+        return duration * this.nanosPerUnit;
+    }
+}
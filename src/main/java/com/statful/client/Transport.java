@@ -11,5 +11,13 @@ public enum Transport {
     /**
      * Value for HTTP based transports
      */
-    HTTP
+    HTTP,
+    /**
+     * Value for TCP based transports, streaming metric lines on a long-lived connection
+     */
+    TCP,
+    /**
+     * Value for Unix domain socket based transports, streaming metric lines to a relay on the same host
+     */
+    UNIX
 }
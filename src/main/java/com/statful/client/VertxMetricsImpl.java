@@ -1,6 +1,7 @@
 package com.statful.client;
 
 import com.statful.collector.*;
+import com.statful.metric.CoarseClock;
 import com.statful.sender.Sender;
 import com.statful.sender.SenderFactory;
 import io.vertx.core.Vertx;
@@ -93,6 +94,7 @@ final class VertxMetricsImpl implements VertxMetrics {
     @Override
     public void vertxCreated(final Vertx createdVertx) {
         this.vertx = createdVertx;
+        CoarseClock.start(createdVertx);
         this.customMetricsConsumer = new CustomMetricsConsumer(createdVertx.eventBus(), this.getOrCreateSender(createdVertx), statfulMetricsOptions);
         this.collectors.forEach(collector -> {
             collector.setVertx(createdVertx);
@@ -100,6 +102,13 @@ final class VertxMetricsImpl implements VertxMetrics {
         });
     }
 
+    @Override
+    public void close() {
+        if (this.vertx != null) {
+            CoarseClock.stop(this.vertx);
+        }
+    }
+
     private Sender getOrCreateSender(final Vertx senderVertx) {
         if (this.sender == null) {
             this.sender = new SenderFactory().create(senderVertx, statfulMetricsOptions);
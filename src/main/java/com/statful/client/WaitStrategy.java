@@ -0,0 +1,19 @@
+package com.statful.client;
+
+/**
+ * Strategies that define how a thread waits while it retries a contended buffer operation
+ */
+public enum WaitStrategy {
+    /**
+     * Busy spins, lowest latency at the cost of cpu usage
+     */
+    SPIN,
+    /**
+     * Yields the thread to the scheduler between retries
+     */
+    YIELD,
+    /**
+     * Parks the thread for the smallest possible period between retries
+     */
+    PARK
+}
@@ -130,12 +130,11 @@ public final class HttpClientMetricsImpl extends StatfulMetrics implements HttpC
             return;
         }
 
-        String responseTime = String.valueOf(requestMetric.elapsed());
+        final HttpClientDataPoint dataPoint = new HttpClientDataPoint(super.getOptions(), "execution", requestMetric.getRequestTag(),
+                requestMetric.getMethod(), requestMetric.elapsed(super.getOptions().getTimerUnit()), response.statusCode(), HttpClientDataPoint.Type.CLIENT);
+        dataPoint.setMetricLineCache(super.getMetricLineCache());
 
-        super.addMetric(
-                new HttpClientDataPoint(super.getOptions(), "execution", requestMetric.getRequestTag(),
-                        requestMetric.getMethod(), responseTime, response.statusCode(), HttpClientDataPoint.Type.CLIENT)
-        );
+        super.addMetric(dataPoint);
     }
 
     @Override
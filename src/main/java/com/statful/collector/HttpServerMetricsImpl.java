@@ -1,5 +1,8 @@
 package com.statful.collector;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.metric.HttpClientDataPoint;
 import com.statful.metric.HttpServerDataPoint;
@@ -14,6 +17,8 @@ import io.vertx.core.spi.metrics.HttpServerMetrics;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -33,6 +38,11 @@ public final class HttpServerMetricsImpl extends StatfulMetrics implements HttpS
      */
     private final List<Pattern> ignore;
 
+    /**
+     * Normalized tags by raw request path, empty for paths that should not be tracked
+     */
+    private final Cache<String, Optional<String>> paths;
+
     /**
      * @param options options to latter be used by the metrics builder
      */
@@ -45,6 +55,8 @@ public final class HttpServerMetricsImpl extends StatfulMetrics implements HttpS
                 .collect(Collectors.toList());
 
         this.ignore = options.getHttpServerPathsIgnore().stream().map(Pattern::compile).collect(Collectors.toList());
+
+        this.paths = CacheBuilder.newBuilder().maximumSize(Math.max(0, options.getPathCacheSize())).recordStats().build();
     }
 
     /**
@@ -59,34 +71,59 @@ public final class HttpServerMetricsImpl extends StatfulMetrics implements HttpS
                 .collect(Collectors.toList());
 
         this.ignore = options.getHttpServerPathsIgnore().stream().map(Pattern::compile).collect(Collectors.toList());
+
+        this.paths = CacheBuilder.newBuilder().maximumSize(Math.max(0, options.getPathCacheSize())).recordStats().build();
     }
 
     @Override
     public HttpRequestMetrics requestBegin(final SocketAddress socketAddress, final HttpServerRequest request) {
 
-        // run the ignore list to check if a url should be tracked or not
-        final String requestPath = request.path();
+        final Optional<String> path = this.normalize(request.path());
 
         final HttpRequestMetrics metric;
-
-        boolean shouldIgnore = this.ignore.stream().anyMatch(pattern -> pattern.matcher(requestPath).matches());
-        if (shouldIgnore) {
-            metric = null;
-        } else {
-            String path = request.path();
-            // run the list of patterns to normalize the url and avoid creating to many tags, since the url will be used to identify as a TAG
-            for (Pair<Pattern, String> entry : this.replacements) {
-                path = entry.getLeft().matcher(path).replaceAll(entry.getRight());
-            }
-
+        if (path.isPresent()) {
             // Create client request metric
-            metric = new HttpRequestMetrics(path, socketAddress, request.method());
+            metric = new HttpRequestMetrics(path.get(), socketAddress, request.method());
             metric.start();
+        } else {
+            metric = null;
         }
 
         return metric;
     }
 
+    /**
+     * @return hit rate and evictions of the cache of normalized request paths
+     */
+    public CacheStats getPathCacheStats() {
+        return this.paths.stats();
+    }
+
+    private Optional<String> normalize(final String requestPath) {
+        try {
+            // most paths repeat, the regular expressions only run on the first request of each
+            return this.paths.get(requestPath, () -> this.match(requestPath));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to normalize request path", e.getCause());
+        }
+    }
+
+    private Optional<String> match(final String requestPath) {
+        // run the ignore list to check if a url should be tracked or not
+        for (Pattern pattern : this.ignore) {
+            if (pattern.matcher(requestPath).matches()) {
+                return Optional.empty();
+            }
+        }
+
+        String path = requestPath;
+        // run the list of patterns to normalize the url and avoid creating to many tags, since the url will be used to identify as a TAG
+        for (Pair<Pattern, String> entry : this.replacements) {
+            path = entry.getLeft().matcher(path).replaceAll(entry.getRight());
+        }
+        return Optional.of(path);
+    }
+
     @Override
     public void responseBegin(final HttpRequestMetrics requestMetric, final HttpServerResponse response) {
 
@@ -98,12 +135,11 @@ public final class HttpServerMetricsImpl extends StatfulMetrics implements HttpS
             return;
         }
 
-        final String responseTime = String.valueOf(requestMetric.elapsed());
+        final HttpServerDataPoint dataPoint = new HttpServerDataPoint(getOptions(), "execution", requestMetric.getRequestTag(),
+                requestMetric.getMethod(), requestMetric.elapsed(getOptions().getTimerUnit()), response.getStatusCode(), HttpClientDataPoint.Type.SERVER);
+        dataPoint.setMetricLineCache(getMetricLineCache());
 
-        super.addMetric(
-                new HttpServerDataPoint(getOptions(), "execution", requestMetric.getRequestTag(),
-                        requestMetric.getMethod(), responseTime, response.getStatusCode(), HttpClientDataPoint.Type.SERVER)
-        );
+        super.addMetric(dataPoint);
     }
 
     @Override
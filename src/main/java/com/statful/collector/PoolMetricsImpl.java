@@ -31,7 +31,7 @@ public class PoolMetricsImpl extends StatfulMetrics implements PoolMetrics<Long>
     /**
      * Stores maximum size of the pool
      */
-    private final String maxPoolSize;
+    private final long maxPoolSize;
 
     /**
      * Name for the pool
@@ -54,21 +54,21 @@ public class PoolMetricsImpl extends StatfulMetrics implements PoolMetrics<Long>
                            @Nonnull final String poolName,
                            final int maxPoolSize) {
         super(options);
-        this.maxPoolSize = String.valueOf(maxPoolSize);
+        this.maxPoolSize = maxPoolSize;
         this.name = poolType + "." + poolName;
     }
 
     @Override
     public Long submitted() {
         this.queued.increment();
-        return System.currentTimeMillis();
+        return System.nanoTime();
     }
 
     @Override
     public Long begin(final Long aLong) {
         this.queued.decrement();
         this.inUse.increment();
-        return System.currentTimeMillis();
+        return System.nanoTime();
     }
 
     @Override
@@ -101,9 +101,15 @@ public class PoolMetricsImpl extends StatfulMetrics implements PoolMetrics<Long>
 
     private void initReporter() {
         this.periodicTimerId = this.vertx.setPeriodic(this.getOptions().getGaugeReportingInterval(), event -> {
-            this.addMetric(new PoolDataPoint(this.getOptions(), name, "inUse", String.valueOf(this.inUse.longValue())));
-            this.addMetric(new PoolDataPoint(this.getOptions(), name, "queued", String.valueOf(this.queued.longValue())));
-            this.addMetric(new PoolDataPoint(this.getOptions(), name, "max", this.maxPoolSize));
+            this.addGauge("inUse", this.inUse.longValue());
+            this.addGauge("queued", this.queued.longValue());
+            this.addGauge("max", this.maxPoolSize);
         });
     }
+
+    private void addGauge(final String metricType, final long value) {
+        final PoolDataPoint dataPoint = new PoolDataPoint(this.getOptions(), name, metricType, value);
+        dataPoint.setMetricLineCache(this.getMetricLineCache());
+        this.addMetric(dataPoint);
+    }
 }
@@ -2,6 +2,7 @@ package com.statful.collector;
 
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.metric.DataPoint;
+import com.statful.metric.MetricLinePrefixCache;
 import com.statful.sender.Sender;
 import io.vertx.core.Vertx;
 import io.vertx.core.spi.metrics.Metrics;
@@ -24,11 +25,17 @@ public abstract class StatfulMetrics implements Metrics {
      */
     private final StatfulMetricsOptions options;
 
+    /**
+     * Templates of the metric lines of this collector's series
+     */
+    private final MetricLinePrefixCache metricLineCache;
+
     /**
      * @param options options to latter be used by the metrics builder
      */
     public StatfulMetrics(@Nonnull final StatfulMetricsOptions options) {
         this.options = options;
+        this.metricLineCache = new MetricLinePrefixCache(options.getMetricLineCacheSize());
     }
 
     /**
@@ -38,6 +45,7 @@ public abstract class StatfulMetrics implements Metrics {
     StatfulMetrics(@Nonnull final Sender sender, @Nonnull final StatfulMetricsOptions options) {
         this.sender = Objects.requireNonNull(sender);
         this.options = Objects.requireNonNull(options);
+        this.metricLineCache = new MetricLinePrefixCache(options.getMetricLineCacheSize());
     }
 
     /**
@@ -58,6 +66,13 @@ public abstract class StatfulMetrics implements Metrics {
         return options;
     }
 
+    /**
+     * @return templates of the metric lines of this collector's series
+     */
+    protected MetricLinePrefixCache getMetricLineCache() {
+        return metricLineCache;
+    }
+
     @Override
     public void close() {
 
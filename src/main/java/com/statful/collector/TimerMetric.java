@@ -1,5 +1,10 @@
 package com.statful.collector;
 
+import com.statful.client.TimerUnit;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
 /**
  * shared logic between timer metrics classes
  */
@@ -9,7 +14,7 @@ public abstract class TimerMetric {
      */
     private final String requestTag;
     /**
-     * System timestamp of request start
+     * Monotonic timestamp of request start, in nanoseconds, unaffected by wall clock adjustments
      */
     private long start;
 
@@ -24,14 +29,29 @@ public abstract class TimerMetric {
      * initializes the timer
      */
     public void start() {
-        this.start = System.currentTimeMillis();
+        this.start = System.nanoTime();
     }
 
     /**
-     * @return long with the time from start up until now
+     * @return long with the time from start up until now, in milliseconds
      */
     public long elapsed() {
-        return System.currentTimeMillis() - start;
+        return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos());
+    }
+
+    /**
+     * @param unit unit of the returned time
+     * @return double with the time from start up until now, with the fraction of the unit as decimals
+     */
+    public double elapsed(@Nonnull final TimerUnit unit) {
+        return unit.fromNanos(this.elapsedNanos());
+    }
+
+    /**
+     * @return long with the time from start up until now, in nanoseconds
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
     }
 
     /**
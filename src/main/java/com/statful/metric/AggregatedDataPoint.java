@@ -0,0 +1,72 @@
+package com.statful.metric;
+
+import com.statful.client.Aggregation;
+import com.statful.client.AggregationFreq;
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Representation of a DataPoint aggregated on the client, one per series, window and aggregation
+ */
+public final class AggregatedDataPoint implements DataPoint {
+
+    /**
+     * Metric line holding the aggregated value
+     */
+    private final MetricLineBuilder metricLine;
+
+    /**
+     * Aggregation the value was computed with, null for series without aggregations
+     */
+    private final Aggregation aggregation;
+
+    /**
+     * Length of the window the value was computed over
+     */
+    private final AggregationFreq frequency;
+
+    /**
+     * @param metricLine  metric line holding the aggregated value
+     * @param aggregation aggregation the value was computed with, null for series without aggregations
+     * @param frequency   length of the window the value was computed over
+     */
+    public AggregatedDataPoint(@Nonnull final MetricLineBuilder metricLine, @Nullable final Aggregation aggregation,
+                               @Nonnull final AggregationFreq frequency) {
+        this.metricLine = Objects.requireNonNull(metricLine);
+        this.aggregation = aggregation;
+        this.frequency = Objects.requireNonNull(frequency);
+    }
+
+    @Override
+    public String toMetricLine() {
+        return this.metricLine.build();
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer) {
+        this.metricLine.appendTo(buffer);
+    }
+
+    @Override
+    public String seriesKey() {
+        return this.metricLine.seriesKey();
+    }
+
+    /**
+     * @return aggregation the value was computed with, empty for series without aggregations
+     */
+    public Optional<Aggregation> getAggregation() {
+        return Optional.ofNullable(this.aggregation);
+    }
+
+    /**
+     * @return length of the window the value was computed over
+     */
+    public AggregationFreq getFrequency() {
+        return this.frequency;
+    }
+}
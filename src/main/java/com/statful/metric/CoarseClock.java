@@ -0,0 +1,77 @@
+package com.statful.metric;
+
+import io.vertx.core.Vertx;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unix timestamp shared by all data points, in seconds. A periodic timer of each started Vert.x instance refreshes it,
+ * so that creating a point reads a volatile field instead of the system clock. Until a Vert.x instance starts it, or
+ * once all have stopped it, the system clock is read instead
+ */
+public final class CoarseClock {
+
+    /**
+     * Interval between refreshes, in milliseconds, which bounds how late a timestamp can be
+     */
+    static final long TICK_INTERVAL = 100;
+
+    /**
+     * Unix timestamp of the last refresh, 0 while no timer refreshes it
+     */
+    private static volatile long epochSeconds;
+
+    /**
+     * Refreshing timers by Vert.x instance, guarded by the class lock
+     */
+    private static final Map<Vertx, Long> TIMERS = new HashMap<>();
+
+    private CoarseClock() {
+    }
+
+    /**
+     * @return current unix timestamp, in seconds
+     */
+    public static long epochSeconds() {
+        final long now = epochSeconds;
+        if (now == 0) {
+            return System.currentTimeMillis() / DataPoint.TIMESTAMP_DIVIDER;
+        }
+        return now;
+    }
+
+    /**
+     * Refreshes the timestamp with a periodic timer of a Vert.x instance, does nothing if it was already started
+     * by that instance
+     *
+     * @param vertx instance whose timer refreshes the timestamp
+     */
+    public static synchronized void start(@Nonnull final Vertx vertx) {
+        if (TIMERS.containsKey(vertx)) {
+            return;
+        }
+        tick();
+        TIMERS.put(vertx, vertx.setPeriodic(TICK_INTERVAL, id -> tick()));
+    }
+
+    /**
+     * Cancels the timer of a Vert.x instance, the system clock is read again once no instance refreshes the timestamp
+     *
+     * @param vertx instance whose timer is cancelled
+     */
+    public static synchronized void stop(@Nonnull final Vertx vertx) {
+        final Long timerId = TIMERS.remove(vertx);
+        if (timerId != null) {
+            vertx.cancelTimer(timerId);
+        }
+        if (TIMERS.isEmpty()) {
+            epochSeconds = 0;
+        }
+    }
+
+    private static void tick() {
+        epochSeconds = System.currentTimeMillis() / DataPoint.TIMESTAMP_DIVIDER;
+    }
+}
@@ -1,5 +1,9 @@
 package com.statful.metric;
 
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nullable;
+
 /**
  * Should be implemented by all classes that provide metric data
  */
@@ -19,10 +23,94 @@ public interface DataPoint {
     String toMetricLine();
 
     /**
-     * Calculates current unix timestamp
+     * Appends the metric line to a buffer. Implementations should override it to write directly into the buffer,
+     * the default goes through {@link #toMetricLine()}
+     * <b>Implementations should not add line break</b>
+     *
+     * @param buffer buffer to which the metric line is appended
+     */
+    default void writeTo(final Buffer buffer) {
+        buffer.appendString(this.toMetricLine());
+    }
+
+    /**
+     * Appends the metric line to a buffer, with a builder the caller reuses from line to line. Implementations that
+     * build their line may reset and fill it instead of creating their own, the default ignores it
+     * <b>Implementations should not add line break</b>
+     *
+     * @param buffer  buffer to which the metric line is appended
+     * @param scratch builder reused between the lines of a batch, its content on entry is undefined
+     */
+    default void writeTo(final Buffer buffer, final MetricLineBuilder scratch) {
+        this.writeTo(buffer);
+    }
+
+    /**
+     * Exposes the fields of the metric line before it is built, so that points of the same series can be aggregated
+     * before sending. The default returns null, points without it are sent as they are
+     *
+     * @return a new builder holding the metric line's fields
+     */
+    @Nullable
+    default MetricLineBuilder metricLineBuilder() {
+        return null;
+    }
+
+    /**
+     * Value of the metric as a number, so that points of a series already being aggregated are added without building
+     * their line. The default reads it from {@link #metricLineBuilder()}, implementations exposing their fields should
+     * override it
+     *
+     * @return the value, NaN if the point has none or it isn't a number
+     */
+    default double getValueAsDouble() {
+        final MetricLineBuilder metricLine = this.metricLineBuilder();
+        if (metricLine == null || !metricLine.hasValue()) {
+            return Double.NaN;
+        }
+        try {
+            return metricLine.getValueAsDouble();
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Timestamp of the metric, so that points of a series already being aggregated are added without building their
+     * line. The default reads it from {@link #metricLineBuilder()}, implementations exposing their fields should
+     * override it
+     *
+     * @return unix timestamp of the metric, in seconds, 0 if the point has none
+     */
+    default long getTimestamp() {
+        final MetricLineBuilder metricLine = this.metricLineBuilder();
+        if (metricLine == null) {
+            return 0;
+        }
+        return metricLine.getTimestamp();
+    }
+
+    /**
+     * Identifies the series the metric belongs to, its name and tags, so that all its points are routed alike.
+     * The default takes the metric line up to its value, implementations should override it with a key of the fields
+     * that identify their series, which is cheaper than building the line
+     *
+     * @return String with the series key
+     */
+    default String seriesKey() {
+        final String line = this.toMetricLine();
+        final int valueStart = line.indexOf(' ');
+        if (valueStart < 0) {
+            return line;
+        }
+        return line.substring(0, valueStart);
+    }
+
+    /**
+     * Calculates current unix timestamp, read from the {@link CoarseClock} shared by all points
      * @return long with value
      */
     default long calculateEpochTimestamp() {
-        return System.currentTimeMillis() / TIMESTAMP_DIVIDER;
+        return CoarseClock.epochSeconds();
     }
 }
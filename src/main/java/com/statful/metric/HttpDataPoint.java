@@ -2,12 +2,41 @@ package com.statful.metric;
 
 import com.statful.client.MetricType;
 import com.statful.client.StatfulMetricsOptions;
+import com.statful.utils.Pair;
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Representation of an HttpClient DataPoint. Holds the that of a metric and builds
  */
 public abstract class HttpDataPoint implements DataPoint {
 
+    /**
+     * Highest status code defined by the HTTP spec
+     */
+    private static final int MAX_STATUS_CODE = 599;
+
+    /**
+     * Tag values of the status codes, so that writing a line doesn't format its status code
+     */
+    private static final String[] STATUS_CODES = new String[MAX_STATUS_CODE + 1];
+
+    /**
+     * Key reused by each thread to look the template of a series up, a key is only allocated to cache a new series
+     */
+    private static final ThreadLocal<SeriesKey> SERIES_PROBE = ThreadLocal.withInitial(SeriesKey::new);
+
+    static {
+        for (int i = 0; i < STATUS_CODES.length; i++) {
+            STATUS_CODES[i] = String.valueOf(i);
+        }
+    }
+
     /**
      * Identifies if the metric is from a http server or http client
      */
@@ -55,9 +84,9 @@ public abstract class HttpDataPoint implements DataPoint {
     private final String verb;
 
     /**
-     * Duration of the request
+     * Duration of the request, formatted only when the line is written
      */
-    private final String duration;
+    private final double duration;
 
     /**
      * Http code to be added as tag
@@ -74,6 +103,11 @@ public abstract class HttpDataPoint implements DataPoint {
      */
     private final Type type;
 
+    /**
+     * Templates of metric lines, null to build every line in full
+     */
+    private MetricLinePrefixCache metricLineCache;
+
     /**
      * constructor for a HttpClient Timer based metric, will calculate the unix timestamp of the metric on creation
      *
@@ -87,6 +121,22 @@ public abstract class HttpDataPoint implements DataPoint {
      */
     public HttpDataPoint(final StatfulMetricsOptions options, final String metricName, final String name,
                          final String httpVerb, final String duration, final int responseCode, final Type type) {
+        this(options, metricName, name, httpVerb, Double.parseDouble(duration), responseCode, type);
+    }
+
+    /**
+     * constructor for a HttpClient Timer based metric, will calculate the unix timestamp of the metric on creation
+     *
+     * @param options      Statful options to be used when building the metric line
+     * @param metricName   name of the metric
+     * @param name         Name of the operation that you are tracking
+     * @param httpVerb     Representation of the http verb request
+     * @param duration     Duration of the request
+     * @param responseCode Http code to be added as tag
+     * @param type         if this metric belongs to http server or client
+     */
+    public HttpDataPoint(final StatfulMetricsOptions options, final String metricName, final String name,
+                         final String httpVerb, final double duration, final int responseCode, final Type type) {
 
         this.options = options;
         this.metricName = metricName;
@@ -98,16 +148,90 @@ public abstract class HttpDataPoint implements DataPoint {
         this.type = type;
     }
 
-    protected MetricLineBuilder buildMetricLine() {
+    /**
+     * Sets the templates of metric lines, so that the line of a point is only its value and timestamp around the
+     * cached parts of its series
+     *
+     * @param metricLineCache templates of metric lines, null to build every line in full
+     */
+    public void setMetricLineCache(@Nullable final MetricLinePrefixCache metricLineCache) {
+        this.metricLineCache = metricLineCache;
+    }
+
+    @Override
+    public String toMetricLine() {
+        if (this.metricLineCache == null) {
+            return this.metricLineBuilder().build();
+        }
+        return this.template().toMetricLine(this.duration, this.unixTimeStamp);
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer) {
+        if (this.metricLineCache == null) {
+            this.metricLineBuilder().appendTo(buffer);
+            return;
+        }
+        this.template().writeTo(buffer, this.duration, this.unixTimeStamp);
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer, final MetricLineBuilder scratch) {
+        if (this.metricLineCache == null) {
+            this.fillMetricLine(scratch.reset()).appendTo(buffer);
+            return;
+        }
+        this.template().writeTo(buffer, this.duration, this.unixTimeStamp);
+    }
+
+    @Override
+    public MetricLineBuilder metricLineBuilder() {
+        return this.fillMetricLine(new MetricLineBuilder());
+    }
+
+    @Override
+    public String seriesKey() {
+        // the duration and timestamp aside, the fields of the metric line are the same for all points of the series
+        return "timer." + this.metricName + ",type=" + this.type.value + ",verb=" + this.verb + ",statusCode="
+                + this.responseCode + ",name=" + this.name;
+    }
+
+    @Override
+    public double getValueAsDouble() {
+        return this.duration;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.unixTimeStamp;
+    }
+
+    private MetricLineTemplate template() {
+        // everything but the duration and timestamp identifies the series
+        final SeriesKey probe = SERIES_PROBE.get().set(this.type, this.metricName, this.name, this.verb, this.responseCode);
+        final MetricLineTemplate template = this.metricLineCache.getIfPresent(probe);
+        if (template != null) {
+            return template;
+        }
+        return this.metricLineCache.get(probe.copy(), this::metricLineBuilder);
+    }
 
-        final MetricLineBuilder metricLineBuilder = new MetricLineBuilder()
+    /**
+     * Sets the fields of the metric line on a builder, implementations add the tag naming the operation
+     *
+     * @param metricLineBuilder empty builder to be filled
+     * @return the given builder
+     */
+    @Nonnull
+    protected MetricLineBuilder fillMetricLine(@Nonnull final MetricLineBuilder metricLineBuilder) {
+        metricLineBuilder
                 .withNamespace(this.options.getNamespace())
                 .withMetricType(MetricType.TIMER)
                 .withMetricName(this.metricName)
                 .withTag("transport", "http")
                 .withTag("type", this.type.value)
                 .withTag("verb", this.verb)
-                .withTag("statusCode", String.valueOf(this.responseCode))
+                .withTag("statusCode", statusCode(this.responseCode))
                 .withValue(this.duration)
                 .withTimestamp(this.unixTimeStamp)
                 .withAggregations(this.options.getTimerAggregations())
@@ -115,18 +239,111 @@ public abstract class HttpDataPoint implements DataPoint {
                 .withSampleRate(this.options.getSampleRate());
 
         // Add optional application
-        this.options.getApp().ifPresent(metricLineBuilder::withApp);
+        final Optional<String> app = this.options.getApp();
+        if (app.isPresent()) {
+            metricLineBuilder.withApp(app.get());
+        }
 
         // Add global list of tags
-        this.options.getTags().forEach(pair -> metricLineBuilder.withTag(pair.getLeft(), pair.getRight()));
+        final List<Pair<String, String>> tags = this.options.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            metricLineBuilder.withTag(tags.get(i).getLeft(), tags.get(i).getRight());
+        }
 
         return metricLineBuilder;
     }
 
+    private static String statusCode(final int responseCode) {
+        if (responseCode >= 0 && responseCode < STATUS_CODES.length) {
+            return STATUS_CODES[responseCode];
+        }
+        return String.valueOf(responseCode);
+    }
+
     /**
      * @return string with the name of the operation that you are tracking
      */
     public String getName() {
         return name;
     }
+
+    /**
+     * Fields identifying the series of a point, the key of its metric line template
+     */
+    private static final class SeriesKey {
+
+        /**
+         * Multiplier combining the hashes of the fields
+         */
+        private static final int HASH_MULTIPLIER = 31;
+
+        /**
+         * Source of the metric
+         */
+        private Type type;
+
+        /**
+         * Metric name
+         */
+        private String metricName;
+
+        /**
+         * Name of the operation
+         */
+        private String name;
+
+        /**
+         * Http verb
+         */
+        private String verb;
+
+        /**
+         * Http status code
+         */
+        private int responseCode;
+
+        /**
+         * Hash of the fields, computed when they are set
+         */
+        private int hash;
+
+        SeriesKey set(final Type seriesType, final String seriesMetricName, final String seriesName, final String seriesVerb,
+                      final int seriesResponseCode) {
+            this.type = seriesType;
+            this.metricName = seriesMetricName;
+            this.name = seriesName;
+            this.verb = seriesVerb;
+            this.responseCode = seriesResponseCode;
+
+            int result = seriesType.hashCode();
+            result = HASH_MULTIPLIER * result + Objects.hashCode(seriesMetricName);
+            result = HASH_MULTIPLIER * result + Objects.hashCode(seriesName);
+            result = HASH_MULTIPLIER * result + Objects.hashCode(seriesVerb);
+            this.hash = HASH_MULTIPLIER * result + seriesResponseCode;
+            return this;
+        }
+
+        SeriesKey copy() {
+            return new SeriesKey().set(this.type, this.metricName, this.name, this.verb, this.responseCode);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SeriesKey)) {
+                return false;
+            }
+            final SeriesKey that = (SeriesKey) other;
+            return this.hash == that.hash && this.responseCode == that.responseCode && this.type == that.type
+                    && Objects.equals(this.metricName, that.metricName) && Objects.equals(this.name, that.name)
+                    && Objects.equals(this.verb, that.verb);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
 }
@@ -0,0 +1,301 @@
+package com.statful.metric;
+
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+
+/**
+ * Writes text and numbers of metric lines into buffers or byte arrays, without the intermediate Strings and byte
+ * arrays of {@link Buffer#appendString(String)}
+ */
+final class LineEncoding {
+
+    /**
+     * Largest character encoded in a single UTF-8 byte
+     */
+    private static final int MAX_ONE_BYTE = 0x7F;
+
+    /**
+     * Largest character encoded in two UTF-8 bytes
+     */
+    private static final int MAX_TWO_BYTES = 0x7FF;
+
+    /**
+     * Prefix of the first of two UTF-8 bytes
+     */
+    private static final int TWO_BYTES_PREFIX = 0xC0;
+
+    /**
+     * Prefix of the first of three UTF-8 bytes
+     */
+    private static final int THREE_BYTES_PREFIX = 0xE0;
+
+    /**
+     * Prefix of the first of four UTF-8 bytes
+     */
+    private static final int FOUR_BYTES_PREFIX = 0xF0;
+
+    /**
+     * Prefix of the continuation UTF-8 bytes
+     */
+    private static final int CONTINUATION_PREFIX = 0x80;
+
+    /**
+     * Bits of a character held by a continuation byte
+     */
+    private static final int CONTINUATION_MASK = 0x3F;
+
+    /**
+     * Number of bits held by a continuation byte
+     */
+    private static final int CONTINUATION_BITS = 6;
+
+    /**
+     * Number of bits held by two continuation bytes
+     */
+    private static final int TWO_CONTINUATIONS_BITS = CONTINUATION_BITS * 2;
+
+    /**
+     * Number of bits held by three continuation bytes
+     */
+    private static final int THREE_CONTINUATIONS_BITS = CONTINUATION_BITS * 3;
+
+    /**
+     * Replaces unpaired surrogates, like {@link String#getBytes} does
+     */
+    private static final byte REPLACEMENT = '?';
+
+    /**
+     * Base of the written numbers
+     */
+    private static final long DECIMAL_BASE = 10;
+
+    /**
+     * Largest power of ten held by a long
+     */
+    private static final long MAX_POWER_OF_TEN = 1_000_000_000_000_000_000L;
+
+    /**
+     * Most fraction digits written for a double, so that the power of ten is held by a long
+     */
+    private static final int MAX_FRACTION_DIGITS = 18;
+
+    /**
+     * Powers of ten up to {@link #MAX_FRACTION_DIGITS}, all exact as doubles too
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_FRACTION_DIGITS + 1];
+
+    /**
+     * Bits of a double's significand
+     */
+    private static final int SIGNIFICAND_BITS = 53;
+
+    /**
+     * Integer from which doubles are no longer exact, so neither are the numbers scaled to it
+     */
+    private static final double MAX_EXACT_INTEGER = 1L << SIGNIFICAND_BITS;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * DECIMAL_BASE;
+        }
+    }
+
+    private LineEncoding() {
+    }
+
+    /**
+     * Largest number of UTF-8 bytes encoding a single char
+     */
+    static final int MAX_BYTES_PER_CHAR = 3;
+
+    /**
+     * Appends characters to a buffer encoded in UTF-8, meant for short sequences since it appends byte by byte
+     *
+     * @param buffer buffer to which the characters are appended
+     * @param chars  characters to append
+     */
+    static void appendUtf8(@Nonnull final Buffer buffer, @Nonnull final CharSequence chars) {
+        final int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            final char c = chars.charAt(i);
+            if (c <= MAX_ONE_BYTE) {
+                buffer.appendByte((byte) c);
+            } else {
+                // rare enough to go through a String
+                buffer.appendString(chars.subSequence(i, length).toString());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encodes characters in UTF-8 into an array, which must hold {@link #MAX_BYTES_PER_CHAR} bytes per character
+     *
+     * @param chars  characters to encode
+     * @param target array receiving the bytes
+     * @return number of bytes written
+     */
+    static int encodeUtf8(@Nonnull final CharSequence chars, @Nonnull final byte[] target) {
+        final int length = chars.length();
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = chars.charAt(i);
+            if (c <= MAX_ONE_BYTE) {
+                target[position++] = (byte) c;
+            } else if (c <= MAX_TWO_BYTES) {
+                target[position++] = (byte) (TWO_BYTES_PREFIX | (c >> CONTINUATION_BITS));
+                target[position++] = continuation(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, chars.charAt(i + 1));
+                i++;
+                target[position++] = (byte) (FOUR_BYTES_PREFIX | (codePoint >> THREE_CONTINUATIONS_BITS));
+                target[position++] = continuation(codePoint >> TWO_CONTINUATIONS_BITS);
+                target[position++] = continuation(codePoint >> CONTINUATION_BITS);
+                target[position++] = continuation(codePoint);
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = REPLACEMENT;
+            } else {
+                target[position++] = (byte) (THREE_BYTES_PREFIX | (c >> TWO_CONTINUATIONS_BITS));
+                target[position++] = continuation(c >> CONTINUATION_BITS);
+                target[position++] = continuation(c);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Appends the decimal digits of a number to a buffer
+     *
+     * @param buffer buffer to which the number is appended
+     * @param number number to append
+     */
+    static void appendLong(@Nonnull final Buffer buffer, final long number) {
+        if (number == Long.MIN_VALUE) {
+            // its absolute value doesn't fit a long
+            appendUtf8(buffer, Long.toString(number));
+            return;
+        }
+
+        long remaining = number;
+        if (remaining < 0) {
+            buffer.appendByte((byte) '-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (divisor < MAX_POWER_OF_TEN && divisor * DECIMAL_BASE <= remaining) {
+            divisor *= DECIMAL_BASE;
+        }
+
+        while (divisor > 0) {
+            buffer.appendByte((byte) ('0' + remaining / divisor));
+            remaining %= divisor;
+            divisor /= DECIMAL_BASE;
+        }
+    }
+
+    /**
+     * Appends a number to a string builder in plain decimal notation, with the fewest fraction digits that parse back
+     * to the same double
+     *
+     * @param sb     string builder to which the number is appended
+     * @param number number to append
+     */
+    static void appendDouble(@Nonnull final StringBuilder sb, final double number) {
+        final int digits = fractionDigits(number);
+        if (digits < 0) {
+            sb.append(plain(number));
+            return;
+        }
+
+        final long scaled = Math.round(Math.abs(number) * POWERS_OF_TEN[digits]);
+        if (number < 0 && scaled != 0) {
+            sb.append('-');
+        }
+        sb.append(scaled / POWERS_OF_TEN[digits]);
+
+        if (digits > 0) {
+            sb.append('.');
+            long fraction = scaled % POWERS_OF_TEN[digits];
+            for (long divisor = POWERS_OF_TEN[digits - 1]; divisor > 0; divisor /= DECIMAL_BASE) {
+                sb.append((char) ('0' + fraction / divisor));
+                fraction %= divisor;
+            }
+        }
+    }
+
+    /**
+     * Appends a number to a buffer in plain decimal notation, with the fewest fraction digits that parse back to the
+     * same double
+     *
+     * @param buffer buffer to which the number is appended
+     * @param number number to append
+     */
+    static void appendDouble(@Nonnull final Buffer buffer, final double number) {
+        final int digits = fractionDigits(number);
+        if (digits < 0) {
+            appendUtf8(buffer, plain(number));
+            return;
+        }
+
+        final long scaled = Math.round(Math.abs(number) * POWERS_OF_TEN[digits]);
+        if (number < 0 && scaled != 0) {
+            buffer.appendByte((byte) '-');
+        }
+        appendLong(buffer, scaled / POWERS_OF_TEN[digits]);
+
+        if (digits > 0) {
+            buffer.appendByte((byte) '.');
+            long fraction = scaled % POWERS_OF_TEN[digits];
+            for (long divisor = POWERS_OF_TEN[digits - 1]; divisor > 0; divisor /= DECIMAL_BASE) {
+                buffer.appendByte((byte) ('0' + fraction / divisor));
+                fraction %= divisor;
+            }
+        }
+    }
+
+    /**
+     * Finds the fewest fraction digits that hold a double: scaled by the power of ten and rounded, a long that divided
+     * back gives the same double. Both the long and the power are exact doubles, so the division is correctly rounded
+     * just like parsing the written number is
+     *
+     * @param number number to write
+     * @return number of fraction digits, or -1 if the number is out of the range written by this class
+     */
+    private static int fractionDigits(final double number) {
+        final double magnitude = Math.abs(number);
+        if (Double.isNaN(magnitude) || magnitude >= Long.MAX_VALUE) {
+            return -1;
+        }
+        if (magnitude >= MAX_EXACT_INTEGER) {
+            // every double this large is an integer
+            return 0;
+        }
+
+        for (int digits = 0; digits < POWERS_OF_TEN.length; digits++) {
+            final double scaled = magnitude * POWERS_OF_TEN[digits];
+            if (scaled >= MAX_EXACT_INTEGER) {
+                return -1;
+            }
+            if (Math.round(scaled) / (double) POWERS_OF_TEN[digits] == magnitude) {
+                return digits;
+            }
+        }
+        return -1;
+    }
+
+    private static String plain(final double number) {
+        // numbers with more significant digits than fit the exact range, or far too large or small to be metric values
+        if (Double.isNaN(number) || Double.isInfinite(number)) {
+            return Double.toString(number);
+        }
+        return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+    }
+
+    private static byte continuation(final int bits) {
+        return (byte) (CONTINUATION_PREFIX | (bits & CONTINUATION_MASK));
+    }
+}
@@ -5,17 +5,50 @@ import com.statful.client.Aggregation;
 import com.statful.client.AggregationFreq;
 import com.statful.client.MetricType;
 
+import io.vertx.core.buffer.Buffer;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
 
 /**
- * Statful metric line builder. Builds metrics lines according to Statful specification
+ * Statful metric line builder. Builds metrics lines according to Statful specification.
+ * Tags are kept in parallel arrays and lines are written straight into the caller's {@link StringBuilder} or
+ * {@link Buffer}, so that a builder {@link #reset() reset} between lines writes them without allocating.
+ * Not thread safe, a reused builder should be confined to a thread
  */
 public final class MetricLineBuilder {
 
+    /**
+     * How the metric value is held
+     */
+    private enum ValueType {
+        /**
+         * Held as text, written as is
+         */
+        TEXT,
+        /**
+         * Held as a long
+         */
+        INTEGER,
+        /**
+         * Held as a double, written in plain notation with the fewest digits that parse back to it
+         */
+        DECIMAL
+    }
+
+    /**
+     * Initial capacity of the tag arrays
+     */
+    private static final int INITIAL_TAG_CAPACITY = 8;
+
+    /**
+     * Initial capacity of the line being encoded into a buffer
+     */
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
     /**
      * Optional application name to be added to the tag list
      */
@@ -37,15 +70,40 @@ public final class MetricLineBuilder {
     private String metricName;
 
     /**
-     * Tags to be applied in the metric
+     * Names of the tags to be applied in the metric, in the order they were added
+     */
+    private String[] tagNames = new String[INITIAL_TAG_CAPACITY];
+
+    /**
+     * Values of the tags to be applied in the metric, at the same index as their names
+     */
+    private String[] tagValues = new String[INITIAL_TAG_CAPACITY];
+
+    /**
+     * Number of tags to be applied in the metric
      */
-    private Map<String, String> tags;
+    private int tagCount;
 
     /**
-     * Metric value to be sent
+     * Metric value to be sent, when held as text
      */
     private String value;
 
+    /**
+     * Metric value to be sent, when held as a long
+     */
+    private long longValue;
+
+    /**
+     * Metric value to be sent, when held as a double
+     */
+    private double doubleValue;
+
+    /**
+     * How the metric value is held, null until it's set
+     */
+    private ValueType valueType;
+
     /**
      * Timestamp of when the metric was collected
      */
@@ -54,7 +112,7 @@ public final class MetricLineBuilder {
     /**
      * List of aggregations to be applied to the sent metric
      */
-    private List<Aggregation> aggregations = new ArrayList<>();
+    private final List<Aggregation> aggregations = new ArrayList<>();
 
     /**
      * Frequency of aggregation to be applied to the metric
@@ -66,6 +124,173 @@ public final class MetricLineBuilder {
      */
     private int sampleRate;
 
+    /**
+     * Line being encoded into a buffer, reused between lines
+     */
+    private StringBuilder line;
+
+    /**
+     * UTF-8 bytes of the line being encoded into a buffer, reused between lines
+     */
+    private byte[] lineBytes;
+
+    /**
+     * Clears every field, so that the builder can be reused for another metric line
+     *
+     * @return a reference to this, so the API can be used fluently
+     */
+    @Nonnull
+    public MetricLineBuilder reset() {
+        this.app = null;
+        this.namespace = null;
+        this.metricType = null;
+        this.metricName = null;
+        Arrays.fill(this.tagNames, 0, this.tagCount, null);
+        Arrays.fill(this.tagValues, 0, this.tagCount, null);
+        this.tagCount = 0;
+        this.value = null;
+        this.longValue = 0;
+        this.doubleValue = 0;
+        this.valueType = null;
+        this.timestamp = 0;
+        this.aggregations.clear();
+        this.frequency = AggregationFreq.FREQ_10;
+        this.sampleRate = 0;
+        return this;
+    }
+
+    /**
+     * Copies the metric line, to be completed with other values, timestamps or aggregations
+     *
+     * @return a new builder with the same fields
+     */
+    @Nonnull
+    public MetricLineBuilder copy() {
+        final MetricLineBuilder copy = new MetricLineBuilder();
+        copy.app = this.app;
+        copy.namespace = this.namespace;
+        copy.metricType = this.metricType;
+        copy.metricName = this.metricName;
+        copy.tagNames = Arrays.copyOf(this.tagNames, this.tagNames.length);
+        copy.tagValues = Arrays.copyOf(this.tagValues, this.tagValues.length);
+        copy.tagCount = this.tagCount;
+        copy.value = this.value;
+        copy.longValue = this.longValue;
+        copy.doubleValue = this.doubleValue;
+        copy.valueType = this.valueType;
+        copy.timestamp = this.timestamp;
+        copy.aggregations.addAll(this.aggregations);
+        copy.frequency = this.frequency;
+        copy.sampleRate = this.sampleRate;
+        return copy;
+    }
+
+    /**
+     * Identifies the series of the metric: namespace, type, name and tags sorted by name, including the application
+     *
+     * @return String with the series key
+     */
+    @Nonnull
+    public String seriesKey() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(namespace).append('.').append(metricType).append('.').append(metricName);
+
+        final SortedMap<String, String> sortedTags = new TreeMap<>();
+        for (int i = 0; i < this.tagCount; i++) {
+            sortedTags.put(this.tagNames[i], this.tagValues[i]);
+        }
+        if (!isNull(app)) {
+            sortedTags.putIfAbsent("app", app);
+        }
+        sortedTags.forEach((tagName, tagValue) -> sb.append(',').append(tagName).append('=').append(tagValue));
+
+        return sb.toString();
+    }
+
+    /**
+     * @return type of the metric, if set
+     */
+    @Nullable
+    public MetricType getMetricType() {
+        return metricType;
+    }
+
+    /**
+     * @return value of the metric, formatted as it's written in the line
+     */
+    @Nullable
+    public String getValue() {
+        if (isNull(this.valueType)) {
+            return null;
+        }
+        if (this.valueType == ValueType.TEXT) {
+            return this.value;
+        }
+        final StringBuilder sb = new StringBuilder();
+        this.appendValue(sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return true if the value of the metric was set
+     */
+    public boolean hasValue() {
+        return !isNull(this.valueType);
+    }
+
+    /**
+     * @return value of the metric as a double, without formatting a value set as a number
+     * @throws NumberFormatException if the value was set as text that isn't a number
+     * @throws IllegalStateException if the value wasn't set
+     */
+    public double getValueAsDouble() {
+        if (isNull(this.valueType)) {
+            throw new IllegalStateException("Metric value wasn't set");
+        }
+        switch (this.valueType) {
+            case INTEGER:
+                return this.longValue;
+            case DECIMAL:
+                return this.doubleValue;
+            default:
+                return Double.parseDouble(this.value);
+        }
+    }
+
+    /**
+     * @return timestamp of when the metric was collected, in seconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return aggregations to be applied to the metric
+     */
+    @Nonnull
+    public List<Aggregation> getAggregations() {
+        return Collections.unmodifiableList(aggregations);
+    }
+
+    /**
+     * @return frequency of the aggregations
+     */
+    @Nonnull
+    public AggregationFreq getAggregationFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Removes the aggregations added so far
+     *
+     * @return a reference to this, so the API can be used fluently
+     */
+    @Nonnull
+    public MetricLineBuilder withoutAggregations() {
+        this.aggregations.clear();
+        return this;
+    }
+
     /**
      * Builds the metric following Statful spec
      *
@@ -74,64 +299,126 @@ public final class MetricLineBuilder {
     @Nonnull
     public String build() {
         final StringBuilder sb = new StringBuilder();
+        this.appendTo(sb);
+        return sb.toString();
+    }
 
-        if (!Strings.isNullOrEmpty(namespace)) {
-            sb.append(namespace).append(".");
+    /**
+     * Writes the metric following Statful spec straight into a string builder
+     *
+     * @param sb string builder to which the metric line is appended
+     */
+    public void appendTo(@Nonnull final StringBuilder sb) {
+        this.writeHead(sb);
+
+        sb.append(' ');
+        this.appendValue(sb);
+
+        sb.append(' ');
+        sb.append(timestamp);
+
+        this.writeTail(sb);
+    }
+
+    /**
+     * Writes the metric following Statful spec straight into a buffer, without building an intermediate String
+     *
+     * @param buffer buffer to which the metric line is appended
+     */
+    public void appendTo(@Nonnull final Buffer buffer) {
+        if (isNull(this.line)) {
+            this.line = new StringBuilder(INITIAL_LINE_CAPACITY);
         }
+        this.line.setLength(0);
+        this.appendTo(this.line);
 
-        if (!isNull(metricType)) {
-            sb.append(metricType.toString()).append(".");
+        final int maxLength = this.line.length() * LineEncoding.MAX_BYTES_PER_CHAR;
+        if (isNull(this.lineBytes) || this.lineBytes.length < maxLength) {
+            this.lineBytes = new byte[maxLength];
         }
+        buffer.appendBytes(this.lineBytes, 0, LineEncoding.encodeUtf8(this.line, this.lineBytes));
+    }
 
-        sb.append(metricName);
+    /**
+     * Builds the parts of the metric that don't change from point to point of its series, everything but the value
+     * and timestamp, so that they can be cached and only the value and timestamp written for each point
+     *
+     * @return template of the metric line
+     */
+    @Nonnull
+    public MetricLineTemplate template() {
+        final StringBuilder head = new StringBuilder();
+        this.writeHead(head);
+        head.append(' ');
 
-        // merge application to the tag list
-        getApp().ifPresent(application -> {
-            if (isNull(tags)) {
-                tags = new HashMap<>();
-                tags.put("app", application);
-            }
+        final StringBuilder tail = new StringBuilder();
+        this.writeTail(tail);
 
-            tags.putIfAbsent("app", application);
-        });
+        return new MetricLineTemplate(head.toString(), tail.toString());
+    }
 
-        toStringTags().ifPresent(stringTag -> sb.append(",").append(stringTag));
+    private void appendValue(final StringBuilder sb) {
+        if (this.valueType == ValueType.INTEGER) {
+            sb.append(this.longValue);
+        } else if (this.valueType == ValueType.DECIMAL) {
+            LineEncoding.appendDouble(sb, this.doubleValue);
+        } else {
+            sb.append(this.value);
+        }
+    }
 
-        sb.append(" ").append(value);
+    private void writeHead(final StringBuilder sb) {
+        if (!Strings.isNullOrEmpty(namespace)) {
+            sb.append(namespace);
+            sb.append('.');
+        }
 
-        sb.append(" ").append(timestamp);
+        if (!isNull(metricType)) {
+            sb.append(metricType.toString());
+            sb.append('.');
+        }
 
-        toStringAggregations().ifPresent(stringAggregation ->
-                sb.append(" ")
-                        .append(stringAggregation)
-                        .append(",")
-                        .append(frequency.getValue())
-        );
+        sb.append(metricName);
 
-        sb.append(" ").append(sampleRate);
+        // merge application to the tag list, unless a tag of the same name overrides it
+        if (!isNull(app) && this.indexOfTag("app") < 0) {
+            this.writeTag(sb, "app", app);
+        }
 
-        return sb.toString();
+        for (int i = 0; i < this.tagCount; i++) {
+            this.writeTag(sb, this.tagNames[i], this.tagValues[i]);
+        }
     }
 
-    private Optional<String> getApp() {
-        return Optional.ofNullable(app);
+    private void writeTag(final StringBuilder sb, final String tagName, final String tagValue) {
+        sb.append(',');
+        sb.append(tagName);
+        sb.append('=');
+        sb.append(tagValue);
     }
 
-    private Optional<String> toStringAggregations() {
-
-        if (this.aggregations.isEmpty()) {
-            return Optional.empty();
+    private void writeTail(final StringBuilder sb) {
+        final int aggregationCount = this.aggregations.size();
+        if (aggregationCount > 0) {
+            sb.append(' ');
+            for (int i = 0; i < aggregationCount; i++) {
+                sb.append(this.aggregations.get(i).getName());
+                sb.append(',');
+            }
+            sb.append(frequency.getValue());
         }
-        return Optional.of(this.aggregations.stream()
-                .map(Aggregation::getName).collect(Collectors.joining(",")));
+
+        sb.append(' ');
+        sb.append(sampleRate);
     }
 
-    private Optional<String> toStringTags() {
-        if (tags == null) {
-            return Optional.empty();
+    private int indexOfTag(final String tagName) {
+        for (int i = 0; i < this.tagCount; i++) {
+            if (this.tagNames[i].equals(tagName)) {
+                return i;
+            }
         }
-        return Optional.of(tags.entrySet().stream()
-                .map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.joining(",")));
+        return -1;
     }
 
     /**
@@ -176,6 +463,8 @@ public final class MetricLineBuilder {
     }
 
     /**
+     * Adds a tag, replacing the value of a tag of the same name
+     *
      * @param tagName  of the tag to be added to the metric
      * @param tagValue of the tag to be added to the metric
      * @return a reference to this, so the API can be used fluently
@@ -185,10 +474,19 @@ public final class MetricLineBuilder {
         Objects.requireNonNull(tagName);
         Objects.requireNonNull(tagValue);
 
-        if (tags == null) {
-            tags = new HashMap<>();
+        final int index = this.indexOfTag(tagName);
+        if (index >= 0) {
+            this.tagValues[index] = tagValue;
+            return this;
         }
-        tags.put(tagName, tagValue);
+
+        if (this.tagCount == this.tagNames.length) {
+            this.tagNames = Arrays.copyOf(this.tagNames, this.tagCount * 2);
+            this.tagValues = Arrays.copyOf(this.tagValues, this.tagCount * 2);
+        }
+        this.tagNames[this.tagCount] = tagName;
+        this.tagValues[this.tagCount] = tagValue;
+        this.tagCount++;
         return this;
     }
 
@@ -199,6 +497,31 @@ public final class MetricLineBuilder {
     @Nonnull
     public MetricLineBuilder withValue(@Nonnull final String valueToAdd) {
         this.value = Objects.requireNonNull(valueToAdd);
+        this.valueType = ValueType.TEXT;
+        return this;
+    }
+
+    /**
+     * @param valueToAdd to be added to the metric, formatted only when the line is written
+     * @return a reference to this, so the API can be used fluently
+     */
+    @Nonnull
+    public MetricLineBuilder withValue(final long valueToAdd) {
+        this.value = null;
+        this.longValue = valueToAdd;
+        this.valueType = ValueType.INTEGER;
+        return this;
+    }
+
+    /**
+     * @param valueToAdd to be added to the metric, formatted only when the line is written
+     * @return a reference to this, so the API can be used fluently
+     */
+    @Nonnull
+    public MetricLineBuilder withValue(final double valueToAdd) {
+        this.value = null;
+        this.doubleValue = valueToAdd;
+        this.valueType = ValueType.DECIMAL;
         return this;
     }
 
@@ -218,7 +541,11 @@ public final class MetricLineBuilder {
      */
     @Nonnull
     public MetricLineBuilder withAggregations(@Nonnull final List<Aggregation> aggregationsToAdd) {
-        this.aggregations.addAll(Objects.requireNonNull(aggregationsToAdd));
+        // added one by one, addAll copies the list to an array
+        final int count = Objects.requireNonNull(aggregationsToAdd).size();
+        for (int i = 0; i < count; i++) {
+            this.aggregations.add(aggregationsToAdd.get(i));
+        }
         return this;
     }
 
@@ -0,0 +1,61 @@
+package com.statful.metric;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of metric line templates, keyed by the parts of a point that identify its series. Once the cache is
+ * full the least recently used series are evicted, so that a blowup of tag values costs rebuilding lines instead of
+ * memory
+ */
+public final class MetricLinePrefixCache {
+
+    /**
+     * Templates by series
+     */
+    private final Cache<Object, MetricLineTemplate> templates;
+
+    /**
+     * @param maximumSize maximum number of series cached, 0 disables the cache
+     */
+    public MetricLinePrefixCache(final long maximumSize) {
+        this.templates = CacheBuilder.newBuilder().maximumSize(Math.max(0, maximumSize)).build();
+    }
+
+    /**
+     * @param key         identifies the series, must implement equals and hashCode
+     * @param metricLine  supplies the metric line of the series if it is not cached
+     * @return template of the series' metric line
+     */
+    @Nonnull
+    public MetricLineTemplate get(@Nonnull final Object key, @Nonnull final Supplier<MetricLineBuilder> metricLine) {
+        try {
+            return this.templates.get(key, () -> metricLine.get().template());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to build metric line template", e.getCause());
+        }
+    }
+
+    /**
+     * Looks a template up without building it, so that a reused key can be probed without allocating
+     *
+     * @param key identifies the series, must implement equals and hashCode
+     * @return template of the series' metric line, null if not cached
+     */
+    @Nullable
+    public MetricLineTemplate getIfPresent(@Nonnull final Object key) {
+        return this.templates.getIfPresent(key);
+    }
+
+    /**
+     * @return number of series cached
+     */
+    public long size() {
+        return this.templates.size();
+    }
+}
@@ -0,0 +1,119 @@
+package com.statful.metric;
+
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parts of a metric line shared by all points of its series: namespace, type, name and tags before the value, and
+ * aggregations, frequency and sample rate after the timestamp. Encoded once, so that writing a point only appends
+ * them around its value and timestamp
+ */
+public final class MetricLineTemplate {
+
+    /**
+     * Bytes reserved for a numeric value and the timestamp written between head and tail
+     */
+    private static final int NUMBERS_CAPACITY = 48;
+
+    /**
+     * Encoded part before the value, including the separating space
+     */
+    private final byte[] head;
+
+    /**
+     * Encoded part after the timestamp, including the separating space
+     */
+    private final byte[] tail;
+
+    /**
+     * @param head part before the value, including the separating space
+     * @param tail part after the timestamp, including the separating space
+     */
+    MetricLineTemplate(@Nonnull final String head, @Nonnull final String tail) {
+        this.head = head.getBytes(StandardCharsets.UTF_8);
+        this.tail = tail.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the metric line of a point of the series to a buffer, without line break
+     *
+     * @param buffer    buffer to which the metric line is appended
+     * @param value     value of the point
+     * @param timestamp timestamp of the point
+     */
+    public void writeTo(@Nonnull final Buffer buffer, @Nonnull final String value, final long timestamp) {
+        buffer.appendBytes(this.head);
+        LineEncoding.appendUtf8(buffer, value);
+        buffer.appendByte((byte) ' ');
+        LineEncoding.appendLong(buffer, timestamp);
+        buffer.appendBytes(this.tail);
+    }
+
+    /**
+     * Appends the metric line of a point of the series to a buffer, without line break
+     *
+     * @param buffer    buffer to which the metric line is appended
+     * @param value     value of the point, written digit by digit
+     * @param timestamp timestamp of the point
+     */
+    public void writeTo(@Nonnull final Buffer buffer, final long value, final long timestamp) {
+        buffer.appendBytes(this.head);
+        LineEncoding.appendLong(buffer, value);
+        buffer.appendByte((byte) ' ');
+        LineEncoding.appendLong(buffer, timestamp);
+        buffer.appendBytes(this.tail);
+    }
+
+    /**
+     * Appends the metric line of a point of the series to a buffer, without line break
+     *
+     * @param buffer    buffer to which the metric line is appended
+     * @param value     value of the point, written digit by digit with the fewest digits that parse back to it
+     * @param timestamp timestamp of the point
+     */
+    public void writeTo(@Nonnull final Buffer buffer, final double value, final long timestamp) {
+        buffer.appendBytes(this.head);
+        LineEncoding.appendDouble(buffer, value);
+        buffer.appendByte((byte) ' ');
+        LineEncoding.appendLong(buffer, timestamp);
+        buffer.appendBytes(this.tail);
+    }
+
+    /**
+     * @param value     value of the point
+     * @param timestamp timestamp of the point
+     * @return the metric line of a point of the series
+     */
+    @Nonnull
+    public String toMetricLine(@Nonnull final String value, final long timestamp) {
+        final Buffer buffer = Buffer.buffer(this.head.length + value.length() + this.tail.length + Long.BYTES * 2);
+        this.writeTo(buffer, value, timestamp);
+        return buffer.toString();
+    }
+
+    /**
+     * @param value     value of the point
+     * @param timestamp timestamp of the point
+     * @return the metric line of a point of the series
+     */
+    @Nonnull
+    public String toMetricLine(final long value, final long timestamp) {
+        final Buffer buffer = Buffer.buffer(this.head.length + this.tail.length + NUMBERS_CAPACITY);
+        this.writeTo(buffer, value, timestamp);
+        return buffer.toString();
+    }
+
+    /**
+     * @param value     value of the point
+     * @param timestamp timestamp of the point
+     * @return the metric line of a point of the series
+     */
+    @Nonnull
+    public String toMetricLine(final double value, final long timestamp) {
+        final Buffer buffer = Buffer.buffer(this.head.length + this.tail.length + NUMBERS_CAPACITY);
+        this.writeTo(buffer, value, timestamp);
+        return buffer.toString();
+    }
+}
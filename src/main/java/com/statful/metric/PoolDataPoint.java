@@ -2,6 +2,10 @@ package com.statful.metric;
 
 import com.statful.client.MetricType;
 import com.statful.client.StatfulMetricsOptions;
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
  * Representation of a ConnectionPool DataPoint
@@ -14,9 +18,9 @@ public class PoolDataPoint implements DataPoint {
     private final StatfulMetricsOptions options;
 
     /**
-     * Value of the metric
+     * Value of the metric, formatted only when the line is written
      */
-    private final String value;
+    private final long value;
 
     /**
      * time stamp of metric creation
@@ -33,6 +37,11 @@ public class PoolDataPoint implements DataPoint {
      */
     private final String metricType;
 
+    /**
+     * Templates of metric lines, null to build every line in full
+     */
+    private MetricLinePrefixCache metricLineCache;
+
     /**
      * Constructor for a Pool Gauge based metric, will calculate the unix timestamp of the metric on creation
      *
@@ -45,6 +54,21 @@ public class PoolDataPoint implements DataPoint {
                          final String poolName,
                          final String metricType,
                          final String value) {
+        this(options, poolName, metricType, Long.parseLong(value));
+    }
+
+    /**
+     * Constructor for a Pool Gauge based metric, will calculate the unix timestamp of the metric on creation
+     *
+     * @param options    Statful options to be used when building the metric line
+     * @param poolName   name of the poll to be used has a tag
+     * @param metricType type of the pool
+     * @param value      value of the metric
+     */
+    public PoolDataPoint(final StatfulMetricsOptions options,
+                         final String poolName,
+                         final String metricType,
+                         final long value) {
 
         this.options = options;
         this.metricType = metricType;
@@ -53,9 +77,72 @@ public class PoolDataPoint implements DataPoint {
         this.unixTimeStamp = this.calculateEpochTimestamp();
     }
 
+    /**
+     * Sets the templates of metric lines, so that the line of a point is only its value and timestamp around the
+     * cached parts of its series
+     *
+     * @param metricLineCache templates of metric lines, null to build every line in full
+     */
+    public void setMetricLineCache(@Nullable final MetricLinePrefixCache metricLineCache) {
+        this.metricLineCache = metricLineCache;
+    }
+
     @Override
     public String toMetricLine() {
-        final MetricLineBuilder metricLineBuilder = new MetricLineBuilder()
+        if (this.metricLineCache == null) {
+            return this.metricLine().build();
+        }
+        return this.template().toMetricLine(this.value, this.unixTimeStamp);
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer) {
+        if (this.metricLineCache == null) {
+            this.metricLine().appendTo(buffer);
+            return;
+        }
+        this.template().writeTo(buffer, this.value, this.unixTimeStamp);
+    }
+
+    @Override
+    public void writeTo(final Buffer buffer, final MetricLineBuilder scratch) {
+        if (this.metricLineCache == null) {
+            this.fillMetricLine(scratch.reset()).appendTo(buffer);
+            return;
+        }
+        this.template().writeTo(buffer, this.value, this.unixTimeStamp);
+    }
+
+    @Override
+    public MetricLineBuilder metricLineBuilder() {
+        return this.metricLine();
+    }
+
+    @Override
+    public String seriesKey() {
+        return "gauge.pool,name=" + this.poolName + ",type=" + this.metricType;
+    }
+
+    @Override
+    public double getValueAsDouble() {
+        return this.value;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.unixTimeStamp;
+    }
+
+    private MetricLineTemplate template() {
+        return this.metricLineCache.get(Arrays.asList(this.poolName, this.metricType), this::metricLine);
+    }
+
+    private MetricLineBuilder metricLine() {
+        return this.fillMetricLine(new MetricLineBuilder());
+    }
+
+    private MetricLineBuilder fillMetricLine(final MetricLineBuilder metricLineBuilder) {
+        metricLineBuilder
                 .withNamespace(this.options.getNamespace())
                 .withMetricType(MetricType.GAUGE)
                 .withMetricName("pool")
@@ -73,6 +160,6 @@ public class PoolDataPoint implements DataPoint {
         // Add global list of tags
         this.options.getTags().forEach(pair -> metricLineBuilder.withTag(pair.getLeft(), pair.getRight()));
 
-        return metricLineBuilder.build();
+        return metricLineBuilder;
     }
 }
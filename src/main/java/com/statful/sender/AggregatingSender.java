@@ -0,0 +1,501 @@
+package com.statful.sender;
+
+import com.statful.client.Aggregation;
+import com.statful.client.AggregationFreq;
+import com.statful.client.MetricType;
+import com.statful.client.PreAggregationOptions;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TimerUnit;
+import com.statful.metric.AggregatedDataPoint;
+import com.statful.metric.CoarseClock;
+import com.statful.metric.DataPoint;
+import com.statful.metric.MetricLineBuilder;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates points of the same series before handing them to another sender. Points are keyed by their series key,
+ * only the first point of a series building its metric line, and each series sends one point per window of its
+ * aggregation frequency and per configured aggregation, carrying the value computed on the client. Points without a
+ * type or a numeric value, and points of series beyond the configured maximum, are handed over as they are.
+ * <p>
+ * The collector aggregates the lines it receives again, so aggregated values are sent through its aggregated
+ * ingestion path, one sender per aggregation and frequency, as lines without aggregations. Transports without that
+ * path receive lines carrying their aggregation, which the collector's aggregation of a single value per window leaves
+ * unchanged, except for counts: points of series aggregated with {@link Aggregation#COUNT} are then handed over as
+ * they are
+ */
+public final class AggregatingSender implements Sender {
+
+    /**
+     * Interval in milliseconds between checks for windows to send
+     */
+    private static final long TICK_INTERVAL = 1000;
+
+    /**
+     * Aggregated points are never sampled
+     */
+    private static final int UNSAMPLED = StatfulMetricsOptions.MAX_SAMPLE_RATE;
+
+    /**
+     * Sender receiving the aggregated points
+     */
+    private final Sender delegate;
+
+    /**
+     * Vertx instance running the window timer
+     */
+    private final Vertx vertx;
+
+    /**
+     * Maximum number of series aggregated at once
+     */
+    private final int maxSeries;
+
+    /**
+     * Largest value of a timer's distribution, in microseconds
+     */
+    private final long timerHighestTrackableValue;
+
+    /**
+     * Number of microseconds in the unit of the timers' values
+     */
+    private final double timerScale;
+
+    /**
+     * Number of significant digits kept in a timer's distribution
+     */
+    private final int timerSignificantDigits;
+
+    /**
+     * Current unix timestamp, in seconds
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Creates the sender of the aggregated ingestion path of an aggregation and frequency, null if the transport has
+     * no such path
+     */
+    private final BiFunction<Aggregation, AggregationFreq, Sender> aggregatedSenderFactory;
+
+    /**
+     * Senders of the aggregated ingestion path, by aggregation and frequency
+     */
+    private final ConcurrentMap<String, Sender> aggregatedSenders = new ConcurrentHashMap<>();
+
+    /**
+     * Series being aggregated, by the series key of their points
+     */
+    private final ConcurrentMap<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Number of series being aggregated, only changed under the key of the series added or removed
+     */
+    private final AtomicInteger seriesCount = new AtomicInteger();
+
+    /**
+     * Id of the timer sending the windows that are over
+     */
+    private final long timerId;
+
+    /**
+     * Number of points aggregated
+     */
+    private final LongAdder aggregatedPoints = new LongAdder();
+
+    /**
+     * Number of aggregated points sent
+     */
+    private final LongAdder emittedPoints = new LongAdder();
+
+    /**
+     * @param vertx                   Vertx instance to run the window timer
+     * @param options                 Statful options to configure the aggregation
+     * @param delegate                sender receiving the points that are not aggregated
+     * @param aggregatedSenderFactory creates the sender of the aggregated ingestion path of an aggregation and
+     *                                frequency, null if the transport has no such path
+     */
+    AggregatingSender(final Vertx vertx, final StatfulMetricsOptions options, @Nonnull final Sender delegate,
+                      @Nullable final BiFunction<Aggregation, AggregationFreq, Sender> aggregatedSenderFactory) {
+        this(vertx, options, delegate, aggregatedSenderFactory, CoarseClock::epochSeconds);
+    }
+
+    /**
+     * @param vertx                   Vertx instance to run the window timer
+     * @param options                 Statful options to configure the aggregation
+     * @param delegate                sender receiving the points that are not aggregated
+     * @param aggregatedSenderFactory creates the sender of the aggregated ingestion path of an aggregation and
+     *                                frequency, null if the transport has no such path
+     * @param clock                   current unix timestamp, in seconds
+     */
+    AggregatingSender(final Vertx vertx, final StatfulMetricsOptions options, @Nonnull final Sender delegate,
+                      @Nullable final BiFunction<Aggregation, AggregationFreq, Sender> aggregatedSenderFactory, final LongSupplier clock) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.aggregatedSenderFactory = aggregatedSenderFactory;
+        this.vertx = vertx;
+        final PreAggregationOptions preAggregationOptions = options.getPreAggregationOptions();
+        this.maxSeries = Math.max(1, preAggregationOptions.getMaxSeries());
+        // the range is set in the timers' unit while distributions hold microseconds
+        this.timerScale = SeriesAggregate.histogramScale(Optional.ofNullable(options.getTimerUnit()).orElse(TimerUnit.MILLISECONDS));
+        this.timerHighestTrackableValue = (long) Math.ceil(preAggregationOptions.getTimerHighestTrackableValue() * this.timerScale);
+        this.timerSignificantDigits = preAggregationOptions.getTimerSignificantDigits();
+        // fails on start rather than on the first timer
+        LogLinearHistogram.checkRange(this.timerHighestTrackableValue, this.timerSignificantDigits);
+        this.clock = clock;
+        this.timerId = vertx.setPeriodic(TICK_INTERVAL, id -> this.emit(this.clock.getAsLong()));
+    }
+
+    @Override
+    public boolean addMetric(final DataPoint dataPoint) {
+        final double value = dataPoint.getValueAsDouble();
+        if (!Double.isFinite(value)) {
+            return this.delegate.addMetric(dataPoint);
+        }
+
+        final long timestamp = dataPoint.getTimestamp();
+        // the series is created, limited and updated under its key, so that a series being sent takes no late points
+        final Series aggregated = this.series.compute(dataPoint.seriesKey(), (key, existing) -> {
+            Series current = existing;
+            if (current == null) {
+                current = this.newSeries(dataPoint);
+            }
+            if (current != null) {
+                this.add(current, value, timestamp);
+            }
+            return current;
+        });
+        if (aggregated == null) {
+            return this.delegate.addMetric(dataPoint);
+        }
+
+        this.aggregatedPoints.increment();
+        return true;
+    }
+
+    /**
+     * Creates the series of a point, the only time its metric line is built
+     *
+     * @param dataPoint first point of the series
+     * @return the series, null if its points are handed over as they are or there are already as many series as the
+     * maximum
+     */
+    @Nullable
+    private Series newSeries(final DataPoint dataPoint) {
+        final MetricLineBuilder metricLine = dataPoint.metricLineBuilder();
+        if (metricLine == null || metricLine.getMetricType() == null) {
+            return null;
+        }
+
+        if (this.aggregatedSenderFactory == null && metricLine.getAggregations().contains(Aggregation.COUNT)) {
+            // the collector would count the aggregated lines instead of the points
+            return null;
+        }
+
+        int count;
+        do {
+            count = this.seriesCount.get();
+            if (count >= this.maxSeries) {
+                return null;
+            }
+        } while (!this.seriesCount.compareAndSet(count, count + 1));
+
+        return new Series(metricLine, Long.parseLong(metricLine.getAggregationFrequency().getValue()));
+    }
+
+    private void add(final Series current, final double value, final long timestamp) {
+        final long start = timestamp - timestamp % current.length;
+        Window window = current.window(start);
+        if (window == null) {
+            SeriesAggregate aggregate = current.takeSpare();
+            if (aggregate == null) {
+                aggregate = new SeriesAggregate(current.template.getMetricType(), this.timerHighestTrackableValue, this.timerSignificantDigits,
+                        this.timerScale);
+            }
+            window = new Window(start, start + current.length, aggregate);
+            current.windows.add(window);
+        }
+        window.aggregate.add(value);
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics, @Nonnull final Handler<AsyncResult<Void>> sentHandler) {
+        this.delegate.send(metrics, sentHandler);
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics) {
+        this.delegate.send(metrics);
+    }
+
+    @Override
+    public void close(final Handler<AsyncResult<Void>> handler) {
+        this.vertx.cancelTimer(this.timerId);
+
+        // whatever was aggregated so far is sent before closing
+        final Map<Sender, List<DataPoint>> routes = this.route(this.collect(Long.MAX_VALUE));
+        final List<Sender> senders = new ArrayList<>(this.aggregatedSenders.values());
+        senders.add(this.delegate);
+
+        final List<Future<Void>> closed = senders.stream().map(sender -> {
+            final Future<Void> senderClosed = Future.future();
+            final List<DataPoint> points = routes.get(sender);
+            if (points == null) {
+                sender.close(senderClosed);
+            } else {
+                sender.send(points, sent -> sender.close(senderClosed));
+            }
+            return senderClosed;
+        }).collect(Collectors.toList());
+
+        CompositeFuture.all(new ArrayList<>(closed)).setHandler(result -> Optional.ofNullable(handler).ifPresent(close -> close.handle(result.mapEmpty())));
+    }
+
+    /**
+     * Sends the windows that are over
+     *
+     * @param now current unix timestamp, in seconds
+     */
+    void emit(final long now) {
+        this.route(this.collect(now)).forEach(Sender::send);
+    }
+
+    /**
+     * @param points aggregated points
+     * @return the points by the sender to hand them to
+     */
+    private Map<Sender, List<DataPoint>> route(final List<AggregatedDataPoint> points) {
+        final Map<Sender, List<DataPoint>> routes = new HashMap<>();
+        for (AggregatedDataPoint point : points) {
+            routes.computeIfAbsent(this.senderOf(point), sender -> new ArrayList<>()).add(point);
+        }
+        return routes;
+    }
+
+    private Sender senderOf(final AggregatedDataPoint point) {
+        final Optional<Aggregation> aggregation = point.getAggregation();
+        if (this.aggregatedSenderFactory == null || !aggregation.isPresent()) {
+            return this.delegate;
+        }
+
+        final AggregationFreq frequency = point.getFrequency();
+        return this.aggregatedSenders.computeIfAbsent(aggregation.get().getName() + ',' + frequency.getValue(),
+                key -> this.aggregatedSenderFactory.apply(aggregation.get(), frequency));
+    }
+
+    /**
+     * @return number of points aggregated
+     */
+    public long getAggregatedPointCount() {
+        return this.aggregatedPoints.sum();
+    }
+
+    /**
+     * @return number of aggregated points sent
+     */
+    public long getEmittedPointCount() {
+        return this.emittedPoints.sum();
+    }
+
+    /**
+     * @return number of series being aggregated
+     */
+    public int getSeriesCount() {
+        return this.seriesCount.get();
+    }
+
+    private List<AggregatedDataPoint> collect(final long now) {
+        final boolean suffixed = this.aggregatedSenderFactory == null;
+        final List<AggregatedDataPoint> points = new ArrayList<>();
+        for (String key : this.series.keySet()) {
+            // windows are sent under the series' key, late points start a new window
+            this.series.computeIfPresent(key, (seriesKey, existing) -> {
+                existing.addPoints(now, points, suffixed);
+                if (existing.windows.isEmpty() && now >= existing.retainedUntil) {
+                    this.seriesCount.decrementAndGet();
+                    return null;
+                }
+                return existing;
+            });
+        }
+        this.emittedPoints.add(points.size());
+        return points;
+    }
+
+    private static Aggregation defaultAggregation(final MetricType type) {
+        switch (type) {
+            case COUNTER:
+                return Aggregation.SUM;
+            case GAUGE:
+                return Aggregation.LAST;
+            default:
+                return Aggregation.AVG;
+        }
+    }
+
+    /**
+     * Windows of one series, with the metric line of its first point. A series is kept for a window's length after
+     * its last window was sent, so that the aggregate of that window, its timer's distribution in particular, is reset
+     * and reused by the next one rather than allocated again. Only accessed under the series' key
+     */
+    private static final class Series {
+
+        /**
+         * Metric line of the series' first point, completed with each aggregated value
+         */
+        private final MetricLineBuilder template;
+
+        /**
+         * Length of the series' windows, in seconds
+         */
+        private final long length;
+
+        /**
+         * Windows being aggregated, usually a single one
+         */
+        private final List<Window> windows = new ArrayList<>(1);
+
+        /**
+         * Reset aggregate of the last window sent, null if there is none or it was reused
+         */
+        private SeriesAggregate spare;
+
+        /**
+         * Unix timestamp until which the series is kept without windows, in seconds
+         */
+        private long retainedUntil;
+
+        /**
+         * @param template metric line of the series' first point
+         * @param length   length of the series' windows, in seconds
+         */
+        Series(final MetricLineBuilder template, final long length) {
+            this.template = template;
+            this.length = length;
+        }
+
+        /**
+         * @param start unix timestamp of the window's start, in seconds
+         * @return the window starting then, null if there is none
+         */
+        @Nullable
+        Window window(final long start) {
+            for (int i = 0; i < this.windows.size(); i++) {
+                if (this.windows.get(i).start == start) {
+                    return this.windows.get(i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the reset aggregate of the last window sent, null if there is none
+         */
+        @Nullable
+        SeriesAggregate takeSpare() {
+            final SeriesAggregate aggregate = this.spare;
+            this.spare = null;
+            return aggregate;
+        }
+
+        /**
+         * Removes the windows that are over, adding their points
+         *
+         * @param now      current unix timestamp, in seconds
+         * @param points   receives a point per aggregation of each window that is over
+         * @param suffixed true for the lines to carry their aggregation, false for the aggregated ingestion path
+         */
+        void addPoints(final long now, final List<AggregatedDataPoint> points, final boolean suffixed) {
+            final Iterator<Window> iterator = this.windows.iterator();
+            while (iterator.hasNext()) {
+                final Window window = iterator.next();
+                if (window.end <= now) {
+                    iterator.remove();
+                    this.addPoints(window, points, suffixed);
+                    window.aggregate.reset();
+                    this.spare = window.aggregate;
+                    this.retainedUntil = window.end + this.length;
+                }
+            }
+        }
+
+        private void addPoints(final Window window, final List<AggregatedDataPoint> points, final boolean suffixed) {
+            final List<Aggregation> aggregations = this.template.getAggregations();
+            if (aggregations.isEmpty()) {
+                window.aggregate.value(defaultAggregation(this.template.getMetricType()))
+                        .ifPresent(value -> points.add(this.point(window, value, null, false)));
+                return;
+            }
+
+            for (Aggregation aggregation : aggregations) {
+                window.aggregate.value(aggregation)
+                        .ifPresent(value -> points.add(this.point(window, value, aggregation, suffixed)));
+            }
+        }
+
+        private AggregatedDataPoint point(final Window window, final double value, @Nullable final Aggregation aggregation,
+                                          final boolean suffixed) {
+            final MetricLineBuilder metricLine = this.template.copy()
+                    .withoutAggregations()
+                    .withValue(value)
+                    .withTimestamp(window.start)
+                    .withSampleRate(UNSAMPLED);
+            if (suffixed) {
+                metricLine.withAggregations(Collections.singletonList(aggregation));
+            }
+            return new AggregatedDataPoint(metricLine, aggregation, this.template.getAggregationFrequency());
+        }
+    }
+
+    /**
+     * Values of one series within one window
+     */
+    private static final class Window {
+
+        /**
+         * Unix timestamp of the window's start, in seconds
+         */
+        private final long start;
+
+        /**
+         * Unix timestamp of the window's end, in seconds
+         */
+        private final long end;
+
+        /**
+         * Values of the window
+         */
+        private final SeriesAggregate aggregate;
+
+        /**
+         * @param start     unix timestamp of the window's start, in seconds
+         * @param end       unix timestamp of the window's end, in seconds
+         * @param aggregate values of the window
+         */
+        Window(final long start, final long end, final SeriesAggregate aggregate) {
+            this.start = start;
+            this.end = end;
+            this.aggregate = aggregate;
+        }
+    }
+}
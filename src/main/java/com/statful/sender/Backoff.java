@@ -0,0 +1,30 @@
+package com.statful.sender;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter, shared by the transports retrying batches or connections
+ */
+final class Backoff {
+
+    /**
+     * Limits the exponential growth of the backoff, well beyond any sensible maximum backoff
+     */
+    private static final int MAX_SHIFT = 30;
+
+    private Backoff() {
+    }
+
+    /**
+     * @param initial  backoff before the first attempt, in milliseconds
+     * @param max      maximum backoff, in milliseconds
+     * @param attempts number of the attempt about to be made, starting at 1
+     * @return a delay between half and the whole of the doubled backoff, in milliseconds
+     */
+    static long delay(final long initial, final long max, final int attempts) {
+        final long exponential = initial << Math.min(Math.max(attempts - 1, 0), MAX_SHIFT);
+        final long capped = Math.max(0, Math.min(max, exponential));
+        final long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.statful.sender;
+
+import com.statful.metric.DataPoint;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MetricsBuffer} backed by an {@link ArrayBlockingQueue}
+ */
+final class BlockingMetricsBuffer implements MetricsBuffer {
+
+    /**
+     * Queue holding the metrics
+     */
+    private final ArrayBlockingQueue<DataPoint> queue;
+
+    /**
+     * @param capacity maximum number of metrics to hold
+     */
+    BlockingMetricsBuffer(final int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(final DataPoint dataPoint) {
+        return this.queue.offer(dataPoint);
+    }
+
+    @Override
+    public boolean offer(final DataPoint dataPoint, final long timeout, final TimeUnit unit) {
+        try {
+            return this.queue.offer(dataPoint, timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public DataPoint poll() {
+        return this.queue.poll();
+    }
+
+    @Override
+    public int drainTo(final Collection<? super DataPoint> target, final int maxElements) {
+        return this.queue.drainTo(target, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return this.queue.size();
+    }
+}
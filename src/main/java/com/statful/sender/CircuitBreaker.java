@@ -0,0 +1,163 @@
+package com.statful.sender;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending to an endpoint after consecutive failures. While open, batches are refused until the reset timeout
+ * elapses, after which a single probe is let through per reset timeout: its success closes the circuit, its failure
+ * opens it again.
+ */
+final class CircuitBreaker {
+
+    /**
+     * Logger for state changes
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * States of the circuit
+     */
+    enum State {
+        /**
+         * Requests flow normally
+         */
+        CLOSED,
+        /**
+         * Requests are refused
+         */
+        OPEN,
+        /**
+         * A probe request decides whether to close or open the circuit
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Number of consecutive failures that open the circuit, zero or less never opens it
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time in nanoseconds the circuit stays open before a probe is let through
+     */
+    private final long resetTimeout;
+
+    /**
+     * Source of time in nanoseconds
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Current state
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Number of consecutive failures while closed
+     */
+    private int failures;
+
+    /**
+     * Time in nanoseconds the circuit opened, or the last probe was let through
+     */
+    private long since;
+
+    /**
+     * Number of times the circuit opened
+     */
+    private long opened;
+
+    /**
+     * @param failureThreshold number of consecutive failures that open the circuit, zero or less never opens it
+     * @param resetTimeout     time in milliseconds the circuit stays open before a probe is let through
+     */
+    CircuitBreaker(final int failureThreshold, final long resetTimeout) {
+        this(failureThreshold, resetTimeout, System::nanoTime);
+    }
+
+    /**
+     * @param failureThreshold number of consecutive failures that open the circuit, zero or less never opens it
+     * @param resetTimeout     time in milliseconds the circuit stays open before a probe is let through
+     * @param clock            source of time in nanoseconds
+     */
+    CircuitBreaker(final int failureThreshold, final long resetTimeout, final LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.resetTimeout = TimeUnit.MILLISECONDS.toNanos(Math.max(0, resetTimeout));
+        this.clock = clock;
+    }
+
+    /**
+     * Checks whether a request may be sent, letting a probe through once the reset timeout elapsed
+     *
+     * @return true if the request may be sent
+     */
+    synchronized boolean tryAcquire() {
+        if (this.state == State.CLOSED) {
+            return true;
+        }
+
+        final long now = this.clock.getAsLong();
+        if (now - this.since < this.resetTimeout) {
+            return false;
+        }
+
+        this.state = State.HALF_OPEN;
+        this.since = now;
+        return true;
+    }
+
+    /**
+     * Same as {@link #tryAcquire()}, without letting a probe through
+     *
+     * @return true if a request would be let through
+     */
+    synchronized boolean isAcquirable() {
+        return this.state == State.CLOSED || this.clock.getAsLong() - this.since >= this.resetTimeout;
+    }
+
+    /**
+     * Records a response from the endpoint, closing the circuit
+     */
+    synchronized void onSuccess() {
+        this.failures = 0;
+        if (this.state != State.CLOSED) {
+            LOGGER.info("Endpoint responded, closing circuit");
+            this.state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Records a failure or timeout, opening the circuit after enough consecutive ones or after a failed probe
+     */
+    synchronized void onFailure() {
+        if (this.failureThreshold <= 0 || this.state == State.OPEN) {
+            return;
+        }
+
+        this.failures++;
+        if (this.state == State.HALF_OPEN || this.failures >= this.failureThreshold) {
+            LOGGER.warn("Opening circuit after " + this.failures + " consecutive failures");
+            this.state = State.OPEN;
+            this.since = this.clock.getAsLong();
+            this.opened++;
+        }
+    }
+
+    /**
+     * @return current state
+     */
+    synchronized State state() {
+        return this.state;
+    }
+
+    /**
+     * @return number of times the circuit opened
+     */
+    synchronized long opened() {
+        return this.opened;
+    }
+}
@@ -0,0 +1,58 @@
+package com.statful.sender;
+
+import io.vertx.core.Context;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link Flusher} that runs the flush on a single Vert.x context, so the signaling thread only pays for scheduling it
+ */
+final class ContextFlusher implements Flusher {
+
+    /**
+     * Context where flushes are executed
+     */
+    private final Context context;
+
+    /**
+     * Flush to be executed
+     */
+    private final Runnable flushTask;
+
+    /**
+     * Set while a flush is scheduled and not yet started, to coalesce signals
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Cleared once stopped
+     */
+    private volatile boolean running = true;
+
+    /**
+     * @param context   context where flushes are executed
+     * @param flushTask flush to be executed on each signal
+     */
+    ContextFlusher(final Context context, final Runnable flushTask) {
+        this.context = Objects.requireNonNull(context);
+        this.flushTask = Objects.requireNonNull(flushTask);
+    }
+
+    @Override
+    public void signal() {
+        if (this.running && this.scheduled.compareAndSet(false, true)) {
+            this.context.runOnContext(aVoid -> {
+                this.scheduled.set(false);
+                if (this.running) {
+                    this.flushTask.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+    }
+}
@@ -0,0 +1,477 @@
+package com.statful.sender;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Write-ahead queue of batches on local disk. Batches are appended to memory mapped segment files, one after the
+ * other, and read back in the same order. Nothing is forced to disk per batch, the page cache takes care of writing
+ * segments out, so appending costs about as much as a memory copy.
+ * <p>
+ * Each record is laid out as [int length][long timestamp][bytes]. A consumed record gets its length negated, so that
+ * segments left behind by a previous process are replayed from where it stopped. Disk space is reclaimed by deleting
+ * whole segments, once they are fully consumed or once they exceed the size or age limits.
+ */
+final class DiskSpillQueue implements Closeable {
+
+    /**
+     * Logger for spill errors
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskSpillQueue.class);
+
+    /**
+     * Extension of segment files
+     */
+    private static final String SEGMENT_EXTENSION = ".spill";
+
+    /**
+     * Size in bytes of a record's header, length and timestamp
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    /**
+     * Releases the mapping of a deleted segment right away. A file stays allocated on disk for as long as it is mapped,
+     * and can't be deleted at all on Windows, so its release can't be left to the garbage collector
+     */
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+    /**
+     * Directory holding the segments
+     */
+    private final Path directory;
+
+    /**
+     * Size in bytes of a new segment
+     */
+    private final int segmentSize;
+
+    /**
+     * Maximum number of bytes on disk
+     */
+    private final long maxDiskBytes;
+
+    /**
+     * Maximum age in milliseconds of a record
+     */
+    private final long maxAge;
+
+    /**
+     * Segments, oldest first. The last one takes appends
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Sequence number of the last segment created
+     */
+    private long sequence;
+
+    /**
+     * Number of bytes taken by the segments
+     */
+    private long diskBytes;
+
+    /**
+     * Number of records lost to the size and age limits
+     */
+    private long dropped;
+
+    /**
+     * @param directory    directory holding the segments, segments already there are recovered
+     * @param segmentSize  size in bytes of a new segment
+     * @param maxDiskBytes maximum number of bytes on disk
+     * @param maxAge       maximum age in milliseconds of a record
+     * @throws IOException if the directory or its segments can't be opened
+     */
+    DiskSpillQueue(@Nonnull final Path directory, final int segmentSize, final long maxDiskBytes, final long maxAge) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize, HEADER_SIZE);
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxAge = maxAge;
+
+        Files.createDirectories(directory);
+        this.recover();
+    }
+
+    private void recover() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + SEGMENT_EXTENSION)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+
+        for (Path file : files) {
+            final String name = file.getFileName().toString();
+            try {
+                this.sequence = Math.max(this.sequence, Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring unexpected file in spill directory: " + file);
+                continue;
+            }
+
+            final Segment segment = Segment.recover(file, Files.getLastModifiedTime(file).toMillis());
+            this.segments.addLast(segment);
+            this.diskBytes += segment.capacity();
+        }
+
+        if (!this.segments.isEmpty()) {
+            LOGGER.info("Recovered " + this.segments.size() + " spill segments from " + this.directory);
+        }
+    }
+
+    /**
+     * Appends a batch to the queue
+     *
+     * @param batch metric lines of the batch
+     */
+    synchronized void append(@Nonnull final Buffer batch) {
+        if (batch.length() == 0) {
+            // a zero length marks the end of a segment's records
+            return;
+        }
+
+        final int recordSize = HEADER_SIZE + batch.length();
+        final long now = System.currentTimeMillis();
+
+        try {
+            Segment current = this.segments.peekLast();
+            if (current == null || current.isSealed() || current.remaining() < recordSize) {
+                current = this.roll(Math.max(this.segmentSize, recordSize), now);
+            }
+            current.append(batch, now);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Takes the oldest batch out of the queue, skipping those older than the maximum age
+     *
+     * @return the oldest batch, or empty if the queue is empty
+     */
+    synchronized Optional<Buffer> poll() {
+        final long oldest = System.currentTimeMillis() - this.maxAge;
+
+        Segment head = this.segments.peekFirst();
+        while (head != null) {
+            final Optional<Buffer> batch = head.next(oldest);
+            this.dropped += head.takeExpired();
+            if (batch.isPresent()) {
+                return batch;
+            }
+            if (!head.isSealed() && this.segments.size() == 1) {
+                // the segment taking appends is kept even when drained
+                return Optional.empty();
+            }
+            this.delete(this.segments.pollFirst(), false);
+            head = this.segments.peekFirst();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return number of bytes taken by the segments on disk
+     */
+    synchronized long diskBytes() {
+        return this.diskBytes;
+    }
+
+    /**
+     * @return number of records lost to the size and age limits
+     */
+    synchronized long dropped() {
+        return this.dropped;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.segments.forEach(Segment::seal);
+    }
+
+    private Segment roll(final int size, final long now) throws IOException {
+        final Segment previous = this.segments.peekLast();
+        if (previous != null) {
+            previous.seal();
+        }
+
+        this.sequence++;
+        final Path file = this.directory.resolve(String.format("%019d%s", this.sequence, SEGMENT_EXTENSION));
+        final Segment segment = Segment.create(file, size, now);
+        this.segments.addLast(segment);
+        this.diskBytes += segment.capacity();
+
+        this.enforceLimits(now);
+        return segment;
+    }
+
+    private void enforceLimits(final long now) {
+        while (this.segments.size() > 1) {
+            final Segment oldest = this.segments.peekFirst();
+            final boolean tooLarge = this.diskBytes > this.maxDiskBytes;
+            final boolean tooOld = oldest.lastAppend() < now - this.maxAge;
+            if (!tooLarge && !tooOld) {
+                return;
+            }
+            this.delete(this.segments.pollFirst(), true);
+        }
+    }
+
+    private void delete(final Segment segment, final boolean dropRecords) {
+        this.diskBytes -= segment.capacity();
+        if (dropRecords) {
+            this.dropped += segment.pendingRecords();
+        }
+
+        // the segment is out of the queue, its mapping is never accessed again
+        UNMAPPER.accept(segment.mapping);
+
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            LOGGER.error("Failed to delete spill segment " + segment.file, e);
+        }
+    }
+
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            // Java 9 and later
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return mapping -> unmap(() -> invokeCleaner.invoke(unsafe, mapping));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Unsafe.invokeCleaner not available, falling back to the buffer's cleaner: " + e);
+        }
+
+        try {
+            // Java 8
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return mapping -> unmap(() -> clean.invoke(cleaner.invoke(mapping)));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Can't unmap spill segments, their disk space is only reclaimed once garbage collected: " + e);
+            return mapping -> { };
+        }
+    }
+
+    private static void unmap(final ReflectiveCall call) {
+        try {
+            call.invoke();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Failed to unmap spill segment: " + e);
+        }
+    }
+
+    /**
+     * A reflective call to a JDK internal
+     */
+    @FunctionalInterface
+    private interface ReflectiveCall {
+
+        void invoke() throws ReflectiveOperationException;
+    }
+
+    /**
+     * A memory mapped segment file
+     */
+    private static final class Segment {
+
+        /**
+         * Path of the segment file
+         */
+        private final Path file;
+
+        /**
+         * Mapping of the whole file
+         */
+        private final MappedByteBuffer mapping;
+
+        /**
+         * Position at which the next record is appended
+         */
+        private int writePosition;
+
+        /**
+         * Position of the next record to be read
+         */
+        private int readPosition;
+
+        /**
+         * Number of records appended and not yet read
+         */
+        private int pending;
+
+        /**
+         * Number of records skipped for being too old, since last taken
+         */
+        private int expired;
+
+        /**
+         * Time in milliseconds of the last append
+         */
+        private long lastAppend;
+
+        /**
+         * Set once the segment takes no more appends
+         */
+        private boolean sealed;
+
+        /**
+         * @param file       path of the segment file
+         * @param mapping    mapping of the whole file
+         * @param lastAppend time in milliseconds of the last append
+         */
+        private Segment(final Path file, final MappedByteBuffer mapping, final long lastAppend) {
+            this.file = file;
+            this.mapping = mapping;
+            this.lastAppend = lastAppend;
+        }
+
+        static Segment create(final Path file, final int size, final long now) throws IOException {
+            return new Segment(file, map(file, size, StandardOpenOption.CREATE_NEW), now);
+        }
+
+        static Segment recover(final Path file, final long lastModified) throws IOException {
+            final Segment segment = new Segment(file, map(file, (int) Files.size(file)), lastModified);
+            segment.sealed = true;
+
+            int position = 0;
+            boolean consumed = true;
+            while (position + HEADER_SIZE <= segment.capacity()) {
+                final int length = segment.mapping.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (length == Integer.MIN_VALUE || (long) position + HEADER_SIZE + Math.abs(length) > segment.capacity()) {
+                    // a truncated or corrupt record, nothing after it can be trusted
+                    LOGGER.warn("Ignoring corrupt spill segment " + file + " past offset " + position);
+                    break;
+                }
+                if (length > 0) {
+                    segment.pending++;
+                } else if (consumed) {
+                    segment.readPosition = position + HEADER_SIZE - length;
+                }
+                consumed = consumed && length < 0;
+                position += HEADER_SIZE + Math.abs(length);
+            }
+            segment.writePosition = position;
+
+            return segment;
+        }
+
+        private static MappedByteBuffer map(final Path file, final int size, final StandardOpenOption... extraOptions) throws IOException {
+            final List<StandardOpenOption> options = new ArrayList<>();
+            options.add(StandardOpenOption.READ);
+            options.add(StandardOpenOption.WRITE);
+            Collections.addAll(options, extraOptions);
+
+            try (FileChannel channel = FileChannel.open(file, options.toArray(new StandardOpenOption[0]))) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        int capacity() {
+            return this.mapping.capacity();
+        }
+
+        int remaining() {
+            return this.capacity() - this.writePosition;
+        }
+
+        boolean isSealed() {
+            return this.sealed;
+        }
+
+        long lastAppend() {
+            return this.lastAppend;
+        }
+
+        int pendingRecords() {
+            return this.pending;
+        }
+
+        void append(final Buffer batch, final long now) {
+            final int length = batch.length();
+            final ByteBuffer target = this.mapping.duplicate();
+            target.position(this.writePosition + HEADER_SIZE);
+            target.limit(this.writePosition + HEADER_SIZE + length);
+            // a slice's byte buf may be a view of its parent, its content starts at the reader index
+            final ByteBuf bytes = batch.getByteBuf();
+            bytes.getBytes(bytes.readerIndex(), target);
+
+            this.mapping.putLong(this.writePosition + Integer.BYTES, now);
+            // the length goes last, a record is only visible once complete
+            this.mapping.putInt(this.writePosition, length);
+
+            this.writePosition += HEADER_SIZE + length;
+            this.lastAppend = now;
+            this.pending++;
+        }
+
+        Optional<Buffer> next(final long oldest) {
+            while (this.readPosition + HEADER_SIZE <= this.writePosition) {
+                final int position = this.readPosition;
+                final int length = this.mapping.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+
+                this.readPosition += HEADER_SIZE + Math.abs(length);
+                if (length < 0) {
+                    continue;
+                }
+
+                this.mapping.putInt(position, -length);
+                this.pending--;
+
+                if (this.mapping.getLong(position + Integer.BYTES) >= oldest) {
+                    final byte[] bytes = new byte[length];
+                    final ByteBuffer source = this.mapping.duplicate();
+                    source.position(position + HEADER_SIZE);
+                    source.get(bytes);
+                    return Optional.of(Buffer.buffer(bytes));
+                }
+                this.expired++;
+            }
+            return Optional.empty();
+        }
+
+        int takeExpired() {
+            final int taken = this.expired;
+            this.expired = 0;
+            return taken;
+        }
+
+        void seal() {
+            if (!this.sealed) {
+                this.sealed = true;
+                this.mapping.force();
+            }
+        }
+    }
+}
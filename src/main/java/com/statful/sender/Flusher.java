@@ -0,0 +1,18 @@
+package com.statful.sender;
+
+/**
+ * Runs the flush of a {@link MetricsHolder} when signaled
+ */
+interface Flusher {
+
+    /**
+     * Requests a flush. Implementations may run it right away or hand it over to another thread, in which case
+     * signals received while a flush is pending are coalesced
+     */
+    void signal();
+
+    /**
+     * Stops accepting signals and releases any resources held
+     */
+    void stop();
+}
@@ -1,20 +1,35 @@
 package com.statful.sender;
 
+import com.statful.client.CircuitBreakerOptions;
+import com.statful.client.Compression;
+import com.statful.client.HttpConnectionOptions;
+import com.statful.client.HttpRetryOptions;
 import com.statful.client.StatfulMetricsOptions;
-import com.statful.metric.DataPoint;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.*;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.Http2Settings;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Responsible for the HTTP transport
@@ -31,11 +46,106 @@ public class HttpSender extends MetricsHolder {
      */
     private static final String TOKEN_HEADER = "M-Api-Token";
 
+    /**
+     * Target of the requests opening connections ahead of time, the server as a whole rather than any of its paths
+     */
+    private static final String PRE_WARM_TARGET = "*";
+
+    /**
+     * Separator between metric lines of coalesced batches
+     */
+    private static final byte LINE_SEPARATOR = '\n';
+
     /**
      * Statful options to configure the sender
      */
     private final StatfulMetricsOptions options;
 
+    /**
+     * Vertx instance used to compress large payloads on a worker thread
+     */
+    private final Vertx vertx;
+
+    /**
+     * Applies the configured content encoding to payloads
+     */
+    private final PayloadCompressor compressor;
+
+    /**
+     * Payloads of at least this number of bytes are compressed on a worker thread
+     */
+    private final int compressionOffloadSize;
+
+    /**
+     * Maximum number of concurrent requests
+     */
+    private final int maxInFlightRequests;
+
+    /**
+     * Maximum number of batches waiting for a request slot
+     */
+    private final int maxPendingRequests;
+
+    /**
+     * Number of requests started and not yet completed
+     */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    /**
+     * Batches waiting for a request slot
+     */
+    private final Queue<Runnable> pendingRequests = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of batches waiting for a request slot, tracked apart since the queue's size is not constant time
+     */
+    private final AtomicInteger pendingRequestCount = new AtomicInteger();
+
+    /**
+     * Configuration of retries of failed batches
+     */
+    private final HttpRetryOptions retryOptions;
+
+    /**
+     * Failed batches waiting to be retried
+     */
+    private final RetryQueue retryQueue;
+
+    /**
+     * Time in milliseconds to connect and to wait for a response, zero or less waits forever
+     */
+    private final int timeout;
+
+    /**
+     * Configuration of the circuit breaker
+     */
+    private final CircuitBreakerOptions circuitBreakerOptions;
+
+    /**
+     * Stops sending batches to an unresponsive endpoint
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Number of batches given up on
+     */
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Identifier of the timer retrying the earliest due batch, negative while none is armed
+     */
+    private long retryTimerId = -1;
+
+    /**
+     * Value of {@link System#nanoTime()} at which the armed retry timer fires
+     */
+    private long retryTimerDueAt;
+
+    /**
+     * Set once the sender is closed, pending retries are then dropped
+     */
+    private volatile boolean closed;
+
     /**
      * Client to send metrics
      */
@@ -49,53 +159,404 @@ public class HttpSender extends MetricsHolder {
         super(options, new Sampler(options, new Random()));
 
         this.options = options;
+        this.vertx = vertx;
+        this.compressor = new PayloadCompressor(Optional.ofNullable(options.getHttpCompression()).orElse(Compression.NONE),
+                options.getHttpCompressionLevel(), options.getHttpCompressionMinSize());
+        this.compressionOffloadSize = options.getHttpCompressionOffloadSize();
+        this.maxInFlightRequests = Math.max(1, options.getHttpMaxInFlightRequests());
+        this.maxPendingRequests = Math.max(0, options.getHttpMaxPendingRequests());
+        this.retryOptions = Optional.ofNullable(options.getHttpRetryOptions()).orElseGet(HttpRetryOptions::new);
+        this.retryQueue = new RetryQueue(this.retryOptions.getMaxQueueBytes(), this::spill);
+        this.timeout = options.getTimeout();
+        this.circuitBreakerOptions = Optional.ofNullable(options.getHttpCircuitBreakerOptions()).orElseGet(CircuitBreakerOptions::new);
+        this.circuitBreaker = new CircuitBreaker(this.circuitBreakerOptions.getFailureThreshold(), this.circuitBreakerOptions.getResetTimeout());
 
         vertx.runOnContext(aVoid -> {
-            final HttpClientOptions httpClientOptions = new HttpClientOptions()
-                    .setDefaultHost(options.getHost())
-                    .setDefaultPort(options.getPort())
-                    .setSsl(options.isSecure());
-
-            this.client = vertx.createHttpClient(httpClientOptions);
+            this.client = vertx.createHttpClient(clientOptions(options));
+            if (Optional.ofNullable(options.getHttpConnectionOptions()).map(HttpConnectionOptions::isPreWarm).orElse(false)) {
+                this.preWarm();
+            }
             this.configureFlushInterval(vertx, this.options.getFlushInterval());
         });
     }
 
+    /**
+     * Builds the http client configuration. With HTTP/2 concurrent batches are multiplexed as streams on a single
+     * connection, negotiated with ALPN over TLS or with prior knowledge over clear text (h2c)
+     *
+     * @param options Statful options to configure the client
+     * @return http client configuration
+     */
+    static HttpClientOptions clientOptions(final StatfulMetricsOptions options) {
+        final HttpClientOptions httpClientOptions = new HttpClientOptions()
+                .setDefaultHost(options.getHost())
+                .setDefaultPort(options.getPort())
+                .setSsl(options.isSecure());
+
+        if (options.getTimeout() > 0) {
+            httpClientOptions.setConnectTimeout(options.getTimeout());
+        }
+
+        final HttpConnectionOptions connection = Optional.ofNullable(options.getHttpConnectionOptions()).orElseGet(HttpConnectionOptions::new);
+        httpClientOptions
+                .setMaxPoolSize(Math.max(1, connection.getMaxPoolSize()))
+                .setKeepAlive(connection.isKeepAlive())
+                .setIdleTimeoutUnit(TimeUnit.MILLISECONDS)
+                .setIdleTimeout(Math.max(0, connection.getIdleTimeout()))
+                .setTcpNoDelay(connection.isTcpNoDelay())
+                .setPipelining(connection.isPipelining())
+                .setPipeliningLimit(Math.max(1, connection.getPipeliningLimit()));
+
+        if (connection.getSendBufferSize() > 0) {
+            httpClientOptions.setSendBufferSize(connection.getSendBufferSize());
+        }
+
+        if (options.getHttpVersion() == HttpVersion.HTTP_2) {
+            httpClientOptions
+                    .setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(options.isSecure())
+                    .setHttp2ClearTextUpgrade(false)
+                    .setHttp2MaxPoolSize(1)
+                    .setHttp2MultiplexingLimit(options.getHttp2MultiplexingLimit());
+
+            if (options.getHttp2WindowSize() > 0) {
+                httpClientOptions
+                        .setHttp2ConnectionWindowSize(options.getHttp2WindowSize())
+                        .setInitialSettings(new Http2Settings().setInitialWindowSize(options.getHttp2WindowSize()));
+            }
+        }
+
+        return httpClientOptions;
+    }
+
+    /**
+     * Opens the connections the first flushes will use, resolving the collector's address and setting up TCP and TLS
+     * ahead of time. Each connection is opened by an unauthenticated OPTIONS request on the server as a whole, which
+     * touches no path and carries no token, returning the connection to the pool once answered
+     */
+    private void preWarm() {
+        int connections = 1;
+        if (this.options.getHttpVersion() != HttpVersion.HTTP_2) {
+            connections = Math.min(this.maxInFlightRequests, Math.max(1, this.options.getHttpConnectionOptions().getMaxPoolSize()));
+        }
+
+        for (int i = 0; i < connections; i++) {
+            final HttpClientRequest request = this.client.request(HttpMethod.OPTIONS, PRE_WARM_TARGET,
+                    response -> response.bodyHandler(body -> LOGGER.debug("Pre-warmed connection, status " + response.statusCode())));
+            request.exceptionHandler(error -> LOGGER.warn("Failed to pre-warm connection: " + error));
+            if (this.timeout > 0) {
+                request.setTimeout(this.timeout);
+            }
+            request.end();
+        }
+    }
+
     @Override
-    public void send(@Nonnull final List<DataPoint> metrics, @Nonnull final Handler<AsyncResult<Void>> sentHandler) {
-        this.bundleAndSend(metrics, sentHandler);
+    void sendBundle(@Nonnull final Buffer payload, @Nullable final Handler<AsyncResult<Void>> handler) {
+        final Optional<Handler<AsyncResult<Void>>> endHandler = Optional.ofNullable(handler);
+
+        if (!this.circuitBreaker.tryAcquire()) {
+            this.discarded.increment();
+            this.spill(payload);
+            LOGGER.warn("Circuit open, discarding " + payload.length() + " bytes of metrics");
+            endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture("Circuit open")));
+            return;
+        }
+
+        final Handler<AsyncResult<Void>> requestHandler = result -> {
+            this.releaseRequest();
+            endHandler.ifPresent(callerHandler -> callerHandler.handle(result));
+        };
+
+        if (this.tryAcquireRequest()) {
+            this.dispatch(payload, requestHandler);
+        } else if (this.pendingRequestCount.incrementAndGet() <= this.maxPendingRequests) {
+            this.pendingRequests.add(() -> this.dispatch(payload, requestHandler));
+            // a request may have completed before the pending one was queued
+            this.runPendingRequests();
+        } else {
+            this.pendingRequestCount.decrementAndGet();
+            this.discarded.increment();
+            this.spill(payload);
+            LOGGER.warn("Too many pending requests, discarding " + payload.length() + " bytes of metrics");
+            endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture("Too many pending requests")));
+        }
+    }
+
+    /**
+     * Sends a new batch, along with as many batches waiting for a retry as fit the request
+     */
+    private void dispatch(final Buffer payload, final Handler<AsyncResult<Void>> requestHandler) {
+        final List<RetryQueue.Entry> batches = new ArrayList<>();
+        batches.add(new RetryQueue.Entry(payload, 0, System.nanoTime()));
+        batches.addAll(this.retryQueue.poll(this.retryOptions.getMaxCoalescedBytes() - payload.length(), false));
+
+        this.encodeAndPut(batches, requestHandler);
     }
 
+    /**
+     * Sends the batches whose backoff has elapsed, unless new batches already took them along, and arms the retry timer
+     * again for the batches still waiting
+     */
+    private void retryDue() {
+        if (this.closed) {
+            return;
+        }
+
+        if (this.circuitBreaker.state() != CircuitBreaker.State.CLOSED) {
+            // retries ride along with the probe, or wait for the circuit to close
+            this.retryIn(this.circuitBreakerOptions.getResetTimeout());
+            return;
+        }
+
+        if (!this.tryAcquireRequest()) {
+            this.retryIn(this.retryOptions.getInitialBackoff());
+            return;
+        }
+
+        final List<RetryQueue.Entry> batches = this.retryQueue.poll(this.retryOptions.getMaxCoalescedBytes(), true);
+        if (batches.isEmpty()) {
+            this.releaseRequest();
+        } else {
+            this.encodeAndPut(batches, result -> this.releaseRequest());
+        }
+
+        this.retryQueue.earliestDueAt().ifPresent(this::armRetryTimer);
+    }
+
+    private void retryIn(final long delay) {
+        if (this.retryQueue.bytes() > 0) {
+            this.armRetryTimer(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay));
+        }
+    }
+
+    /**
+     * Makes sure a single timer fires by the given time, a timer already armed for an earlier time is kept
+     *
+     * @param dueAt value of {@link System#nanoTime()} by which the retry timer must fire
+     */
+    private synchronized void armRetryTimer(final long dueAt) {
+        if (this.closed) {
+            return;
+        }
+
+        if (this.retryTimerId >= 0) {
+            if (this.retryTimerDueAt - dueAt <= 0) {
+                return;
+            }
+            this.vertx.cancelTimer(this.retryTimerId);
+        }
+
+        final long delay = TimeUnit.NANOSECONDS.toMillis(Math.max(0, dueAt - System.nanoTime()));
+        this.retryTimerDueAt = dueAt;
+        this.retryTimerId = this.vertx.setTimer(Math.max(1, delay), this::retryTimerFired);
+    }
+
+    private void retryTimerFired(final long timerId) {
+        synchronized (this) {
+            if (this.retryTimerId != timerId) {
+                return;
+            }
+            this.retryTimerId = -1;
+        }
+        this.retryDue();
+    }
+
+    private synchronized void cancelRetryTimer() {
+        if (this.retryTimerId >= 0) {
+            this.vertx.cancelTimer(this.retryTimerId);
+            this.retryTimerId = -1;
+        }
+    }
+
+    private void retryOrDiscard(final List<RetryQueue.Entry> batches, final boolean retryable, final String reason) {
+        int retried = 0;
+        int bytes = 0;
+
+        for (RetryQueue.Entry batch : batches) {
+            final int attempts = batch.getAttempts() + 1;
+            bytes += batch.getPayload().length();
+
+            if (retryable && !this.closed && attempts <= this.retryOptions.getMaxRetries()) {
+                final long delay = Backoff.delay(this.retryOptions.getInitialBackoff(), this.retryOptions.getMaxBackoff(), attempts);
+                final long dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                if (this.retryQueue.add(new RetryQueue.Entry(batch.getPayload(), attempts, dueAt))) {
+                    this.armRetryTimer(dueAt);
+                    retried++;
+                }
+            } else {
+                this.discarded.increment();
+                if (retryable) {
+                    this.spill(batch.getPayload());
+                }
+            }
+        }
+
+        LOGGER.error("Failed to send metrics: " + reason + " - " + batches.size() + " batches, " + bytes + " bytes, " + retried + " to be retried");
+    }
+
+    /**
+     * @return number of batches given up on, after exhausting retries, failing with a status not worth retrying or
+     * not fitting the retry queue
+     */
+    public long getDiscardedBatchCount() {
+        return this.discarded.sum() + this.retryQueue.discarded();
+    }
+
+    /**
+     * @return number of bytes of failed batches waiting to be retried
+     */
+    public long getRetryQueueBytes() {
+        return this.retryQueue.bytes();
+    }
+
+    /**
+     * @return number of times the circuit breaker opened
+     */
+    public long getCircuitOpenedCount() {
+        return this.circuitBreaker.opened();
+    }
+
+    /**
+     * The sender is saturated once all request slots are taken and its pending queue is full, or while its circuit is
+     * open, the holder then stops draining its buffer and applies its overflow policy instead
+     *
+     * @return true if no more batches should be handed to this sender for now
+     */
     @Override
-    public void send(@Nonnull final List<DataPoint> metrics) {
-        this.bundleAndSend(metrics, null);
+    boolean isSaturated() {
+        return (this.inFlightRequests.get() >= this.maxInFlightRequests && this.pendingRequestCount.get() >= this.maxPendingRequests)
+                || !this.circuitBreaker.isAcquirable();
     }
 
-    private void bundleAndSend(@Nonnull final List<DataPoint> metrics, final Handler<AsyncResult<Void>> endHandler) {
-        this.bundleMetrics(metrics).ifPresent(toSendMetrics -> send(endHandler, toSendMetrics));
+    private boolean tryAcquireRequest() {
+        int current = this.inFlightRequests.get();
+        while (current < this.maxInFlightRequests) {
+            if (this.inFlightRequests.compareAndSet(current, current + 1)) {
+                return true;
+            }
+            current = this.inFlightRequests.get();
+        }
+        return false;
     }
 
-    private void send(final Handler<AsyncResult<Void>> handler, final String toSendMetrics) {
-        final Optional<Handler<AsyncResult<Void>>> endHandler = Optional.ofNullable(handler);
+    private void releaseRequest() {
+        this.inFlightRequests.decrementAndGet();
+        this.runPendingRequests();
+    }
+
+    private void runPendingRequests() {
+        while (!this.pendingRequests.isEmpty() && this.tryAcquireRequest()) {
+            final Runnable request = this.pendingRequests.poll();
+            if (request == null) {
+                // another thread took it, give the slot back
+                this.inFlightRequests.decrementAndGet();
+            } else {
+                this.pendingRequestCount.decrementAndGet();
+                request.run();
+            }
+        }
+    }
+
+    private void encodeAndPut(final List<RetryQueue.Entry> batches, final Handler<AsyncResult<Void>> requestHandler) {
+        final Buffer payload = join(batches);
+
+        if (!this.compressor.shouldCompress(payload)) {
+            this.put(payload, Optional.empty(), batches, requestHandler);
+        } else if (payload.length() < this.compressionOffloadSize) {
+            this.put(this.compressor.compress(payload), Optional.of(this.compressor.contentEncoding()), batches, requestHandler);
+        } else {
+            this.vertx.<Buffer>executeBlocking(future -> future.complete(this.compressor.compress(payload)), false, compressed -> {
+                if (compressed.failed()) {
+                    this.retryOrDiscard(batches, false, "compression failed with " + compressed.cause());
+                    requestHandler.handle(Future.failedFuture(compressed.cause()));
+                } else {
+                    this.put(compressed.result(), Optional.of(this.compressor.contentEncoding()), batches, requestHandler);
+                }
+            });
+        }
+    }
+
+    private static Buffer join(final List<RetryQueue.Entry> batches) {
+        if (batches.size() == 1) {
+            return batches.get(0).getPayload();
+        }
+
+        final Buffer joined = Buffer.buffer(batches.stream().mapToInt(batch -> batch.getPayload().length() + 1).sum());
+        for (int i = 0; i < batches.size(); i++) {
+            if (i > 0) {
+                joined.appendByte(LINE_SEPARATOR);
+            }
+            joined.appendBuffer(batches.get(i).getPayload());
+        }
+        return joined;
+    }
+
+    private void put(final Buffer body, final Optional<String> contentEncoding, final List<RetryQueue.Entry> batches,
+                     final Handler<AsyncResult<Void>> requestHandler) {
+        // a request can fail after its response arrived, make sure it is only accounted for once
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        try {
+            this.startRequest(body, contentEncoding, batches, requestHandler, completed);
+        } catch (RuntimeException e) {
+            // e.g. a closed client, the request slot must still be released
+            this.fail(batches, requestHandler, completed, e);
+        }
+    }
 
+    private void startRequest(final Buffer body, final Optional<String> contentEncoding, final List<RetryQueue.Entry> batches,
+                              final Handler<AsyncResult<Void>> requestHandler, final AtomicBoolean completed) {
         final HttpClientRequest request = client.request(HttpMethod.PUT, options.getHttpMetricsPath(), response -> {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+
             if (response.statusCode() != HttpResponseStatus.CREATED.code()) {
-                LOGGER.error("Failed to send metrics: " + response.statusMessage() + " - Payload: " + toSendMetrics);
-                endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture(response.statusMessage())));
+                final boolean retryable = this.retryOptions.getRetryableStatusCodes().contains(response.statusCode());
+                if (retryable) {
+                    this.circuitBreaker.onFailure();
+                } else {
+                    this.circuitBreaker.onSuccess();
+                }
+                this.retryOrDiscard(batches, retryable, response.statusCode() + " " + response.statusMessage());
+                requestHandler.handle(Future.failedFuture(response.statusMessage()));
             } else {
-                endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.succeededFuture()));
+                this.circuitBreaker.onSuccess();
+                requestHandler.handle(Future.succeededFuture());
             }
         });
 
+        // timeouts end up here as well
+        request.exceptionHandler(error -> this.fail(batches, requestHandler, completed, error));
+
+        if (this.timeout > 0) {
+            request.setTimeout(this.timeout);
+        }
+
         request.putHeader(TOKEN_HEADER, options.getToken());
+        contentEncoding.ifPresent(encoding -> request.putHeader(HttpHeaders.CONTENT_ENCODING, encoding));
 
-        request.end(toSendMetrics);
+        request.end(body);
+    }
+
+    private void fail(final List<RetryQueue.Entry> batches, final Handler<AsyncResult<Void>> requestHandler,
+                      final AtomicBoolean completed, final Throwable error) {
+        if (completed.compareAndSet(false, true)) {
+            this.circuitBreaker.onFailure();
+            this.retryOrDiscard(batches, true, String.valueOf(error));
+            requestHandler.handle(Future.failedFuture(error));
+        }
     }
 
     @Override
     public void close(final Handler<AsyncResult<Void>> handler) {
         final Optional<Handler<AsyncResult<Void>>> closeHandler = Optional.ofNullable(handler);
 
+        this.stopFlushing();
+        this.closed = true;
+        this.cancelRetryTimer();
+
         try {
             this.client.close();
             closeHandler.ifPresent(close -> close.handle(Future.succeededFuture()));
@@ -0,0 +1,30 @@
+package com.statful.sender;
+
+import java.util.Objects;
+
+/**
+ * {@link Flusher} that runs the flush on the signaling thread
+ */
+final class InlineFlusher implements Flusher {
+
+    /**
+     * Flush to be executed
+     */
+    private final Runnable flushTask;
+
+    /**
+     * @param flushTask flush to be executed on each signal
+     */
+    InlineFlusher(final Runnable flushTask) {
+        this.flushTask = Objects.requireNonNull(flushTask);
+    }
+
+    @Override
+    public void signal() {
+        this.flushTask.run();
+    }
+
+    @Override
+    public void stop() {
+    }
+}
@@ -0,0 +1,183 @@
+package com.statful.sender;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative values in log-linear buckets, in the way of HdrHistogram: values are grouped by their
+ * power of two and each group is split in linear sub-buckets, so that every recorded value is kept to the configured
+ * number of significant digits while memory only depends on the range, never on the number of values.
+ * Not thread safe, callers serialize the updates
+ */
+final class LogLinearHistogram {
+
+    /**
+     * Largest supported number of significant digits
+     */
+    private static final int MAX_SIGNIFICANT_DIGITS = 5;
+
+    /**
+     * Base of the significant digits
+     */
+    private static final double DECIMAL_BASE = 10;
+
+    /**
+     * Percentage of all values
+     */
+    private static final double HUNDRED = 100;
+
+    /**
+     * Largest value tracked, larger ones are recorded as it
+     */
+    private final long highestTrackableValue;
+
+    /**
+     * Number of linear sub-buckets in each power of two
+     */
+    private final int subBucketCount;
+
+    /**
+     * Half of the sub-buckets, the lower half of each bucket overlaps the previous one
+     */
+    private final int subBucketHalfCount;
+
+    /**
+     * Base two logarithm of the half of the sub-buckets
+     */
+    private final int subBucketHalfCountMagnitude;
+
+    /**
+     * Mask of the bits indexing a sub-bucket
+     */
+    private final long subBucketMask;
+
+    /**
+     * Number of leading zeros of the values falling in the first bucket
+     */
+    private final int leadingZeroCountBase;
+
+    /**
+     * Number of values in each sub-bucket
+     */
+    private final int[] counts;
+
+    /**
+     * Number of values recorded
+     */
+    private long totalCount;
+
+    /**
+     * Largest value recorded
+     */
+    private long maxValue;
+
+    /**
+     * @param highestTrackableValue largest value tracked, at least 2
+     * @param significantDigits     number of significant digits kept, between 1 and 5
+     */
+    LogLinearHistogram(final long highestTrackableValue, final int significantDigits) {
+        checkRange(highestTrackableValue, significantDigits);
+        this.highestTrackableValue = highestTrackableValue;
+
+        // enough sub-buckets to tell apart two values differing in their last significant digit
+        final long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(DECIMAL_BASE, significantDigits);
+        final int subBucketCountMagnitude = Long.SIZE - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketCount = 1 << subBucketCountMagnitude;
+        this.subBucketHalfCount = this.subBucketCount / 2;
+        this.subBucketMask = this.subBucketCount - 1;
+        this.leadingZeroCountBase = Long.SIZE - this.subBucketHalfCountMagnitude - 1;
+
+        int bucketCount = 1;
+        long smallestUntrackableValue = this.subBucketCount;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.counts = new int[(bucketCount + 1) * this.subBucketHalfCount];
+    }
+
+    /**
+     * @param highestTrackableValue largest value tracked, at least 2
+     * @param significantDigits     number of significant digits kept, between 1 and 5
+     * @throws IllegalArgumentException if the range is not supported
+     */
+    static void checkRange(final long highestTrackableValue, final int significantDigits) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("highestTrackableValue must be at least 2");
+        }
+        if (significantDigits < 1 || significantDigits > MAX_SIGNIFICANT_DIGITS) {
+            throw new IllegalArgumentException("significantDigits must be between 1 and " + MAX_SIGNIFICANT_DIGITS);
+        }
+    }
+
+    /**
+     * @param value value to record, negative values are recorded as 0 and values beyond the range as its highest value
+     */
+    void record(final long value) {
+        final long tracked = Math.min(Math.max(value, 0), this.highestTrackableValue);
+        this.counts[this.countsIndex(tracked)]++;
+        this.totalCount++;
+        this.maxValue = Math.max(this.maxValue, tracked);
+    }
+
+    /**
+     * Forgets the values recorded, keeping the sub-buckets so that the histogram is reused rather than allocated again
+     */
+    void reset() {
+        Arrays.fill(this.counts, 0);
+        this.totalCount = 0;
+        this.maxValue = 0;
+    }
+
+    /**
+     * @return number of values recorded
+     */
+    long getTotalCount() {
+        return this.totalCount;
+    }
+
+    /**
+     * @param percentile percentile to compute, between 0 and 100
+     * @return the largest value equivalent to the one at the given percentile, 0 if nothing was recorded
+     */
+    long getValueAtPercentile(final double percentile) {
+        final long target = Math.max(1, (long) Math.ceil(Math.min(percentile, HUNDRED) / HUNDRED * this.totalCount));
+
+        long seen = 0;
+        for (int index = 0; index < this.counts.length; index++) {
+            seen += this.counts[index];
+            if (seen >= target) {
+                return Math.min(this.highestEquivalentValue(this.valueFromIndex(index)), this.maxValue);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return number of sub-buckets, the memory taken by the histogram
+     */
+    int getBucketCount() {
+        return this.counts.length;
+    }
+
+    private int countsIndex(final long value) {
+        final int bucketIndex = this.leadingZeroCountBase - Long.numberOfLeadingZeros(value | this.subBucketMask);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << this.subBucketHalfCountMagnitude) + (subBucketIndex - this.subBucketHalfCount);
+    }
+
+    private long valueFromIndex(final int index) {
+        int bucketIndex = (index >> this.subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (this.subBucketHalfCount - 1)) + this.subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= this.subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long highestEquivalentValue(final long value) {
+        final int bucketIndex = this.leadingZeroCountBase - Long.numberOfLeadingZeros(value | this.subBucketMask);
+        return value + (1L << bucketIndex) - 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.statful.sender;
+
+import com.statful.metric.DataPoint;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded buffer that holds metrics until they are flushed. Implementations must be safe to use by several producer
+ * threads at the same time
+ */
+interface MetricsBuffer {
+
+    /**
+     * Inserts a metric if there is space available
+     *
+     * @param dataPoint metric to be stored
+     * @return true if the metric was inserted false if the buffer is full
+     */
+    boolean offer(DataPoint dataPoint);
+
+    /**
+     * Inserts a metric, waiting up to the given time for space to become available
+     *
+     * @param dataPoint metric to be stored
+     * @param timeout   how long to wait before giving up
+     * @param unit      unit of the timeout
+     * @return true if the metric was inserted false if the buffer was still full when the timeout elapsed
+     */
+    boolean offer(DataPoint dataPoint, long timeout, TimeUnit unit);
+
+    /**
+     * Removes the oldest metric from the buffer
+     *
+     * @return the removed metric or null if the buffer is empty
+     */
+    DataPoint poll();
+
+    /**
+     * Removes at most the given number of metrics from the buffer and adds them to the given collection
+     *
+     * @param target      collection to transfer the metrics into
+     * @param maxElements maximum number of metrics to transfer
+     * @return number of metrics transferred
+     */
+    int drainTo(Collection<? super DataPoint> target, int maxElements);
+
+    /**
+     * @return number of metrics currently in the buffer
+     */
+    int size();
+}
@@ -1,17 +1,34 @@
 package com.statful.sender;
 
 import com.google.common.collect.Lists;
+import com.statful.client.BufferType;
+import com.statful.client.FlushMode;
+import com.statful.client.OverflowPolicy;
+import com.statful.client.SpillOptions;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.metric.DataPoint;
+import com.statful.metric.MetricLineBuilder;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -21,10 +38,36 @@ abstract class MetricsHolder implements Sender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHolder.class);
 
+    /**
+     * Separator between metric lines in a bundle
+     */
+    private static final byte LINE_SEPARATOR = '\n';
+
+    /**
+     * Expected length in bytes of a metric line, used to size bundles up front
+     */
+    private static final int ESTIMATED_LINE_LENGTH = 128;
+
+    /**
+     * Time in milliseconds between replays of spilled batches, the replay rate is per second
+     */
+    private static final long REPLAY_INTERVAL = 1000;
+
+    /**
+     * Time in milliseconds after which an unacknowledged batch frees its in-flight slot when no timeout is configured
+     */
+    private static final long DEFAULT_ACK_TIMEOUT = 60000;
+
+    /**
+     * Multiple of the configured timeout after which an unacknowledged batch frees its in-flight slot, leaving the
+     * transport time to fail the batch itself
+     */
+    private static final int ACK_TIMEOUT_FACTOR = 2;
+
     /**
      * Buffer to hold metrics
      */
-    private final ArrayBlockingQueue<DataPoint> buffer;
+    private final MetricsBuffer buffer;
 
     /**
      * If set to true will only log the metrics instead of sending them
@@ -36,11 +79,146 @@ abstract class MetricsHolder implements Sender {
      */
     private final int flushSize;
 
+    /**
+     * Maximum number of metrics held by the buffer
+     */
+    private final int maxBufferSize;
+
     /**
      * Sampler to be used to decide if a metric should be added or not
      */
     private Sampling sampler;
 
+    /**
+     * What to do when a metric is added to a full buffer
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Time in milliseconds to wait for free space when the overflow policy is {@link OverflowPolicy#BLOCK}
+     */
+    private final long offerTimeout;
+
+    /**
+     * Defines on which thread flushes run
+     */
+    private final FlushMode flushMode;
+
+    /**
+     * Runs the flushes, only available after {@link #configureFlushInterval(Vertx, long)} for asynchronous flush modes
+     */
+    private volatile Flusher flusher;
+
+    /**
+     * Vertx instance holding the periodic flush timer
+     */
+    private Vertx timerVertx;
+
+    /**
+     * Id of the periodic flush timer
+     */
+    private long flushTimerId;
+
+    /**
+     * Maximum number of batches sent and not yet acknowledged
+     */
+    private final int maxInFlightBatches;
+
+    /**
+     * Maximum time in nanoseconds a flush cycle keeps pulling batches, zero or less for no limit
+     */
+    private final long cycleTimeBudget;
+
+    /**
+     * Maximum number of bytes a flush cycle sends, zero or less for no limit
+     */
+    private final long cycleByteBudget;
+
+    /**
+     * Time in milliseconds after which a batch the transport never acknowledged frees its in-flight slot
+     */
+    private final long ackTimeout;
+
+    /**
+     * Number of batches sent and not yet acknowledged
+     */
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    /**
+     * Number of batches whose acknowledgement didn't arrive in time
+     */
+    private final LongAdder unacknowledged = new LongAdder();
+
+    /**
+     * Set while a flush cycle is running, only one cycle runs at a time
+     */
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    /**
+     * Set when a flush is requested, cleared by the cycle serving it
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /**
+     * Set when the buffer overflowed with spilling enabled, for the next flush cycle to move its backlog to disk
+     */
+    private final AtomicBoolean spillRequested = new AtomicBoolean();
+
+    /**
+     * Number of bytes bundled to be sent
+     */
+    private final LongAdder bundledBytes = new LongAdder();
+
+    /**
+     * Number of older metrics evicted from the buffer to make room for new ones
+     */
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Number of new metrics discarded because the buffer was full
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * On-disk queue for batches that could not be delivered, null when disabled
+     */
+    private final DiskSpillQueue spillQueue;
+
+    /**
+     * Number of spilled batches replayed per second
+     */
+    private final int replayRate;
+
+    /**
+     * Id of the periodic replay timer
+     */
+    private long replayTimerId;
+
+    /**
+     * Outcome of the last batch sent, spilled batches are only probed while the transport is failing
+     */
+    private volatile boolean transportHealthy = true;
+
+    /**
+     * Time in nanoseconds a failing sender waits before it is considered healthy again, to probe its transport
+     */
+    private final long healthRetryInterval;
+
+    /**
+     * Value of {@link System#nanoTime()} from which a failing sender is considered healthy again
+     */
+    private volatile long healthRetryAt;
+
+    /**
+     * Number of batches written to the spill queue
+     */
+    private final LongAdder spilled = new LongAdder();
+
+    /**
+     * Number of batches replayed from the spill queue
+     */
+    private final LongAdder replayed = new LongAdder();
+
     /**
      * Initializes the internal buffer. Implementers must call {@link #configureFlushInterval(Vertx, long)} to init
      * the process of sending metrics
@@ -53,13 +231,66 @@ abstract class MetricsHolder implements Sender {
 
         this.sampler = Objects.requireNonNull(sampler);
 
-        this.buffer = new ArrayBlockingQueue<>(options.getMaxBufferSize());
+        this.buffer = createBuffer(options);
 
         this.flushSize = options.getFlushSize();
+
+        this.maxBufferSize = options.getMaxBufferSize();
+
+        this.overflowPolicy = Optional.ofNullable(options.getBufferOverflowPolicy()).orElse(OverflowPolicy.DROP_NEWEST);
+
+        this.offerTimeout = options.getBufferOfferTimeout();
+
+        this.maxInFlightBatches = Math.max(1, options.getMaxInFlightBatches());
+
+        this.cycleTimeBudget = TimeUnit.MILLISECONDS.toNanos(options.getFlushCycleTimeBudget());
+
+        this.cycleByteBudget = options.getFlushCycleByteBudget();
+
+        if (options.getTimeout() > 0) {
+            this.ackTimeout = (long) options.getTimeout() * ACK_TIMEOUT_FACTOR;
+        } else {
+            this.ackTimeout = DEFAULT_ACK_TIMEOUT;
+        }
+
+        this.healthRetryInterval = TimeUnit.MILLISECONDS.toNanos(options.getEndpointRetryInterval());
+
+        this.spillQueue = openSpillQueue(options);
+
+        this.replayRate = Optional.ofNullable(options.getSpillOptions()).map(SpillOptions::getReplayRate).orElse(0);
+
+        this.flushMode = Optional.ofNullable(options.getFlushMode()).orElse(FlushMode.INLINE);
+        if (FlushMode.INLINE.equals(this.flushMode)) {
+            this.flusher = new InlineFlusher(this::flush);
+        }
+    }
+
+    private static DiskSpillQueue openSpillQueue(final StatfulMetricsOptions options) {
+        final SpillOptions spillOptions = options.getSpillOptions();
+        if (spillOptions == null || !spillOptions.isEnabled() || options.isDryrun()) {
+            return null;
+        }
+
+        try {
+            return new DiskSpillQueue(Paths.get(spillOptions.getDirectory()), spillOptions.getSegmentSize(),
+                    spillOptions.getMaxDiskBytes(), spillOptions.getMaxAge());
+        } catch (IOException e) {
+            LOGGER.error("Failed to open spill queue in " + spillOptions.getDirectory() + ", spilling disabled", e);
+            return null;
+        }
+    }
+
+    private static MetricsBuffer createBuffer(final StatfulMetricsOptions options) {
+        if (BufferType.RING.equals(options.getBufferType())) {
+            return new RingMetricsBuffer(options.getMaxBufferSize(), options.getBufferWaitStrategy());
+        }
+        return new BlockingMetricsBuffer(options.getMaxBufferSize());
     }
 
     /**
-     * Adds a metric to the buffer. If it fails to add it to the buffer tries to send it directly to the offer
+     * Adds a metric to the buffer. If the buffer is full the configured {@link OverflowPolicy} decides which metric is
+     * discarded, and a flush is triggered. With spilling enabled that flush also moves the oldest metrics to disk,
+     * so that serializing and writing them doesn't run on the producer's thread
      *
      * @param dataPoint metric to be stored
      * @return true if the metric was inserted false otherwise
@@ -70,59 +301,419 @@ abstract class MetricsHolder implements Sender {
             return false;
         }
 
-        boolean inserted = this.buffer.offer(dataPoint);
+        final boolean inserted = this.insert(dataPoint);
+
+        if (!inserted && this.spillQueue != null) {
+            // the flush signalled below makes room by moving the oldest metrics to disk
+            this.spillRequested.set(true);
+        }
 
         this.flushOnCapacity(inserted);
 
-        if (!inserted && LOGGER.isDebugEnabled()) {
-            // FIXME: This should try to discard older metrics instead
-            LOGGER.debug("Metric could not be added to buffer, discarding: " +  dataPoint.toMetricLine());
+        if (!inserted) {
+            this.rejected.increment();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Metric could not be added to buffer, discarding: " + dataPoint.toMetricLine());
+            }
         }
         return inserted;
     }
 
+    private boolean insert(final DataPoint dataPoint) {
+        switch (this.overflowPolicy) {
+            case DROP_OLDEST:
+                return this.insertEvictingOldest(dataPoint);
+            case BLOCK:
+                return this.insertBlocking(dataPoint);
+            case DROP_NEWEST:
+            default:
+                return this.buffer.offer(dataPoint);
+        }
+    }
+
+    private boolean insertBlocking(final DataPoint dataPoint) {
+        if (this.buffer.offer(dataPoint)) {
+            return true;
+        }
+        if (Context.isOnEventLoopThread()) {
+            return false;
+        }
+
+        // make room before waiting, with inline flushes nothing else drains the buffer until the next periodic flush
+        this.signalFlush();
+        return this.buffer.offer(dataPoint, this.offerTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean insertEvictingOldest(final DataPoint dataPoint) {
+        while (!this.buffer.offer(dataPoint)) {
+            if (this.buffer.poll() != null) {
+                this.evicted.increment();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of older metrics evicted from the buffer to make room for new ones
+     */
+    public final long getEvictedCount() {
+        return this.evicted.sum();
+    }
+
+    /**
+     * @return number of new metrics discarded because the buffer was full
+     */
+    public final long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Moves the oldest metrics to disk, a batch at a time, until the buffer has room for a batch. Runs at the end of
+     * a flush cycle, once the transport took what it could
+     */
+    private void spillBacklog() {
+        final int batchSize = Math.max(1, this.flushSize);
+        while (this.buffer.size() > this.maxBufferSize - batchSize) {
+            final List<DataPoint> backlog = Lists.newArrayListWithCapacity(batchSize);
+            if (this.buffer.drainTo(backlog, batchSize) == 0) {
+                return;
+            }
+            this.bundleMetrics(backlog).ifPresent(this::spill);
+        }
+    }
+
+    /**
+     * Writes a batch that could not be delivered to the spill queue, to be replayed once the transport recovers.
+     * Does nothing if spilling is disabled
+     *
+     * @param bundle metric lines separated by line breaks
+     */
+    final void spill(@Nonnull final Buffer bundle) {
+        if (this.spillQueue == null) {
+            return;
+        }
+
+        try {
+            this.spillQueue.append(bundle);
+            this.spilled.increment();
+        } catch (UncheckedIOException e) {
+            LOGGER.error("Failed to spill " + bundle.length() + " bytes of metrics", e);
+        }
+    }
+
+    /**
+     * A sender is healthy while its last batch went through and it can take more batches. Once the retry interval
+     * elapses after a failure it is considered healthy again, so that new batches probe whether the transport recovered
+     *
+     * @return true if batches handed to this sender are expected to be delivered
+     */
+    boolean isHealthy() {
+        final boolean retryDue = System.nanoTime() - this.healthRetryAt >= 0;
+        return (this.transportHealthy || retryDue) && !this.isSaturated();
+    }
+
+    private void recordOutcome(final boolean succeeded) {
+        if (!succeeded) {
+            this.healthRetryAt = System.nanoTime() + this.healthRetryInterval;
+        }
+        this.transportHealthy = succeeded;
+    }
+
+    /**
+     * @return number of batches written to the spill queue
+     */
+    public final long getSpilledBatchCount() {
+        return this.spilled.sum();
+    }
+
+    /**
+     * @return number of batches replayed from the spill queue
+     */
+    public final long getReplayedBatchCount() {
+        return this.replayed.sum();
+    }
+
+    /**
+     * @return number of batches whose acknowledgement didn't arrive in time, their in-flight slot was freed anyway
+     */
+    public final long getUnacknowledgedBatchCount() {
+        return this.unacknowledged.sum();
+    }
+
+    /**
+     * @return number of metrics waiting in the buffer to be flushed
+     */
+    public final int getBufferedCount() {
+        return this.buffer.size();
+    }
+
     /**
      * If a metric could not be added to the buffer tries to flush the buffer.
-     * Also check if a the buffer has at least as many items as the flush size and tries to flush the buffer
+     * Also check if a the buffer has at least as many items as the flush size and tries to flush the buffer.
+     * In asynchronous flush modes this only signals the flusher, and signals before the flusher exists are ignored
+     * since the periodic flush will pick up the buffered metrics
      */
     private void flushOnCapacity(final boolean inserted) {
         if (!inserted || this.buffer.size() >= flushSize) {
-            this.flush();
+            this.signalFlush();
         }
     }
 
     /**
-     * Methods uses vertx instance to set a periodic interval
+     * Requests a flush cycle, for transports to call once they can take batches again
+     */
+    final void signalFlush() {
+        final Flusher currentFlusher = this.flusher;
+        if (currentFlusher != null) {
+            currentFlusher.signal();
+        }
+    }
+
+    /**
+     * Methods uses vertx instance to set a periodic interval and creates the flusher for asynchronous flush modes.
+     * Must be called from the context that should run the flushes when using {@link FlushMode#CONTEXT}
      *
      * @param vertx         instance to create the periodic interval on
      * @param flushInterval time between flushes
      */
     void configureFlushInterval(final Vertx vertx, final long flushInterval) {
-        vertx.setPeriodic(flushInterval, timerId -> flush());
+        if (FlushMode.CONTEXT.equals(this.flushMode)) {
+            this.flusher = new ContextFlusher(vertx.getOrCreateContext(), this::flush);
+        } else if (FlushMode.THREAD.equals(this.flushMode)) {
+            this.flusher = new ThreadFlusher("statful-metrics-flusher", this::flush);
+        }
+
+        this.timerVertx = vertx;
+        this.flushTimerId = vertx.setPeriodic(flushInterval, timerId -> this.flusher.signal());
+
+        if (this.spillQueue != null) {
+            this.replayTimerId = vertx.setPeriodic(REPLAY_INTERVAL, timerId -> this.replay());
+        }
+    }
+
+    /**
+     * Cancels the periodic flush and stops the flusher. To be called by implementations when closing
+     */
+    void stopFlushing() {
+        if (this.timerVertx != null) {
+            this.timerVertx.cancelTimer(this.flushTimerId);
+        }
+
+        if (this.spillQueue != null) {
+            if (this.timerVertx != null) {
+                this.timerVertx.cancelTimer(this.replayTimerId);
+            }
+            this.spillQueue.close();
+        }
+
+        final Flusher currentFlusher = this.flusher;
+        if (currentFlusher != null) {
+            currentFlusher.stop();
+        }
     }
 
+    /**
+     * Runs flush cycles for as long as they are requested. A flush requested while a cycle is running is left to
+     * that cycle's thread, which runs another cycle once done, so that no request is lost between the cycle's last
+     * drain and its end. Another cycle also runs if the cycle left a backlog of at least flush size behind while the
+     * transport can take more batches, unless it ran out of budget
+     */
     private void flush() {
-        List<DataPoint> toBeSent = Lists.newArrayListWithCapacity(this.flushSize);
-        buffer.drainTo(toBeSent, this.flushSize);
+        this.flushRequested.set(true);
+
+        while (this.flushRequested.get() && this.flushing.compareAndSet(false, true)) {
+            boolean budgetExhausted;
+            try {
+                this.flushRequested.set(false);
+                budgetExhausted = this.flushCycle();
+            } finally {
+                this.flushing.set(false);
+            }
+
+            if (!budgetExhausted && this.flushSize > 0 && this.buffer.size() >= this.flushSize && this.canDispatch()) {
+                this.flushRequested.set(true);
+            }
+        }
+    }
+
+    /**
+     * Runs a flush cycle. Keeps pulling batches of up to flush size metrics until the buffer is empty, the maximum
+     * number of batches in flight is reached or the cycle's time or byte budget runs out. A batch being acknowledged
+     * signals a new cycle if there is still a backlog. If the buffer overflowed with spilling enabled, the cycle then
+     * moves the backlog the transport couldn't take to disk
+     *
+     * @return true if the cycle stopped because it ran out of budget
+     */
+    private boolean flushCycle() {
+        final long cycleStart = System.nanoTime();
+        final long bytesAtStart = this.bundledBytes.sum();
+        boolean budgetExhausted = false;
+
+        while (!budgetExhausted && this.canDispatch()) {
+            final List<DataPoint> toBeSent = Lists.newArrayListWithCapacity(this.flushSize);
+            if (this.buffer.drainTo(toBeSent, this.flushSize) == 0) {
+                break;
+            }
+
+            this.flushBatch(toBeSent);
+            budgetExhausted = this.isBudgetExhausted(cycleStart, bytesAtStart);
+        }
+
+        if (this.spillRequested.getAndSet(false)) {
+            this.spillBacklog();
+        }
+        return budgetExhausted;
+    }
+
+    private boolean canDispatch() {
+        return this.inFlightBatches.get() < this.maxInFlightBatches && !this.isSaturated();
+    }
 
+    private boolean isBudgetExhausted(final long cycleStart, final long bytesAtStart) {
+        final boolean timeExhausted = this.cycleTimeBudget > 0 && System.nanoTime() - cycleStart >= this.cycleTimeBudget;
+        final boolean bytesExhausted = this.cycleByteBudget > 0 && this.bundledBytes.sum() - bytesAtStart >= this.cycleByteBudget;
+        return timeExhausted || bytesExhausted;
+    }
+
+    private void flushBatch(final List<DataPoint> toBeSent) {
         if (dryrun) {
             final String toSendMetrics = toBeSent.stream().map(DataPoint::toMetricLine).collect(Collectors.joining("\n"));
             LOGGER.debug("Dryrun: " + toSendMetrics);
-        } else {
-            this.send(toBeSent);
+            return;
+        }
+
+        this.bundleMetrics(toBeSent).ifPresent(this::dispatch);
+    }
+
+    /**
+     * Replays spilled batches, at the configured rate while the transport is healthy and one at a time to probe it
+     * while it is failing
+     */
+    private void replay() {
+        int budget = 1;
+        if (this.transportHealthy) {
+            budget = Math.max(1, this.replayRate);
+        }
+
+        for (int i = 0; i < budget && this.canDispatch(); i++) {
+            final Optional<Buffer> batch = this.spillQueue.poll();
+            if (!batch.isPresent()) {
+                return;
+            }
+            this.replayed.increment();
+            this.dispatch(batch.get());
+        }
+    }
+
+    private void dispatch(final Buffer bundle) {
+        this.inFlightBatches.incrementAndGet();
+        this.bundledBytes.add(bundle.length());
+
+        // the slot is freed once, by the acknowledgement or by the deadline of a transport that never answers
+        final AtomicBoolean released = new AtomicBoolean();
+        final long deadlineTimerId = this.scheduleAckDeadline(released);
+        try {
+            this.sendBundle(bundle, result -> {
+                this.cancelAckDeadline(deadlineTimerId);
+                this.recordOutcome(result.succeeded());
+                this.release(released);
+            });
+        } catch (RuntimeException e) {
+            this.cancelAckDeadline(deadlineTimerId);
+            this.release(released);
+            throw e;
+        }
+    }
+
+    private long scheduleAckDeadline(final AtomicBoolean released) {
+        if (this.timerVertx == null) {
+            return -1;
+        }
+        return this.timerVertx.setTimer(this.ackTimeout, timerId -> {
+            if (!released.get()) {
+                LOGGER.warn("Batch not acknowledged after " + this.ackTimeout + "ms, freeing its in-flight slot");
+                this.unacknowledged.increment();
+                this.recordOutcome(false);
+                this.release(released);
+            }
+        });
+    }
+
+    private void cancelAckDeadline(final long timerId) {
+        if (timerId >= 0) {
+            this.timerVertx.cancelTimer(timerId);
+        }
+    }
+
+    private void release(final AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        this.inFlightBatches.decrementAndGet();
+        if (this.buffer.size() >= this.flushSize) {
+            this.signalFlush();
+        }
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics, @Nonnull final Handler<AsyncResult<Void>> sentHandler) {
+        this.bundleAndSend(metrics, sentHandler);
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics) {
+        this.bundleAndSend(metrics, null);
+    }
+
+    private void bundleAndSend(@Nonnull final List<DataPoint> metrics, @Nullable final Handler<AsyncResult<Void>> sentHandler) {
+        final Optional<Buffer> bundle = this.bundleMetrics(metrics);
+
+        if (bundle.isPresent()) {
+            this.bundledBytes.add(bundle.get().length());
+            this.sendBundle(bundle.get(), sentHandler);
+        } else if (sentHandler != null) {
+            sentHandler.handle(Future.succeededFuture());
         }
     }
 
     /**
-     * Collects a list of metrics into a single String separated by line breaks
+     * Lets transports push back on the flush cycle. While saturated the buffer is not drained, so new metrics are
+     * handled by the overflow policy instead of piling up in the transport
+     *
+     * @return true if the transport can't take more batches for now
+     */
+    boolean isSaturated() {
+        return false;
+    }
+
+    /**
+     * Sends metrics already bundled into their line protocol representation
+     *
+     * @param bundle      metric lines separated by line breaks
+     * @param sentHandler optional handler to be notified after the metrics are sent
+     */
+    abstract void sendBundle(@Nonnull Buffer bundle, @Nullable Handler<AsyncResult<Void>> sentHandler);
+
+    /**
+     * Writes a list of metrics into a single Buffer separated by line breaks
      * @param metrics a list of datapoints to be bundled
      * @return An empty optional if the list is null or empty, or an optional containing the bundled metrics
      */
-    Optional<String> bundleMetrics(final List<DataPoint> metrics) {
+    Optional<Buffer> bundleMetrics(final List<DataPoint> metrics) {
         if (metrics == null || metrics.isEmpty()) {
             return Optional.empty();
         }
 
-        return Optional.of(metrics.stream().map(DataPoint::toMetricLine).collect(Collectors.joining("\n")));
+        final Buffer bundle = Buffer.buffer(metrics.size() * ESTIMATED_LINE_LENGTH);
+        // points that build their lines all reuse the same builder and its encoding buffers
+        final MetricLineBuilder scratch = new MetricLineBuilder();
+        for (int i = 0; i < metrics.size(); i++) {
+            if (i > 0) {
+                bundle.appendByte(LINE_SEPARATOR);
+            }
+            metrics.get(i).writeTo(bundle, scratch);
+        }
+
+        return Optional.of(bundle);
     }
 }
@@ -0,0 +1,132 @@
+package com.statful.sender;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.statful.client.EndpointMode;
+import com.statful.metric.DataPoint;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads metrics over the senders of several endpoints. In failover mode everything goes to the first healthy
+ * sender, in the configured order, and a sender whose transport failed is tried again after the endpoint retry
+ * interval, so metrics fail back to the primary once it recovers. In sharding mode each series goes to one sender, chosen by consistent hashing of
+ * its key, so that a series is never split across endpoints and adding an endpoint only moves a share of the series
+ */
+public final class MultiEndpointSender implements Sender {
+
+    /**
+     * Hashes series keys before picking their shard
+     */
+    private static final HashFunction SERIES_HASH = Hashing.murmur3_32();
+
+    /**
+     * Senders of each endpoint, in the configured order
+     */
+    private final List<MetricsHolder> senders;
+
+    /**
+     * Way of spreading metrics over the endpoints
+     */
+    private final EndpointMode mode;
+
+    /**
+     * @param senders senders of each endpoint, in the configured order
+     * @param mode    way of spreading metrics over the endpoints
+     */
+    MultiEndpointSender(@Nonnull final List<MetricsHolder> senders, @Nonnull final EndpointMode mode) {
+        if (senders.isEmpty()) {
+            throw new IllegalArgumentException("at least one endpoint sender is required");
+        }
+        this.senders = ImmutableList.copyOf(senders);
+        this.mode = mode;
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics, @Nonnull final Handler<AsyncResult<Void>> sentHandler) {
+        if (this.mode == EndpointMode.FAILOVER) {
+            this.active().send(metrics, sentHandler);
+            return;
+        }
+
+        final Map<MetricsHolder, List<DataPoint>> shards = metrics.stream().collect(Collectors.groupingBy(this::shard));
+        final List<Future<Void>> sent = new ArrayList<>(shards.size());
+        shards.forEach((sender, shard) -> {
+            final Future<Void> shardSent = Future.future();
+            sender.send(shard, shardSent);
+            sent.add(shardSent);
+        });
+
+        CompositeFuture.all(new ArrayList<>(sent)).setHandler(result -> sentHandler.handle(result.mapEmpty()));
+    }
+
+    @Override
+    public void send(@Nonnull final List<DataPoint> metrics) {
+        if (this.mode == EndpointMode.FAILOVER) {
+            this.active().send(metrics);
+        } else {
+            metrics.stream().collect(Collectors.groupingBy(this::shard)).forEach(MetricsHolder::send);
+        }
+    }
+
+    @Override
+    public boolean addMetric(final DataPoint dataPoint) {
+        if (this.mode == EndpointMode.FAILOVER) {
+            return this.active().addMetric(dataPoint);
+        }
+        return this.shard(dataPoint).addMetric(dataPoint);
+    }
+
+    /**
+     * @return the first healthy sender, or the primary one if none is
+     */
+    MetricsHolder active() {
+        for (MetricsHolder sender : this.senders) {
+            if (sender.isHealthy()) {
+                return sender;
+            }
+        }
+        return this.senders.get(0);
+    }
+
+    /**
+     * @param dataPoint metric to route
+     * @return the sender owning the metric's series
+     */
+    MetricsHolder shard(final DataPoint dataPoint) {
+        final int hash = SERIES_HASH.hashString(dataPoint.seriesKey(), StandardCharsets.UTF_8).asInt();
+        return this.senders.get(Hashing.consistentHash(hash, this.senders.size()));
+    }
+
+    /**
+     * @return senders of each endpoint, in the configured order
+     */
+    List<MetricsHolder> getSenders() {
+        return this.senders;
+    }
+
+    @Override
+    public void close(final Handler<AsyncResult<Void>> handler) {
+        final List<Future<Void>> closed = this.senders.stream().map(sender -> {
+            final Future<Void> senderClosed = Future.future();
+            sender.close(senderClosed);
+            return senderClosed;
+        }).collect(Collectors.toList());
+
+        CompositeFuture.all(new ArrayList<>(closed)).setHandler(result -> {
+            if (handler != null) {
+                handler.handle(result.mapEmpty());
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.statful.sender;
+
+import com.statful.client.Compression;
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses HTTP payloads with the configured content encoding
+ */
+final class PayloadCompressor {
+
+    /**
+     * Metric lines compress well, start the output at a fraction of the input
+     */
+    private static final int EXPECTED_RATIO = 8;
+
+    /**
+     * Content encoding to apply
+     */
+    private final Compression compression;
+
+    /**
+     * Deflate compression level
+     */
+    private final int level;
+
+    /**
+     * Payloads smaller than this number of bytes are not compressed
+     */
+    private final int minSize;
+
+    /**
+     * @param compression content encoding to apply
+     * @param level       deflate compression level
+     * @param minSize     payloads smaller than this number of bytes are not compressed
+     */
+    PayloadCompressor(@Nonnull final Compression compression, final int level, final int minSize) {
+        this.compression = compression;
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+        this.minSize = minSize;
+    }
+
+    /**
+     * @param payload payload to be sent
+     * @return true if the payload should be compressed before being sent
+     */
+    boolean shouldCompress(@Nonnull final Buffer payload) {
+        return this.compression != Compression.NONE && payload.length() >= this.minSize;
+    }
+
+    /**
+     * @return value of the Content-Encoding header for compressed payloads
+     */
+    String contentEncoding() {
+        return this.compression.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param payload payload to be compressed
+     * @return the compressed payload
+     */
+    Buffer compress(@Nonnull final Buffer payload) {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(payload.length() / EXPECTED_RATIO, 1));
+
+        try (OutputStream stream = this.wrap(compressed)) {
+            stream.write(payload.getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Buffer.buffer(compressed.toByteArray());
+    }
+
+    private OutputStream wrap(final OutputStream out) throws IOException {
+        if (this.compression == Compression.GZIP) {
+            return new LeveledGzipOutputStream(out, this.level);
+        }
+        return new LeveledDeflaterOutputStream(out, this.level);
+    }
+
+    /**
+     * GZIPOutputStream only exposes its deflater to subclasses, used to apply the configured level
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        /**
+         * @param out   stream receiving the compressed bytes
+         * @param level deflate compression level
+         * @throws IOException if the gzip header can't be written
+         */
+        LeveledGzipOutputStream(final OutputStream out, final int level) throws IOException {
+            super(out);
+            this.def.setLevel(level);
+        }
+    }
+
+    /**
+     * DeflaterOutputStream that owns, and therefore releases on close, a deflater with the configured level
+     */
+    private static final class LeveledDeflaterOutputStream extends DeflaterOutputStream {
+
+        /**
+         * @param out   stream receiving the compressed bytes
+         * @param level deflate compression level
+         */
+        LeveledDeflaterOutputStream(final OutputStream out, final int level) {
+            super(out, new Deflater(level));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                this.def.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.statful.sender;
+
+import io.vertx.core.buffer.Buffer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Batches waiting to be retried, bounded by their total size in bytes. Once full, the oldest batches are discarded
+ */
+final class RetryQueue {
+
+    /**
+     * Batches waiting to be retried, oldest first
+     */
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Maximum number of bytes held
+     */
+    private final long maxBytes;
+
+    /**
+     * Number of bytes held
+     */
+    private long bytes;
+
+    /**
+     * Number of batches discarded to keep the queue within its bound
+     */
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Receives the payload of each discarded batch
+     */
+    private final Consumer<Buffer> onDiscard;
+
+    /**
+     * @param maxBytes maximum number of bytes held
+     */
+    RetryQueue(final long maxBytes) {
+        this(maxBytes, payload -> { });
+    }
+
+    /**
+     * @param maxBytes  maximum number of bytes held
+     * @param onDiscard receives the payload of each discarded batch
+     */
+    RetryQueue(final long maxBytes, @Nonnull final Consumer<Buffer> onDiscard) {
+        this.maxBytes = maxBytes;
+        this.onDiscard = onDiscard;
+    }
+
+    /**
+     * Adds a batch, discarding the oldest ones if needed to make room
+     *
+     * @param entry batch to be retried
+     * @return true if the batch was added, false if it doesn't fit the queue at all
+     */
+    synchronized boolean add(@Nonnull final Entry entry) {
+        final int length = entry.getPayload().length();
+        if (length > this.maxBytes) {
+            this.discarded.increment();
+            this.onDiscard.accept(entry.getPayload());
+            return false;
+        }
+
+        while (this.bytes + length > this.maxBytes) {
+            final Buffer evicted = this.entries.removeFirst().getPayload();
+            this.bytes -= evicted.length();
+            this.discarded.increment();
+            this.onDiscard.accept(evicted);
+        }
+
+        this.entries.addLast(entry);
+        this.bytes += length;
+        return true;
+    }
+
+    /**
+     * Takes batches, oldest first, for as long as they fit the given size. When only taking due batches the oldest due
+     * one is taken even if larger, so that it is eventually retried on its own
+     *
+     * @param budget  maximum number of bytes to take
+     * @param dueOnly true to only take batches whose backoff has elapsed
+     * @return batches taken from the queue
+     */
+    synchronized List<Entry> poll(final long budget, final boolean dueOnly) {
+        if (this.entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final long now = System.nanoTime();
+        final List<Entry> taken = new ArrayList<>();
+        long remaining = budget;
+
+        final Iterator<Entry> iterator = this.entries.iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            final int length = entry.getPayload().length();
+            final boolean fits = length <= remaining || (dueOnly && taken.isEmpty());
+            if (!fits) {
+                break;
+            }
+            if (!dueOnly || entry.getDueAt() - now <= 0) {
+                iterator.remove();
+                taken.add(entry);
+                this.bytes -= length;
+                remaining -= length;
+            }
+        }
+
+        return taken;
+    }
+
+    /**
+     * @return earliest value of {@link System#nanoTime()} from which a held batch may be retried, empty if none is held
+     */
+    synchronized OptionalLong earliestDueAt() {
+        if (this.entries.isEmpty()) {
+            return OptionalLong.empty();
+        }
+
+        long earliest = this.entries.getFirst().getDueAt();
+        for (Entry entry : this.entries) {
+            if (entry.getDueAt() - earliest < 0) {
+                earliest = entry.getDueAt();
+            }
+        }
+        return OptionalLong.of(earliest);
+    }
+
+    /**
+     * @return number of bytes held
+     */
+    synchronized long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * @return number of batches discarded to keep the queue within its bound
+     */
+    long discarded() {
+        return this.discarded.sum();
+    }
+
+    /**
+     * A batch waiting to be retried
+     */
+    static final class Entry {
+
+        /**
+         * Metric lines of the batch
+         */
+        private final Buffer payload;
+
+        /**
+         * Number of times the batch was already sent
+         */
+        private final int attempts;
+
+        /**
+         * Value of {@link System#nanoTime()} from which the batch may be retried on its own
+         */
+        private final long dueAt;
+
+        /**
+         * @param payload  metric lines of the batch
+         * @param attempts number of times the batch was already sent
+         * @param dueAt    value of {@link System#nanoTime()} from which the batch may be retried on its own
+         */
+        Entry(final Buffer payload, final int attempts, final long dueAt) {
+            this.payload = payload;
+            this.attempts = attempts;
+            this.dueAt = dueAt;
+        }
+
+        /**
+         * @return metric lines of the batch
+         */
+        Buffer getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return number of times the batch was already sent
+         */
+        int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return value of {@link System#nanoTime()} from which the batch may be retried on its own
+         */
+        long getDueAt() {
+            return dueAt;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.statful.sender;
+
+import com.statful.client.WaitStrategy;
+import com.statful.metric.DataPoint;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free bounded {@link MetricsBuffer}. Each slot carries a sequence number that tells producers and consumers if
+ * it can be written or read, so producers only compete on a single compare-and-set of the tail position and never
+ * block each other or the consumer. Draining is expected to be done by a single thread at a time but concurrent
+ * drains, and producers evicting the oldest metric, are still safe.
+ */
+final class RingMetricsBuffer implements MetricsBuffer {
+
+    /**
+     * Time in nanoseconds a producer waiting for free space parks between attempts
+     */
+    private static final long OFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Number of slots in the ring
+     */
+    private final int capacity;
+
+    /**
+     * Slots holding the metrics
+     */
+    private final AtomicReferenceArray<DataPoint> slots;
+
+    /**
+     * Sequence of each slot. A slot is writable for position p when its sequence is p and readable when it is p + 1
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Next position to be claimed by a producer
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to be read by the consumer
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * How producers wait between retries when they lose a race for a slot. Producers waiting for free space with a
+     * timeout always park
+     */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * @param capacity     maximum number of metrics to hold, at least two
+     * @param waitStrategy how producers wait between retries when contended
+     */
+    RingMetricsBuffer(final int capacity, final WaitStrategy waitStrategy) {
+        // a single slot can't tell a published metric apart from a free slot of the next lap
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Ring buffer capacity must be at least 2. Provided: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    @Override
+    public boolean offer(final DataPoint dataPoint) {
+        long position = this.tail.get();
+
+        while (true) {
+            final int index = this.index(position);
+            final long distance = this.sequences.get(index) - position;
+
+            if (distance == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.slots.lazySet(index, dataPoint);
+                    // publishes the slot to the consumer
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                this.idle();
+            } else if (distance < 0) {
+                // the slot still holds a metric from the previous lap, the ring is full
+                return false;
+            }
+            position = this.tail.get();
+        }
+    }
+
+    @Override
+    public boolean offer(final DataPoint dataPoint, final long timeout, final TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (!this.offer(dataPoint)) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            // the ring only frees up once a flush drains it, spinning or yielding until then would burn a core
+            LockSupport.parkNanos(Math.min(remaining, OFFER_PARK_NANOS));
+        }
+        return true;
+    }
+
+    @Override
+    public int drainTo(final Collection<? super DataPoint> target, final int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            final DataPoint dataPoint = this.poll();
+            if (dataPoint == null) {
+                break;
+            }
+            target.add(dataPoint);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        // read head first so that the result is never negative
+        final long currentHead = this.head.get();
+        final long size = this.tail.get() - currentHead;
+        return (int) Math.max(0, Math.min(size, this.capacity));
+    }
+
+    /**
+     * Removes the oldest metric from the ring. Producers may call it concurrently with the consumer to evict metrics
+     *
+     * @return the removed metric or null if there is nothing published to be read
+     */
+    @Override
+    public DataPoint poll() {
+        long position = this.head.get();
+
+        while (true) {
+            final int index = this.index(position);
+            final long distance = this.sequences.get(index) - (position + 1);
+
+            if (distance == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final DataPoint dataPoint = this.slots.get(index);
+                    this.slots.lazySet(index, null);
+                    // hands the slot back to producers for the next lap
+                    this.sequences.lazySet(index, position + this.capacity);
+                    return dataPoint;
+                }
+            } else if (distance < 0) {
+                // empty, or the producer that claimed the slot did not publish it yet
+                return null;
+            }
+            position = this.head.get();
+        }
+    }
+
+    private int index(final long position) {
+        return (int) (position % this.capacity);
+    }
+
+    private void idle() {
+        switch (this.waitStrategy) {
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+                LockSupport.parkNanos(1L);
+                break;
+            case SPIN:
+            default:
+                break;
+        }
+    }
+}
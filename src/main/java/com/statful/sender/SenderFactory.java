@@ -1,5 +1,10 @@
 package com.statful.sender;
 
+import com.statful.client.Aggregation;
+import com.statful.client.AggregationFreq;
+import com.statful.client.Endpoint;
+import com.statful.client.PreAggregationOptions;
+import com.statful.client.SpillOptions;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.client.Transport;
 import io.vertx.core.Vertx;
@@ -7,7 +12,15 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Factory responsible for creating a sender instance to push metrics to Statful
@@ -25,6 +38,90 @@ public final class SenderFactory {
     public Sender create(final Vertx vertx, @Nonnull final StatfulMetricsOptions options) {
         Objects.requireNonNull(options);
 
+        final Sender sender = this.createSender(vertx, options);
+        if (Optional.ofNullable(options.getPreAggregationOptions()).map(PreAggregationOptions::isEnabled).orElse(false)) {
+            if (this.isHttpOnly(options)) {
+                LOGGER.info("aggregating metrics before sending");
+                return new AggregatingSender(vertx, options, sender,
+                        (aggregation, frequency) -> this.createSender(vertx, this.aggregatedOptions(options, aggregation, frequency)));
+            }
+            LOGGER.warn("aggregating metrics before sending, metrics aggregated with count are sent as they are since only http has "
+                    + "an aggregated ingestion path");
+            return new AggregatingSender(vertx, options, sender, null);
+        }
+        return sender;
+    }
+
+    /**
+     * @param options statful options to configure the sender
+     * @return true if all destinations are sent to over http
+     */
+    private boolean isHttpOnly(final StatfulMetricsOptions options) {
+        return Transport.HTTP.equals(options.getTransport())
+                && Stream.concat(options.getEndpoints().stream(), options.getTeeEndpoints().stream())
+                .map(Endpoint::getTransport)
+                .allMatch(transport -> transport == null || Transport.HTTP.equals(transport));
+    }
+
+    /**
+     * Configures the senders of aggregated values, to the collector's ingestion path of their aggregation and
+     * frequency, each spilling to a directory of its own
+     */
+    private StatfulMetricsOptions aggregatedOptions(final StatfulMetricsOptions options, final Aggregation aggregation,
+                                                    final AggregationFreq frequency) {
+        return new StatfulMetricsOptions(options)
+                .setHttpMetricsPath(options.getHttpMetricsPath() + "/aggregation/" + aggregation.getName() + "/frequency/" + frequency.getValue())
+                .setSpillOptions(new SpillOptions(options.getSpillOptions())
+                        .setDirectory(Paths.get(options.getSpillOptions().getDirectory(),
+                                "aggregation_" + aggregation.getName() + "_" + frequency.getValue()).toString()));
+    }
+
+    private Sender createSender(final Vertx vertx, final StatfulMetricsOptions options) {
+        final List<Endpoint> endpoints = options.getEndpoints();
+        final List<Endpoint> teeEndpoints = options.getTeeEndpoints();
+        if (!endpoints.isEmpty() && !teeEndpoints.isEmpty()) {
+            throw new UnsupportedOperationException("endpoints and teeEndpoints can't be combined");
+        }
+
+        if (!teeEndpoints.isEmpty()) {
+            LOGGER.info("creating tee sender for endpoints " + teeEndpoints);
+            final List<MetricsHolder> destinations = new ArrayList<>();
+            destinations.add(this.createTransport(vertx, this.endpointOptions(options,
+                    new Endpoint(options.getHost(), options.getPort(), options.getTransport()))));
+            teeEndpoints.forEach(endpoint -> destinations.add(this.createTransport(vertx, this.endpointOptions(options, endpoint))));
+            // the tee only encodes and hands batches over, its destinations spill what they fail to send
+            return new TeeSender(vertx, new StatfulMetricsOptions(options)
+                    .setSpillOptions(new SpillOptions(options.getSpillOptions()).setEnabled(false)), destinations);
+        }
+
+        if (endpoints.isEmpty()) {
+            return this.createTransport(vertx, options);
+        }
+
+        LOGGER.info("creating " + options.getEndpointMode() + " sender for endpoints " + endpoints);
+        final List<MetricsHolder> senders = endpoints.stream()
+                .map(endpoint -> this.createTransport(vertx, this.endpointOptions(options, endpoint)))
+                .collect(Collectors.toList());
+        return new MultiEndpointSender(senders, options.getEndpointMode());
+    }
+
+    private StatfulMetricsOptions endpointOptions(final StatfulMetricsOptions options, final Endpoint endpoint) {
+        final Transport transport = Optional.ofNullable(endpoint.getTransport()).orElse(options.getTransport());
+        final String spillDirectory = Optional.ofNullable(endpoint.getTransport())
+                .map(endpointTransport -> endpoint.getHost() + "_" + endpoint.getPort() + "_" + endpointTransport.name().toLowerCase(Locale.ROOT))
+                .orElse(endpoint.getHost() + "_" + endpoint.getPort());
+        return new StatfulMetricsOptions(options)
+                .setHost(endpoint.getHost())
+                .setPort(endpoint.getPort())
+                .setTransport(transport)
+                .setEndpoints(Collections.emptyList())
+                .setTeeEndpoints(Collections.emptyList())
+                // each sender spills to a directory of its own, replaying only its own batches
+                .setSpillOptions(new SpillOptions(options.getSpillOptions())
+                        .setDirectory(Paths.get(options.getSpillOptions().getDirectory(), spillDirectory).toString()));
+    }
+
+    private MetricsHolder createTransport(final Vertx vertx, final StatfulMetricsOptions options) {
         Transport transport = options.getTransport();
         if (Transport.UDP.equals(transport)) {
             LOGGER.info("creating udp sender");
@@ -32,7 +129,13 @@ public final class SenderFactory {
         } else if (Transport.HTTP.equals(transport)) {
             LOGGER.info("creating http sender");
             return new HttpSender(vertx, options);
+        } else if (Transport.TCP.equals(transport)) {
+            LOGGER.info("creating tcp sender");
+            return new TCPSender(vertx, options);
+        } else if (Transport.UNIX.equals(transport)) {
+            LOGGER.info("creating unix socket sender");
+            return new UnixSocketSender(vertx, options);
         }
-        throw new UnsupportedOperationException("currently only UDP and HTTP are supported. Requested: " + options.getTransport());
+        throw new UnsupportedOperationException("currently only UDP, HTTP, TCP and UNIX are supported. Requested: " + options.getTransport());
     }
 }
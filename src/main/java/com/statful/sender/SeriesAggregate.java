@@ -0,0 +1,172 @@
+package com.statful.sender;
+
+import com.statful.client.Aggregation;
+import com.statful.client.MetricType;
+import com.statful.client.TimerUnit;
+
+import java.util.OptionalDouble;
+
+/**
+ * Values of one series within one aggregation window. Counters are summed, gauges keep their first, last, minimum and
+ * maximum and timers also keep their distribution for percentiles, in a histogram whose size doesn't depend on the
+ * number of values. The histogram holds whole microseconds whatever the timers' unit, so that sub-millisecond timers
+ * keep their percentiles. Not thread safe, callers serialize the updates
+ */
+final class SeriesAggregate {
+
+    /**
+     * Nanoseconds in a microsecond, the unit of a timer's distribution
+     */
+    private static final double NANOS_PER_MICRO = 1000;
+
+    /**
+     * Percentage of the 90th percentile
+     */
+    private static final double P90 = 90;
+
+    /**
+     * Percentage of the 95th percentile
+     */
+    private static final double P95 = 95;
+
+    /**
+     * Percentage of the 99th percentile
+     */
+    private static final double P99 = 99;
+
+    /**
+     * Number of values
+     */
+    private long count;
+
+    /**
+     * Sum of the values
+     */
+    private double sum;
+
+    /**
+     * Smallest value
+     */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /**
+     * Largest value
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * First value
+     */
+    private double first;
+
+    /**
+     * Last value
+     */
+    private double last;
+
+    /**
+     * Distribution of a timer's values, in microseconds, null for other types
+     */
+    private LogLinearHistogram histogram;
+
+    /**
+     * Number of microseconds in the unit of a timer's values
+     */
+    private double histogramScale;
+
+    /**
+     * @param type                  type of the series' metric
+     * @param highestTrackableValue largest value of a timer's distribution, in microseconds
+     * @param significantDigits     number of significant digits kept in a timer's distribution
+     * @param histogramScale        number of microseconds in the unit of a timer's values
+     */
+    SeriesAggregate(final MetricType type, final long highestTrackableValue, final int significantDigits, final double histogramScale) {
+        if (type == MetricType.TIMER) {
+            this.histogram = new LogLinearHistogram(highestTrackableValue, significantDigits);
+            this.histogramScale = histogramScale;
+        }
+    }
+
+    /**
+     * @param timerUnit unit of the timers' values
+     * @return number of microseconds, the unit of a timer's distribution, in the timers' unit
+     */
+    static double histogramScale(final TimerUnit timerUnit) {
+        return timerUnit.toNanos(1) / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Forgets the values of the window, so that the aggregate and its distribution are reused for the series' next one
+     */
+    void reset() {
+        this.count = 0;
+        this.sum = 0;
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+        this.first = 0;
+        this.last = 0;
+        if (this.histogram != null) {
+            this.histogram.reset();
+        }
+    }
+
+    void add(final double value) {
+        if (this.count == 0) {
+            this.first = value;
+        }
+        this.last = value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+        this.sum += value;
+
+        if (this.histogram != null) {
+            this.histogram.record(Math.round(value * this.histogramScale));
+        }
+        this.count++;
+    }
+
+    long count() {
+        return this.count;
+    }
+
+    /**
+     * @param aggregation aggregation to compute
+     * @return the aggregated value, empty if the aggregation doesn't apply, like percentiles of a counter
+     */
+    OptionalDouble value(final Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+                return OptionalDouble.of(this.sum / this.count);
+            case COUNT:
+                return OptionalDouble.of(this.count);
+            case SUM:
+                return OptionalDouble.of(this.sum);
+            case MIN:
+                return OptionalDouble.of(this.min);
+            case MAX:
+                return OptionalDouble.of(this.max);
+            case FIRST:
+                return OptionalDouble.of(this.first);
+            case LAST:
+                return OptionalDouble.of(this.last);
+            case P90:
+                return this.percentile(P90);
+            case P95:
+                return this.percentile(P95);
+            case P99:
+                return this.percentile(P99);
+            default:
+                return OptionalDouble.empty();
+        }
+    }
+
+    private OptionalDouble percentile(final double percentage) {
+        if (this.histogram == null) {
+            return OptionalDouble.empty();
+        }
+
+        // the distribution holds whole microseconds, while the exact extremes bound it
+        final double value = this.histogram.getValueAtPercentile(percentage) / this.histogramScale;
+        return OptionalDouble.of(Math.min(Math.max(value, this.min), this.max));
+    }
+}
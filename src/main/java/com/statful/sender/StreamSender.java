@@ -0,0 +1,247 @@
+package com.statful.sender;
+
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TcpOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base of the stream transports. Metric lines are streamed on a long-lived connection, newline delimited, which is
+ * reopened with backoff whenever it is lost
+ */
+public abstract class StreamSender extends MetricsHolder {
+
+    /**
+     * Logger for transport errors
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamSender.class);
+
+    /**
+     * Terminates each batch, so that consecutive batches don't merge their first and last lines
+     */
+    private static final Buffer LINE_SEPARATOR = Buffer.buffer("\n");
+
+    /**
+     * Statful options to configure the sender
+     */
+    private final StatfulMetricsOptions options;
+
+    /**
+     * Vertx instance used to schedule reconnections
+     */
+    private final Vertx vertx;
+
+    /**
+     * Address of the endpoint
+     */
+    private final SocketAddress address;
+
+    /**
+     * Configuration of the connection
+     */
+    private final TcpOptions tcpOptions;
+
+    /**
+     * Number of batches written
+     */
+    private final LongAdder sentBatches = new LongAdder();
+
+    /**
+     * Number of payload bytes written
+     */
+    private final LongAdder sentBytes = new LongAdder();
+
+    /**
+     * Number of connections opened
+     */
+    private final LongAdder connections = new LongAdder();
+
+    /**
+     * Client to open connections
+     */
+    private NetClient client;
+
+    /**
+     * Current connection, null while disconnected
+     */
+    private volatile NetSocket socket;
+
+    /**
+     * Number of failed connection attempts since the last successful one
+     */
+    private int reconnectAttempts;
+
+    /**
+     * Set once the sender is closed, the connection is then no longer reopened
+     */
+    private volatile boolean closed;
+
+    /**
+     * @param vertx            Vertx instance to create the client
+     * @param options          Statful options to configure the sender
+     * @param address          address of the endpoint
+     * @param netClientOptions configuration of the client
+     */
+    StreamSender(final Vertx vertx, final StatfulMetricsOptions options, final SocketAddress address, final NetClientOptions netClientOptions) {
+        super(options, new Sampler(options, new Random()));
+
+        this.options = options;
+        this.vertx = vertx;
+        this.address = address;
+        this.tcpOptions = Optional.ofNullable(options.getTcpOptions()).orElseGet(TcpOptions::new);
+
+        if (options.getTimeout() > 0) {
+            netClientOptions.setConnectTimeout(options.getTimeout());
+        }
+
+        vertx.runOnContext(aVoid -> {
+            this.client = vertx.createNetClient(netClientOptions);
+            this.connect();
+            this.configureFlushInterval(vertx, this.options.getFlushInterval());
+        });
+    }
+
+    private void connect() {
+        if (this.closed) {
+            return;
+        }
+
+        try {
+            this.client.connect(this.address, this::connected);
+        } catch (RuntimeException e) {
+            // e.g. a domain socket without the native transport, retrying won't help
+            LOGGER.error("Can't connect to " + this.address + ", metrics stay buffered", e);
+        }
+    }
+
+    private void connected(final AsyncResult<NetSocket> result) {
+        if (result.failed()) {
+            LOGGER.warn("Failed to connect to " + this.address + ": " + result.cause());
+            this.scheduleReconnect();
+            return;
+        }
+
+        final NetSocket connected = result.result();
+        if (this.closed) {
+            connected.close();
+            return;
+        }
+
+        connected.setWriteQueueMaxSize(Math.max(1, this.tcpOptions.getWriteQueueMaxSize()));
+        connected.exceptionHandler(error -> LOGGER.warn("Connection error: " + error));
+        connected.drainHandler(drained -> this.signalFlush());
+        connected.closeHandler(socketClosed -> {
+            this.socket = null;
+            LOGGER.warn("Connection to " + this.address + " closed");
+            this.scheduleReconnect();
+        });
+
+        this.reconnectAttempts = 0;
+        this.connections.increment();
+        this.socket = connected;
+        // metrics buffered while disconnected can go out now
+        this.signalFlush();
+    }
+
+    private void scheduleReconnect() {
+        if (this.closed) {
+            return;
+        }
+
+        this.reconnectAttempts++;
+        final long delay = Backoff.delay(this.tcpOptions.getReconnectInitialBackoff(), this.tcpOptions.getReconnectMaxBackoff(), this.reconnectAttempts);
+        this.vertx.setTimer(Math.max(1, delay), timer -> this.connect());
+    }
+
+    @Override
+    final void sendBundle(@Nonnull final Buffer toSendMetrics, @Nullable final Handler<AsyncResult<Void>> handler) {
+        final Optional<Handler<AsyncResult<Void>>> endHandler = Optional.ofNullable(handler);
+
+        final NetSocket current = this.socket;
+        if (current == null) {
+            this.spill(toSendMetrics);
+            endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture("Not connected")));
+            return;
+        }
+
+        current.write(toSendMetrics);
+        current.write(LINE_SEPARATOR);
+        this.sentBatches.increment();
+        this.sentBytes.add(toSendMetrics.length());
+
+        // Vert.x 3.7 doesn't report when a write is flushed, the batch is handed over once queued on the connection
+        endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.succeededFuture()));
+    }
+
+    /**
+     * The sender is saturated while disconnected or while its write queue is full, the holder then keeps its buffer
+     * until the connection is back or drains
+     *
+     * @return true if no more batches should be handed to this sender for now
+     */
+    @Override
+    final boolean isSaturated() {
+        final NetSocket current = this.socket;
+        return current == null || current.writeQueueFull();
+    }
+
+    /**
+     * @return number of batches written
+     */
+    public long getSentBatches() {
+        return this.sentBatches.sum();
+    }
+
+    /**
+     * @return number of payload bytes written
+     */
+    public long getSentBytes() {
+        return this.sentBytes.sum();
+    }
+
+    /**
+     * @return number of connections opened, more than one means the connection was lost and reopened
+     */
+    public long getConnectionCount() {
+        return this.connections.sum();
+    }
+
+    @Override
+    public final void close(final Handler<AsyncResult<Void>> handler) {
+        final Optional<Handler<AsyncResult<Void>>> closeHandler = Optional.ofNullable(handler);
+
+        this.stopFlushing();
+        this.closed = true;
+
+        final NetSocket current = this.socket;
+        this.socket = null;
+        if (current != null) {
+            current.close();
+        }
+
+        try {
+            if (this.client != null) {
+                this.client.close();
+            }
+            closeHandler.ifPresent(close -> close.handle(Future.succeededFuture()));
+        } catch (Exception e) {
+            LOGGER.error("Failed to close client of " + this.address, e);
+            closeHandler.ifPresent(close -> close.handle(Future.failedFuture(e)));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.statful.sender;
+
+import com.statful.client.StatfulMetricsOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * Responsible for the TCP transport
+ */
+public final class TCPSender extends StreamSender {
+
+    /**
+     * @param vertx Vertx instance to create the client
+     * @param options Statful options to configure host and port
+     */
+    public TCPSender(final Vertx vertx, final StatfulMetricsOptions options) {
+        super(vertx, options, SocketAddress.inetSocketAddress(options.getPort(), options.getHost()), new NetClientOptions()
+                .setSsl(options.isSecure())
+                .setTcpNoDelay(true)
+                .setTcpKeepAlive(true));
+    }
+}
@@ -0,0 +1,196 @@
+package com.statful.sender;
+
+import com.statful.client.StatfulMetricsOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Sends every batch to several destinations, each one a sender of its own transport. Batches are serialized once and
+ * the same buffer is handed to every destination. Each destination has its own bounded queue and sends one batch at a
+ * time, so a slow or failing destination drops its own oldest batches instead of stalling the others
+ */
+public final class TeeSender extends MetricsHolder {
+
+    /**
+     * Logger for dropped batches
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TeeSender.class);
+
+    /**
+     * Destinations receiving every batch
+     */
+    private final List<Branch> branches;
+
+    /**
+     * @param vertx        Vertx instance to schedule flushes
+     * @param options      Statful options to configure the buffer and flushes
+     * @param destinations senders of each destination
+     */
+    TeeSender(final Vertx vertx, final StatfulMetricsOptions options, @Nonnull final List<MetricsHolder> destinations) {
+        super(options, new Sampler(options, new Random()));
+
+        final int queueSize = Math.max(1, options.getTeeQueueSize());
+        this.branches = destinations.stream().map(destination -> new Branch(destination, queueSize)).collect(Collectors.toList());
+
+        vertx.runOnContext(aVoid -> this.configureFlushInterval(vertx, options.getFlushInterval()));
+    }
+
+    @Override
+    void sendBundle(@Nonnull final Buffer bundle, @Nullable final Handler<AsyncResult<Void>> handler) {
+        this.branches.forEach(branch -> branch.offer(bundle));
+
+        // the batch is handed over once queued, destinations fail on their own
+        Optional.ofNullable(handler).ifPresent(callerHandler -> callerHandler.handle(Future.succeededFuture()));
+    }
+
+    /**
+     * The tee is saturated once every destination's queue is full, a single slow destination only drops its own
+     * batches
+     *
+     * @return true if no more batches should be handed to this sender for now
+     */
+    @Override
+    boolean isSaturated() {
+        return this.branches.stream().allMatch(Branch::isFull);
+    }
+
+    /**
+     * @return senders of each destination
+     */
+    List<MetricsHolder> getDestinations() {
+        return this.branches.stream().map(branch -> branch.destination).collect(Collectors.toList());
+    }
+
+    /**
+     * @return number of batches dropped by destinations falling behind
+     */
+    public long getDroppedBatchCount() {
+        return this.branches.stream().mapToLong(branch -> branch.dropped.sum()).sum();
+    }
+
+    @Override
+    public void close(final Handler<AsyncResult<Void>> handler) {
+        this.stopFlushing();
+
+        final List<Future<Void>> closed = this.branches.stream().map(branch -> {
+            final Future<Void> branchClosed = Future.future();
+            branch.destination.close(branchClosed);
+            return branchClosed;
+        }).collect(Collectors.toList());
+
+        CompositeFuture.all(new ArrayList<>(closed)).setHandler(result -> Optional.ofNullable(handler).ifPresent(close -> close.handle(result.mapEmpty())));
+    }
+
+    /**
+     * Queue of batches for one destination, sent one at a time
+     */
+    private static final class Branch {
+
+        /**
+         * Sender of the destination
+         */
+        private final MetricsHolder destination;
+
+        /**
+         * Maximum number of queued batches
+         */
+        private final int queueSize;
+
+        /**
+         * Batches waiting to be sent
+         */
+        private final Queue<Buffer> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Number of batches waiting, tracked apart since the queue's size is not constant time
+         */
+        private final AtomicInteger queued = new AtomicInteger();
+
+        /**
+         * Set while a batch is being sent
+         */
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        /**
+         * Number of batches dropped to keep the queue within its bound
+         */
+        private final LongAdder dropped = new LongAdder();
+
+        /**
+         * @param destination sender of the destination
+         * @param queueSize   maximum number of queued batches
+         */
+        Branch(final MetricsHolder destination, final int queueSize) {
+            this.destination = destination;
+            this.queueSize = queueSize;
+        }
+
+        boolean isFull() {
+            return this.queued.get() >= this.queueSize;
+        }
+
+        void offer(final Buffer bundle) {
+            this.queue.add(bundle);
+            if (this.queued.incrementAndGet() > this.queueSize) {
+                final Buffer oldest = this.queue.poll();
+                if (oldest != null) {
+                    this.queued.decrementAndGet();
+                    this.dropped.increment();
+                    this.destination.spill(oldest);
+                    LOGGER.warn("Destination falling behind, dropping " + oldest.length() + " bytes of metrics");
+                }
+            }
+            this.drain();
+        }
+
+        private void drain() {
+            while (!this.queue.isEmpty() && this.sending.compareAndSet(false, true)) {
+                final Buffer bundle = this.queue.poll();
+                if (bundle == null) {
+                    this.sending.set(false);
+                    continue;
+                }
+                this.queued.decrementAndGet();
+
+                final AtomicBoolean completedInline = new AtomicBoolean();
+                try {
+                    this.destination.sendBundle(bundle, result -> {
+                        this.sending.set(false);
+                        // completions on the calling thread are picked up by the loop, avoiding deep recursion
+                        if (!completedInline.compareAndSet(false, true)) {
+                            this.drain();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    LOGGER.error("Destination failed to send batch", e);
+                    this.sending.set(false);
+                    completedInline.set(true);
+                }
+
+                if (completedInline.compareAndSet(false, true)) {
+                    // still in flight, its completion drains the rest
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.statful.sender;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link Flusher} that runs the flush on a dedicated daemon thread, so the signaling thread only pays for waking it up
+ */
+final class ThreadFlusher implements Flusher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadFlusher.class);
+
+    /**
+     * Flush to be executed
+     */
+    private final Runnable flushTask;
+
+    /**
+     * Set while a flush is requested and not yet started, to coalesce signals
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * Thread executing the flushes
+     */
+    private final Thread thread;
+
+    /**
+     * Cleared once stopped
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts the flusher thread
+     *
+     * @param name      name of the flusher thread
+     * @param flushTask flush to be executed on each signal
+     */
+    ThreadFlusher(final String name, final Runnable flushTask) {
+        this.flushTask = Objects.requireNonNull(flushTask);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        while (this.running) {
+            if (!this.pending.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                this.flushTask.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to flush metrics", e);
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        if (this.running && this.pending.compareAndSet(false, true)) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+    }
+}
@@ -1,17 +1,22 @@
 package com.statful.sender;
 
 import com.statful.client.StatfulMetricsOptions;
-import com.statful.metric.DataPoint;
 import io.vertx.core.*;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.datagram.DatagramSocket;
 import io.vertx.core.datagram.DatagramSocketOptions;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 /**
  * Responsible for the UDP transport
@@ -23,11 +28,41 @@ public final class UDPSender extends MetricsHolder {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(UDPSender.class);
 
+    /**
+     * Separator between metric lines, datagrams are only split here
+     */
+    private static final byte LINE_SEPARATOR = '\n';
+
     /**
      * Statful options to configure the sender
      */
     private final StatfulMetricsOptions options;
 
+    /**
+     * Maximum payload size in bytes of a datagram
+     */
+    private final int maxPayloadSize;
+
+    /**
+     * Number of datagrams sent
+     */
+    private final LongAdder sentPackets = new LongAdder();
+
+    /**
+     * Number of payload bytes sent
+     */
+    private final LongAdder sentBytes = new LongAdder();
+
+    /**
+     * Number of datagrams the last batch was packed into
+     */
+    private volatile int lastBatchPackets;
+
+    /**
+     * Number of payload bytes of the last batch's datagrams
+     */
+    private volatile int lastBatchBytes;
+
     /**
      * Holds the socket to avoid recreation
      */
@@ -41,6 +76,7 @@ public final class UDPSender extends MetricsHolder {
         super(options, new Sampler(options, new Random()));
 
         this.options = options;
+        this.maxPayloadSize = Math.max(1, options.getUdpMaxPayloadSize());
 
         // the following code is being executed asynchronously on the same context, to make sure that vertx is properly initialized
         // so that we can open a socket and configure a interval
@@ -51,32 +87,125 @@ public final class UDPSender extends MetricsHolder {
     }
 
     @Override
-    public void send(@Nonnull final List<DataPoint> metrics, @Nonnull final Handler<AsyncResult<Void>> sentHandler) {
-        this.send(metrics, Optional.of(sentHandler));
-    }
+    void sendBundle(@Nonnull final Buffer toSendMetrics, @Nullable final Handler<AsyncResult<Void>> handler) {
+        final Optional<Handler<AsyncResult<Void>>> endHandler = Optional.ofNullable(handler);
 
-    @Override
-    public void send(@Nonnull final List<DataPoint> metrics) {
-        this.send(metrics, Optional.empty());
-    }
+        final List<Buffer> payloads = pack(toSendMetrics, this.maxPayloadSize);
+        this.lastBatchPackets = payloads.size();
+        this.lastBatchBytes = payloads.stream().mapToInt(Buffer::length).sum();
 
-    private void send(@Nonnull final List<DataPoint> metrics, final Optional<Handler<AsyncResult<Void>>> endHandler) {
-        this.bundleMetrics(metrics).ifPresent(toSendMetrics -> send(endHandler, toSendMetrics));
-    }
+        final List<Future<Void>> packets = payloads.stream()
+                .map(this::sendPacket)
+                .collect(Collectors.toList());
 
-    private void send(final Optional<Handler<AsyncResult<Void>>> endHandler, final String toSendMetrics) {
-        socket.send(toSendMetrics, options.getPort(), options.getHost(), handler -> {
-            if (handler.failed()) {
-                LOGGER.error("Failed to send metrics: " +  handler.cause() + " - Payload: " + toSendMetrics);
-                endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture(handler.cause())));
+        // waits for every datagram, so that only those that failed are spilled
+        CompositeFuture.join(new ArrayList<>(packets)).setHandler(result -> {
+            if (result.failed()) {
+                this.spillFailed(payloads, packets, result.cause());
+                endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.failedFuture(result.cause())));
             } else {
                 endHandler.ifPresent(callerHandler -> callerHandler.handle(Future.succeededFuture()));
             }
         });
     }
 
+    private void spillFailed(final List<Buffer> payloads, final List<Future<Void>> packets, final Throwable cause) {
+        int failedPackets = 0;
+        int failedBytes = 0;
+
+        for (int i = 0; i < packets.size(); i++) {
+            if (packets.get(i).failed()) {
+                failedPackets++;
+                failedBytes += payloads.get(i).length();
+                this.spill(payloads.get(i));
+            }
+        }
+
+        LOGGER.error("Failed to send metrics: " + cause + " - " + failedPackets + " of " + packets.size() + " packets, "
+                + failedBytes + " bytes");
+    }
+
+    private Future<Void> sendPacket(final Buffer packet) {
+        final Future<Void> sent = Future.future();
+
+        socket.send(packet, options.getPort(), options.getHost(), result -> {
+            if (result.succeeded()) {
+                this.sentPackets.increment();
+                this.sentBytes.add(packet.length());
+            }
+            sent.handle(result.mapEmpty());
+        });
+
+        return sent;
+    }
+
+    /**
+     * Packs metric lines into datagram payloads of at most maxPayloadSize bytes. Lines are never split, a line longer
+     * than maxPayloadSize is sent in a datagram of its own
+     *
+     * @param bundle         metric lines separated by line breaks
+     * @param maxPayloadSize maximum payload size in bytes of a datagram
+     * @return slices of the bundle, one per datagram
+     */
+    static List<Buffer> pack(@Nonnull final Buffer bundle, final int maxPayloadSize) {
+        final int length = bundle.length();
+        if (length <= maxPayloadSize) {
+            return Collections.singletonList(bundle);
+        }
+
+        final List<Buffer> packets = new ArrayList<>(length / maxPayloadSize + 1);
+        int packetStart = 0;
+        int lineStart = 0;
+
+        for (int i = 0; i <= length; i++) {
+            if (i == length || bundle.getByte(i) == LINE_SEPARATOR) {
+                // the line ending here doesn't fit, close the packet before it
+                if (i - packetStart > maxPayloadSize && lineStart > packetStart) {
+                    packets.add(bundle.slice(packetStart, lineStart - 1));
+                    packetStart = lineStart;
+                }
+                lineStart = i + 1;
+            }
+        }
+
+        if (packetStart < length) {
+            packets.add(bundle.slice(packetStart, length));
+        }
+
+        return packets;
+    }
+
+    /**
+     * @return number of datagrams the last batch was packed into
+     */
+    public int getLastBatchPackets() {
+        return this.lastBatchPackets;
+    }
+
+    /**
+     * @return number of payload bytes of the datagrams the last batch was packed into
+     */
+    public int getLastBatchBytes() {
+        return this.lastBatchBytes;
+    }
+
+    /**
+     * @return number of datagrams sent since the sender started
+     */
+    public long getSentPackets() {
+        return this.sentPackets.sum();
+    }
+
+    /**
+     * @return number of payload bytes sent in datagrams since the sender started
+     */
+    public long getSentBytes() {
+        return this.sentBytes.sum();
+    }
+
     @Override
     public void close(final Handler<AsyncResult<Void>> handler) {
+        this.stopFlushing();
         this.socket.close(handler);
     }
 }
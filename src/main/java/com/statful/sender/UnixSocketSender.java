@@ -0,0 +1,34 @@
+package com.statful.sender;
+
+import com.statful.client.StatfulMetricsOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.SocketAddress;
+
+/**
+ * Responsible for the Unix domain socket transport, streaming metric lines to a relay running on the same host
+ * without going through the loopback network stack. Requires Vert.x's native transport, with
+ * {@link io.vertx.core.VertxOptions#setPreferNativeTransport(boolean)} and netty's epoll or kqueue library on the
+ * classpath
+ */
+public final class UnixSocketSender extends StreamSender {
+
+    /**
+     * Logger for transport errors
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixSocketSender.class);
+
+    /**
+     * @param vertx Vertx instance to create the client
+     * @param options Statful options to configure the socket path
+     */
+    public UnixSocketSender(final Vertx vertx, final StatfulMetricsOptions options) {
+        super(vertx, options, SocketAddress.domainSocketAddress(options.getUnixSocketPath()), new NetClientOptions());
+
+        if (!vertx.isNativeTransportEnabled()) {
+            LOGGER.error("Unix domain sockets require Vert.x's native transport, metrics won't reach " + options.getUnixSocketPath());
+        }
+    }
+}
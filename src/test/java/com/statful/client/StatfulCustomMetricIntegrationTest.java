@@ -570,6 +570,8 @@ public class StatfulCustomMetricIntegrationTest extends IntegrationTestCase {
                 .setFlushSize(20)
                 .setSecure(false)
                 .setToken("a token")
+                // receivers never answer, retried batches would leak into the following tests
+                .setHttpRetryOptions(new HttpRetryOptions().setMaxRetries(0))
                 .setEnabled(true)
                 .setEnablePoolMetrics(false)
                 .setEnableHttpClientMetrics(false)
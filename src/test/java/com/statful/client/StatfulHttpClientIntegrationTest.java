@@ -46,6 +46,8 @@ public class StatfulHttpClientIntegrationTest extends IntegrationTestCase {
                 .setFlushSize(20)
                 .setSecure(false)
                 .setToken("a token")
+                // receivers never answer, retried batches would leak into the following tests
+                .setHttpRetryOptions(new HttpRetryOptions().setMaxRetries(0))
                 .setEnabled(true)
                 .setEnablePoolMetrics(false)
                 .setEnableHttpServerMetrics(true)
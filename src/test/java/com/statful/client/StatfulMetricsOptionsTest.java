@@ -1,13 +1,17 @@
 package com.statful.client;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.statful.utils.Pair;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -289,6 +293,313 @@ public class StatfulMetricsOptionsTest {
         assertEquals(AggregationFreq.FREQ_120, victim.getCounterFrequency());
     }
 
+    @Test
+    public void testDefaultBufferType() {
+        assertEquals(BufferType.BLOCKING, victim.getBufferType());
+    }
+
+    @Test
+    public void testSetBufferType() {
+        assertEquals(BufferType.RING, victim.setBufferType(BufferType.RING).getBufferType());
+    }
+
+    @Test
+    public void testDefaultBufferWaitStrategy() {
+        assertEquals(WaitStrategy.YIELD, victim.getBufferWaitStrategy());
+    }
+
+    @Test
+    public void testSetBufferWaitStrategy() {
+        assertEquals(WaitStrategy.PARK, victim.setBufferWaitStrategy(WaitStrategy.PARK).getBufferWaitStrategy());
+    }
+
+    @Test
+    public void testDefaultBufferOverflowPolicy() {
+        assertEquals(OverflowPolicy.DROP_NEWEST, victim.getBufferOverflowPolicy());
+    }
+
+    @Test
+    public void testSetBufferOverflowPolicy() {
+        assertEquals(OverflowPolicy.DROP_OLDEST, victim.setBufferOverflowPolicy(OverflowPolicy.DROP_OLDEST).getBufferOverflowPolicy());
+    }
+
+    @Test
+    public void testSetBufferOfferTimeout() {
+        assertEquals(250, victim.setBufferOfferTimeout(250).getBufferOfferTimeout());
+    }
+
+    @Test
+    public void testDefaultFlushMode() {
+        assertEquals(FlushMode.INLINE, victim.getFlushMode());
+    }
+
+    @Test
+    public void testSetFlushMode() {
+        assertEquals(FlushMode.THREAD, victim.setFlushMode(FlushMode.THREAD).getFlushMode());
+    }
+
+    @Test
+    public void testDefaultFlushCycleLimits() {
+        assertEquals(4, victim.getMaxInFlightBatches());
+        assertEquals(100, victim.getFlushCycleTimeBudget());
+        assertEquals(1024 * 1024, victim.getFlushCycleByteBudget());
+    }
+
+    @Test
+    public void testSetFlushCycleLimits() {
+        victim.setMaxInFlightBatches(8).setFlushCycleTimeBudget(0).setFlushCycleByteBudget(4096);
+        assertEquals(8, victim.getMaxInFlightBatches());
+        assertEquals(0, victim.getFlushCycleTimeBudget());
+        assertEquals(4096, victim.getFlushCycleByteBudget());
+    }
+
+    @Test
+    public void testDefaultHttpCompression() {
+        assertEquals(Compression.NONE, victim.getHttpCompression());
+        assertEquals(6, victim.getHttpCompressionLevel());
+        assertEquals(1024, victim.getHttpCompressionMinSize());
+        assertEquals(64 * 1024, victim.getHttpCompressionOffloadSize());
+    }
+
+    @Test
+    public void testSetHttpCompression() {
+        victim.setHttpCompression(Compression.GZIP).setHttpCompressionLevel(1).setHttpCompressionMinSize(0).setHttpCompressionOffloadSize(10);
+        assertEquals(Compression.GZIP, victim.getHttpCompression());
+        assertEquals(1, victim.getHttpCompressionLevel());
+        assertEquals(0, victim.getHttpCompressionMinSize());
+        assertEquals(10, victim.getHttpCompressionOffloadSize());
+    }
+
+    @Test
+    public void testDefaultUdpMaxPayloadSize() {
+        assertEquals(1432, victim.getUdpMaxPayloadSize());
+    }
+
+    @Test
+    public void testSetUdpMaxPayloadSize() {
+        assertEquals(8932, victim.setUdpMaxPayloadSize(8932).getUdpMaxPayloadSize());
+    }
+
+    @Test
+    public void testDefaultHttpRequestLimits() {
+        assertEquals(4, victim.getHttpMaxInFlightRequests());
+        assertEquals(16, victim.getHttpMaxPendingRequests());
+    }
+
+    @Test
+    public void testSetHttpRequestLimits() {
+        victim.setHttpMaxInFlightRequests(2).setHttpMaxPendingRequests(0);
+        assertEquals(2, victim.getHttpMaxInFlightRequests());
+        assertEquals(0, victim.getHttpMaxPendingRequests());
+    }
+
+    @Test
+    public void testDefaultHttp2Options() {
+        assertEquals(HttpVersion.HTTP_1_1, victim.getHttpVersion());
+        assertEquals(100, victim.getHttp2MultiplexingLimit());
+        assertEquals(65535, victim.getHttp2WindowSize());
+    }
+
+    @Test
+    public void testSetHttp2Options() {
+        victim.setHttpVersion(HttpVersion.HTTP_2).setHttp2MultiplexingLimit(-1).setHttp2WindowSize(1024 * 1024);
+        assertEquals(HttpVersion.HTTP_2, victim.getHttpVersion());
+        assertEquals(-1, victim.getHttp2MultiplexingLimit());
+        assertEquals(1024 * 1024, victim.getHttp2WindowSize());
+    }
+
+    @Test
+    public void testDefaultHttpRetryOptions() {
+        HttpRetryOptions retry = victim.getHttpRetryOptions();
+        assertEquals(3, retry.getMaxRetries());
+        assertEquals(100, retry.getInitialBackoff());
+        assertEquals(10000, retry.getMaxBackoff());
+        assertEquals(4 * 1024 * 1024, retry.getMaxQueueBytes());
+        assertEquals(1024 * 1024, retry.getMaxCoalescedBytes());
+        assertEquals(Sets.newHashSet(408, 429, 500, 502, 503, 504), retry.getRetryableStatusCodes());
+    }
+
+    @Test
+    public void testSetHttpRetryOptions() {
+        HttpRetryOptions retry = new HttpRetryOptions().setMaxRetries(5).setInitialBackoff(10).setMaxBackoff(20)
+                .setMaxQueueBytes(30).setMaxCoalescedBytes(40).setRetryableStatusCodes(Sets.newHashSet(503));
+
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim.setHttpRetryOptions(retry));
+        assertEquals(5, copy.getHttpRetryOptions().getMaxRetries());
+        assertEquals(10, copy.getHttpRetryOptions().getInitialBackoff());
+        assertEquals(20, copy.getHttpRetryOptions().getMaxBackoff());
+        assertEquals(30, copy.getHttpRetryOptions().getMaxQueueBytes());
+        assertEquals(40, copy.getHttpRetryOptions().getMaxCoalescedBytes());
+        assertEquals(Collections.singleton(503), copy.getHttpRetryOptions().getRetryableStatusCodes());
+    }
+
+    @Test
+    public void testDefaultHttpConnectionOptions() {
+        HttpConnectionOptions connection = victim.getHttpConnectionOptions();
+        assertEquals(5, connection.getMaxPoolSize());
+        assertTrue(connection.isKeepAlive());
+        assertEquals(0, connection.getIdleTimeout());
+        assertTrue(connection.isTcpNoDelay());
+        assertEquals(-1, connection.getSendBufferSize());
+        assertFalse(connection.isPipelining());
+        assertEquals(10, connection.getPipeliningLimit());
+        assertFalse(connection.isPreWarm());
+    }
+
+    @Test
+    public void testSetHttpConnectionOptions() {
+        HttpConnectionOptions connection = new HttpConnectionOptions().setMaxPoolSize(2).setKeepAlive(false).setIdleTimeout(100)
+                .setTcpNoDelay(false).setSendBufferSize(1024).setPipelining(true).setPipeliningLimit(3).setPreWarm(true);
+
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim.setHttpConnectionOptions(connection));
+        assertEquals(2, copy.getHttpConnectionOptions().getMaxPoolSize());
+        assertFalse(copy.getHttpConnectionOptions().isKeepAlive());
+        assertEquals(100, copy.getHttpConnectionOptions().getIdleTimeout());
+        assertFalse(copy.getHttpConnectionOptions().isTcpNoDelay());
+        assertEquals(1024, copy.getHttpConnectionOptions().getSendBufferSize());
+        assertTrue(copy.getHttpConnectionOptions().isPipelining());
+        assertEquals(3, copy.getHttpConnectionOptions().getPipeliningLimit());
+        assertTrue(copy.getHttpConnectionOptions().isPreWarm());
+    }
+
+    @Test
+    public void testDefaultHttpCircuitBreakerOptions() {
+        assertEquals(2000, victim.getTimeout());
+        assertEquals(5, victim.getHttpCircuitBreakerOptions().getFailureThreshold());
+        assertEquals(10000, victim.getHttpCircuitBreakerOptions().getResetTimeout());
+    }
+
+    @Test
+    public void testSetHttpCircuitBreakerOptions() {
+        CircuitBreakerOptions circuitBreaker = new CircuitBreakerOptions().setFailureThreshold(2).setResetTimeout(500);
+
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim.setHttpCircuitBreakerOptions(circuitBreaker));
+        assertEquals(2, copy.getHttpCircuitBreakerOptions().getFailureThreshold());
+        assertEquals(500, copy.getHttpCircuitBreakerOptions().getResetTimeout());
+    }
+
+    @Test
+    public void testEndpoints() {
+        assertTrue(victim.getEndpoints().isEmpty());
+        assertEquals(EndpointMode.FAILOVER, victim.getEndpointMode());
+
+        victim.setEndpoints(Lists.newArrayList(new Endpoint("primary", 443), new Endpoint("fallback", 8443))).setEndpointMode(EndpointMode.SHARDING);
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim);
+        assertEquals(Lists.newArrayList(new Endpoint("primary", 443), new Endpoint("fallback", 8443)), copy.getEndpoints());
+        assertEquals(EndpointMode.SHARDING, copy.getEndpointMode());
+    }
+
+    @Test
+    public void testMetricLineCacheSize() {
+        assertEquals(1000, victim.getMetricLineCacheSize());
+        assertEquals(50, new StatfulMetricsOptions(victim.setMetricLineCacheSize(50)).getMetricLineCacheSize());
+        assertEquals(0, new StatfulMetricsOptions(new JsonObject().put("metricLineCacheSize", 0)).getMetricLineCacheSize());
+    }
+
+    @Test
+    public void testEndpointRetryInterval() {
+        assertEquals(10000L, victim.getEndpointRetryInterval());
+        assertEquals(500L, new StatfulMetricsOptions(victim.setEndpointRetryInterval(500)).getEndpointRetryInterval());
+        assertEquals(0L, new StatfulMetricsOptions(new JsonObject().put("endpointRetryInterval", 0)).getEndpointRetryInterval());
+    }
+
+    @Test
+    public void testPathCacheSize() {
+        assertEquals(1000, victim.getPathCacheSize());
+        assertEquals(50, new StatfulMetricsOptions(victim.setPathCacheSize(50)).getPathCacheSize());
+        assertEquals(0, new StatfulMetricsOptions(new JsonObject().put("pathCacheSize", 0)).getPathCacheSize());
+    }
+
+    @Test
+    public void testTimerUnit() {
+        assertEquals(TimerUnit.MILLISECONDS, victim.getTimerUnit());
+        assertEquals(TimerUnit.NANOSECONDS, new StatfulMetricsOptions(victim.setTimerUnit(TimerUnit.NANOSECONDS)).getTimerUnit());
+        assertEquals(TimerUnit.MICROSECONDS,
+                new StatfulMetricsOptions(new JsonObject().put("timerUnit", "MICROSECONDS")).getTimerUnit());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSetNullTimerUnit() {
+        victim.setTimerUnit(null);
+    }
+
+    @Test
+    public void testTeeEndpoints() {
+        assertTrue(victim.getTeeEndpoints().isEmpty());
+        assertEquals(16, victim.getTeeQueueSize());
+
+        victim.setTeeEndpoints(Lists.newArrayList(new Endpoint("collector", 443, Transport.HTTP))).setTeeQueueSize(4);
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim);
+        assertEquals(Lists.newArrayList(new Endpoint("collector", 443, Transport.HTTP)), copy.getTeeEndpoints());
+        assertEquals(4, copy.getTeeQueueSize());
+    }
+
+    @Test
+    public void testPreAggregationOptions() {
+        assertFalse(victim.getPreAggregationOptions().isEnabled());
+        assertEquals(10000, victim.getPreAggregationOptions().getMaxSeries());
+
+        assertEquals(60000, victim.getPreAggregationOptions().getTimerHighestTrackableValue());
+        assertEquals(2, victim.getPreAggregationOptions().getTimerSignificantDigits());
+
+        victim.setPreAggregationOptions(new PreAggregationOptions().setEnabled(true).setMaxSeries(50)
+                .setTimerHighestTrackableValue(1000).setTimerSignificantDigits(3));
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim);
+        assertTrue(copy.getPreAggregationOptions().isEnabled());
+        assertEquals(50, copy.getPreAggregationOptions().getMaxSeries());
+        assertEquals(1000, copy.getPreAggregationOptions().getTimerHighestTrackableValue());
+        assertEquals(3, copy.getPreAggregationOptions().getTimerSignificantDigits());
+    }
+
+    @Test
+    public void testUnixSocketPath() {
+        assertEquals("/var/run/statful/statful.sock", victim.getUnixSocketPath());
+        assertEquals("/tmp/relay.sock", new StatfulMetricsOptions(victim.setUnixSocketPath("/tmp/relay.sock")).getUnixSocketPath());
+    }
+
+    @Test
+    public void testDefaultTcpOptions() {
+        assertEquals(100, victim.getTcpOptions().getReconnectInitialBackoff());
+        assertEquals(10000, victim.getTcpOptions().getReconnectMaxBackoff());
+        assertEquals(1024 * 1024, victim.getTcpOptions().getWriteQueueMaxSize());
+    }
+
+    @Test
+    public void testSetTcpOptions() {
+        TcpOptions tcp = new TcpOptions().setReconnectInitialBackoff(5).setReconnectMaxBackoff(50).setWriteQueueMaxSize(4096);
+
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim.setTransport(Transport.TCP).setTcpOptions(tcp));
+        assertEquals(Transport.TCP, copy.getTransport());
+        assertEquals(5, copy.getTcpOptions().getReconnectInitialBackoff());
+        assertEquals(50, copy.getTcpOptions().getReconnectMaxBackoff());
+        assertEquals(4096, copy.getTcpOptions().getWriteQueueMaxSize());
+    }
+
+    @Test
+    public void testDefaultSpillOptions() {
+        SpillOptions spill = victim.getSpillOptions();
+        assertFalse(spill.isEnabled());
+        assertTrue(spill.getDirectory().endsWith("statful-spill"));
+        assertEquals(16 * 1024 * 1024, spill.getSegmentSize());
+        assertEquals(256 * 1024 * 1024, spill.getMaxDiskBytes());
+        assertEquals(TimeUnit.HOURS.toMillis(24), spill.getMaxAge());
+        assertEquals(10, spill.getReplayRate());
+    }
+
+    @Test
+    public void testSetSpillOptions() {
+        SpillOptions spill = new SpillOptions().setEnabled(true).setDirectory("/tmp/spill").setSegmentSize(1024)
+                .setMaxDiskBytes(4096).setMaxAge(1000).setReplayRate(2);
+
+        StatfulMetricsOptions copy = new StatfulMetricsOptions(victim.setSpillOptions(spill));
+        assertTrue(copy.getSpillOptions().isEnabled());
+        assertEquals("/tmp/spill", copy.getSpillOptions().getDirectory());
+        assertEquals(1024, copy.getSpillOptions().getSegmentSize());
+        assertEquals(4096, copy.getSpillOptions().getMaxDiskBytes());
+        assertEquals(1000, copy.getSpillOptions().getMaxAge());
+        assertEquals(2, copy.getSpillOptions().getReplayRate());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testCopyCtor() {
@@ -332,7 +643,36 @@ public class StatfulMetricsOptionsTest {
                 .put("flushInterval", 10)
                 .put("timerAggregations", Lists.newArrayList(Aggregation.AVG.toString(), Aggregation.COUNT.toString()))
                 .put("timerFrequency", AggregationFreq.FREQ_10.toString())
-                .put("collectors", new JsonObject().put("pool", true).put("httpClient", true).put("httpServer", false));
+                .put("collectors", new JsonObject().put("pool", true).put("httpClient", true).put("httpServer", false))
+                .put("bufferType", BufferType.RING.toString())
+                .put("bufferWaitStrategy", WaitStrategy.SPIN.toString())
+                .put("bufferOverflowPolicy", OverflowPolicy.BLOCK.toString())
+                .put("bufferOfferTimeout", 20)
+                .put("flushMode", FlushMode.CONTEXT.toString())
+                .put("maxInFlightBatches", 2)
+                .put("flushCycleTimeBudget", 50)
+                .put("flushCycleByteBudget", 2048)
+                .put("httpCompression", Compression.DEFLATE.toString())
+                .put("httpCompressionLevel", 9)
+                .put("httpCompressionMinSize", 512)
+                .put("httpCompressionOffloadSize", 4096)
+                .put("udpMaxPayloadSize", 512)
+                .put("httpMaxInFlightRequests", 8)
+                .put("httpMaxPendingRequests", 32)
+                .put("httpVersion", "HTTP_2")
+                .put("http2MultiplexingLimit", 50)
+                .put("httpRetry", new JsonObject().put("maxRetries", 1).put("initialBackoff", 5)
+                        .put("retryableStatusCodes", new JsonArray().add(429).add(503)))
+                .put("httpCircuitBreaker", new JsonObject().put("failureThreshold", 3))
+                .put("endpoints", new JsonArray().add(new JsonObject().put("host", "relay-1").put("port", 2013))
+                        .add(new JsonObject().put("host", "relay-2").put("port", 2013)))
+                .put("endpointMode", "SHARDING")
+                .put("teeEndpoints", new JsonArray().add(new JsonObject().put("host", "collector").put("port", 443).put("transport", "HTTP")))
+                .put("teeQueueSize", 8)
+                .put("preAggregation", new JsonObject().put("enabled", true).put("timerSignificantDigits", 3))
+                .put("tcp", new JsonObject().put("reconnectMaxBackoff", 2000))
+                .put("httpConnection", new JsonObject().put("maxPoolSize", 2).put("idleTimeout", 30000).put("preWarm", true))
+                .put("spill", new JsonObject().put("enabled", true).put("directory", "/var/spool/statful").put("replayRate", 50));
 
         victim = new StatfulMetricsOptions(configuration);
         assertEquals(victim.getHost(), "host");
@@ -358,5 +698,45 @@ public class StatfulMetricsOptionsTest {
         assertTrue(victim.isEnablePoolMetrics());
         assertTrue(victim.isEnableHttpClientMetrics());
         assertFalse(victim.isEnableHttpServerMetrics());
+        assertEquals(BufferType.RING, victim.getBufferType());
+        assertEquals(WaitStrategy.SPIN, victim.getBufferWaitStrategy());
+        assertEquals(OverflowPolicy.BLOCK, victim.getBufferOverflowPolicy());
+        assertEquals(20, victim.getBufferOfferTimeout());
+        assertEquals(FlushMode.CONTEXT, victim.getFlushMode());
+        assertEquals(2, victim.getMaxInFlightBatches());
+        assertEquals(50, victim.getFlushCycleTimeBudget());
+        assertEquals(2048, victim.getFlushCycleByteBudget());
+        assertEquals(Compression.DEFLATE, victim.getHttpCompression());
+        assertEquals(9, victim.getHttpCompressionLevel());
+        assertEquals(512, victim.getHttpCompressionMinSize());
+        assertEquals(4096, victim.getHttpCompressionOffloadSize());
+        assertEquals(512, victim.getUdpMaxPayloadSize());
+        assertEquals(8, victim.getHttpMaxInFlightRequests());
+        assertEquals(32, victim.getHttpMaxPendingRequests());
+        assertEquals(HttpVersion.HTTP_2, victim.getHttpVersion());
+        assertEquals(50, victim.getHttp2MultiplexingLimit());
+        assertEquals(1, victim.getHttpRetryOptions().getMaxRetries());
+        assertEquals(5, victim.getHttpRetryOptions().getInitialBackoff());
+        assertEquals(10000, victim.getHttpRetryOptions().getMaxBackoff());
+        assertEquals(Sets.newHashSet(429, 503), victim.getHttpRetryOptions().getRetryableStatusCodes());
+        assertEquals(3, victim.getHttpCircuitBreakerOptions().getFailureThreshold());
+        assertEquals(Lists.newArrayList(new Endpoint("relay-1", 2013), new Endpoint("relay-2", 2013)), victim.getEndpoints());
+        assertEquals(EndpointMode.SHARDING, victim.getEndpointMode());
+        assertEquals(Lists.newArrayList(new Endpoint("collector", 443, Transport.HTTP)), victim.getTeeEndpoints());
+        assertEquals(8, victim.getTeeQueueSize());
+        assertTrue(victim.getPreAggregationOptions().isEnabled());
+        assertEquals(10000, victim.getPreAggregationOptions().getMaxSeries());
+        assertEquals(3, victim.getPreAggregationOptions().getTimerSignificantDigits());
+        assertEquals(2000, victim.getTcpOptions().getReconnectMaxBackoff());
+        assertEquals(100, victim.getTcpOptions().getReconnectInitialBackoff());
+        assertEquals(2, victim.getHttpConnectionOptions().getMaxPoolSize());
+        assertEquals(30000, victim.getHttpConnectionOptions().getIdleTimeout());
+        assertTrue(victim.getHttpConnectionOptions().isKeepAlive());
+        assertTrue(victim.getHttpConnectionOptions().isPreWarm());
+        assertEquals(10000, victim.getHttpCircuitBreakerOptions().getResetTimeout());
+        assertTrue(victim.getSpillOptions().isEnabled());
+        assertEquals("/var/spool/statful", victim.getSpillOptions().getDirectory());
+        assertEquals(16 * 1024 * 1024, victim.getSpillOptions().getSegmentSize());
+        assertEquals(50, victim.getSpillOptions().getReplayRate());
     }
 }
\ No newline at end of file
@@ -8,7 +8,10 @@ import io.vertx.core.spi.metrics.HttpClientMetrics;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.vertx.testtools.VertxAssert.assertNotNull;
 
@@ -39,5 +42,16 @@ public class VertxMetricsImplTest {
         victim.vertxCreated(vertx);
         HttpClientMetrics createdMetrics = victim.createHttpClientMetrics(mock(HttpClientOptions.class));
         assertNotNull(createdMetrics);
+        victim.close();
+    }
+
+    @Test
+    public void testCoarseClockStoppedOnClose() {
+        when(this.vertx.setPeriodic(anyLong(), any())).thenReturn(3L);
+        VertxMetricsImpl victim = new VertxMetricsImpl(statfulMetricsOptions);
+        victim.vertxCreated(vertx);
+        victim.close();
+
+        verify(this.vertx).cancelTimer(3L);
     }
 }
\ No newline at end of file
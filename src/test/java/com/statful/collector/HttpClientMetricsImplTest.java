@@ -2,6 +2,7 @@ package com.statful.collector;
 
 
 import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TimerUnit;
 import com.statful.metric.HttpClientDataPoint;
 import com.statful.sender.Sender;
 import com.statful.tag.Tags;
@@ -25,7 +26,9 @@ public class HttpClientMetricsImplTest {
     @Before
     public void setup() {
         sender = mock(Sender.class);
-        victim = new HttpClientMetricsImpl(sender, mock(StatfulMetricsOptions.class));
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getTimerUnit()).thenReturn(TimerUnit.MILLISECONDS);
+        victim = new HttpClientMetricsImpl(sender, options);
     }
 
     @Test
@@ -1,10 +1,12 @@
 package com.statful.collector;
 
+import com.statful.client.TimerUnit;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.net.SocketAddress;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -26,4 +28,22 @@ public class HttpClientRequestMetricsTest {
         Thread.sleep(1);
         assertTrue(victim.elapsed() > 0);
     }
+
+    @Test
+    public void testTimeElapsedInUnit() {
+        victim.start();
+        double millis = victim.elapsed(TimerUnit.MILLISECONDS);
+        double nanos = victim.elapsed(TimerUnit.NANOSECONDS);
+
+        assertTrue(millis >= 0);
+        assertTrue(nanos >= millis * 1_000_000);
+        assertTrue(victim.elapsedNanos() >= nanos);
+    }
+
+    @Test
+    public void testTimerUnitKeepsFraction() {
+        assertEquals(0.25, TimerUnit.MILLISECONDS.fromNanos(250_000), 0);
+        assertEquals(1.5, TimerUnit.MICROSECONDS.fromNanos(1_500), 0);
+        assertEquals(42, TimerUnit.NANOSECONDS.fromNanos(42), 0);
+    }
 }
\ No newline at end of file
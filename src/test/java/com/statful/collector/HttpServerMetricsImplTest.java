@@ -0,0 +1,77 @@
+package com.statful.collector;
+
+import com.google.common.collect.Lists;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.sender.Sender;
+import com.statful.utils.Pair;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpServerMetricsImplTest {
+
+    private StatfulMetricsOptions options;
+
+    @Before
+    public void setup() {
+        options = new StatfulMetricsOptions()
+                .setHttpServerMatchAndReplacePatterns(Lists.newArrayList(new Pair<>("\\d+", "_id_")))
+                .setHttpServerIgnorePaths(Lists.newArrayList("/health.*"));
+    }
+
+    @Test
+    public void testNormalizesPath() {
+        HttpServerMetricsImpl victim = new HttpServerMetricsImpl(mock(Sender.class), options);
+
+        HttpRequestMetrics metrics = victim.requestBegin(mock(SocketAddress.class), request("/users/42/orders/7"));
+
+        assertEquals("/users/_id_/orders/_id_", metrics.getRequestTag());
+    }
+
+    @Test
+    public void testIgnoresPath() {
+        HttpServerMetricsImpl victim = new HttpServerMetricsImpl(mock(Sender.class), options);
+
+        assertNull(victim.requestBegin(mock(SocketAddress.class), request("/health/live")));
+        assertNull(victim.requestBegin(mock(SocketAddress.class), request("/health/live")));
+    }
+
+    @Test
+    public void testCachesRepeatedPaths() {
+        HttpServerMetricsImpl victim = new HttpServerMetricsImpl(mock(Sender.class), options);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("/users/_id_", victim.requestBegin(mock(SocketAddress.class), request("/users/1")).getRequestTag());
+            assertNull(victim.requestBegin(mock(SocketAddress.class), request("/health")));
+        }
+        assertEquals("/users/_id_", victim.requestBegin(mock(SocketAddress.class), request("/users/2")).getRequestTag());
+
+        assertEquals(4, victim.getPathCacheStats().hitCount());
+        assertEquals(3, victim.getPathCacheStats().missCount());
+    }
+
+    @Test
+    public void testEvictsBeyondCacheSize() {
+        HttpServerMetricsImpl victim = new HttpServerMetricsImpl(mock(Sender.class), options.setPathCacheSize(1));
+
+        victim.requestBegin(mock(SocketAddress.class), request("/users/1"));
+        victim.requestBegin(mock(SocketAddress.class), request("/users/2"));
+        assertEquals("/users/_id_", victim.requestBegin(mock(SocketAddress.class), request("/users/1")).getRequestTag());
+
+        assertEquals(0, victim.getPathCacheStats().hitCount());
+        assertTrue(victim.getPathCacheStats().evictionCount() > 0);
+    }
+
+    private HttpServerRequest request(String path) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        when(request.path()).thenReturn(path);
+        when(request.method()).thenReturn(HttpMethod.GET);
+        return request;
+    }
+}
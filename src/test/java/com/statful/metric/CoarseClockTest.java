@@ -0,0 +1,65 @@
+package com.statful.metric;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CoarseClockTest {
+
+    private Vertx vertx;
+
+    @Before
+    public void setup() {
+        vertx = mock(Vertx.class);
+        when(vertx.setPeriodic(anyLong(), any())).thenReturn(7L);
+    }
+
+    @After
+    public void tearDown() {
+        CoarseClock.stop(vertx);
+    }
+
+    @Test
+    public void testReadsSystemClockUntilStarted() {
+        long before = System.currentTimeMillis() / 1000;
+        long now = CoarseClock.epochSeconds();
+
+        assertTrue(now >= before && now <= System.currentTimeMillis() / 1000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStartRefreshesPeriodically() {
+        CoarseClock.start(vertx);
+        CoarseClock.start(vertx);
+
+        ArgumentCaptor<Handler<Long>> tick = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx, times(1)).setPeriodic(eq(CoarseClock.TICK_INTERVAL), tick.capture());
+
+        long before = System.currentTimeMillis() / 1000;
+        tick.getValue().handle(7L);
+        long now = CoarseClock.epochSeconds();
+
+        assertTrue(now >= before && now <= System.currentTimeMillis() / 1000);
+    }
+
+    @Test
+    public void testStopCancelsTimer() {
+        CoarseClock.start(vertx);
+        CoarseClock.stop(vertx);
+        CoarseClock.stop(vertx);
+
+        verify(vertx, times(1)).cancelTimer(7L);
+        assertEquals(System.currentTimeMillis() / 1000, CoarseClock.epochSeconds(), 1);
+    }
+}
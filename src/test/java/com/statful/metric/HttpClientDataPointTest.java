@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.statful.client.Aggregation;
 import com.statful.client.AggregationFreq;
 import com.statful.client.StatfulMetricsOptions;
+import io.vertx.core.buffer.Buffer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -11,6 +12,8 @@ import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -35,10 +38,88 @@ public class HttpClientDataPointTest {
         HttpClientDataPoint victim = new HttpClientDataPoint(this.options,"execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
         
         // using a regex for match since the metric will include a timestamp that we don't really want to test here
-        final String expected = "namespace\\.timer\\.execution,request=name,verb=verb,transport=http,type=client,statusCode=200 1000 \\d.* p95,10 100";
+        final String expected = "namespace\\.timer\\.execution,transport=http,type=client,verb=verb,statusCode=200,request=name 1000 \\d.* p95,10 100";
         final String actual = victim.toMetricLine();
         
         Matcher matcher = Pattern.compile(expected).matcher(victim.toMetricLine());
         assertTrue("\nexpected: " + expected + "\nactual: " + actual + "\n", matcher.matches());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCachedMetricLine() {
+        MetricLinePrefixCache cache = new MetricLinePrefixCache(10);
+        HttpClientDataPoint first = new HttpClientDataPoint(this.options, "execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
+        first.setMetricLineCache(cache);
+        HttpClientDataPoint second = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 200, HttpClientDataPoint.Type.CLIENT);
+        second.setMetricLineCache(cache);
+        HttpClientDataPoint other = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 500, HttpClientDataPoint.Type.CLIENT);
+        other.setMetricLineCache(cache);
+
+        assertEquals(first.metricLineBuilder().build(), first.toMetricLine());
+        assertEquals(second.metricLineBuilder().build(), second.toMetricLine());
+        assertEquals(other.metricLineBuilder().build(), other.toMetricLine());
+        assertEquals(2, cache.size());
+
+        Buffer buffer = Buffer.buffer();
+        second.writeTo(buffer);
+        assertEquals(second.metricLineBuilder().build(), buffer.toString());
+    }
+
+    @Test
+    public void testSeriesKey() {
+        HttpClientDataPoint first = new HttpClientDataPoint(this.options, "execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
+        HttpClientDataPoint second = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 200, HttpClientDataPoint.Type.CLIENT);
+        HttpClientDataPoint other = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 500, HttpClientDataPoint.Type.CLIENT);
+
+        assertEquals("timer.execution,type=client,verb=verb,statusCode=200,name=name", first.seriesKey());
+        assertEquals(first.seriesKey(), second.seriesKey());
+        assertNotEquals(first.seriesKey(), other.seriesKey());
+    }
+
+    @Test
+    public void testWriteTo() {
+        HttpClientDataPoint victim = new HttpClientDataPoint(this.options,"execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
+
+        Buffer buffer = Buffer.buffer();
+        victim.writeTo(buffer);
+
+        assertEquals(victim.toMetricLine(), buffer.toString());
+    }
+
+    @Test
+    public void testWriteToWithReusedBuilder() {
+        when(this.options.getApp()).thenReturn(Optional.of("app"));
+        HttpClientDataPoint first = new HttpClientDataPoint(this.options, "execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
+        HttpClientDataPoint other = new HttpClientDataPoint(this.options, "other", "name", "verb", "20.5", 1000, HttpClientDataPoint.Type.CLIENT);
+
+        // lines written with a builder left over from another point are the same as those built from scratch
+        MetricLineBuilder scratch = new MetricLineBuilder();
+        Buffer buffer = Buffer.buffer();
+        first.writeTo(buffer, scratch);
+        buffer.appendByte((byte) '\n');
+        other.writeTo(buffer, scratch);
+        buffer.appendByte((byte) '\n');
+        first.writeTo(buffer, scratch);
+
+        assertEquals(first.toMetricLine() + "\n" + other.toMetricLine() + "\n" + first.toMetricLine(), buffer.toString());
+    }
+
+    @Test
+    public void testCachedWriteToWithReusedBuilder() {
+        MetricLinePrefixCache cache = new MetricLinePrefixCache(10);
+        HttpClientDataPoint first = new HttpClientDataPoint(this.options, "execution", "name", "verb", "1000", 200, HttpClientDataPoint.Type.CLIENT);
+        first.setMetricLineCache(cache);
+        HttpClientDataPoint second = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 200, HttpClientDataPoint.Type.CLIENT);
+        second.setMetricLineCache(cache);
+        HttpClientDataPoint server = new HttpClientDataPoint(this.options, "execution", "name", "verb", "20", 200, HttpClientDataPoint.Type.SERVER);
+        server.setMetricLineCache(cache);
+
+        MetricLineBuilder scratch = new MetricLineBuilder();
+        for (HttpClientDataPoint victim : Lists.newArrayList(first, second, server)) {
+            Buffer buffer = Buffer.buffer();
+            victim.writeTo(buffer, scratch);
+            assertEquals(victim.metricLineBuilder().build(), buffer.toString());
+        }
+        assertEquals(2, cache.size());
+    }
+}
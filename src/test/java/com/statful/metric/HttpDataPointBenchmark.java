@@ -0,0 +1,109 @@
+package com.statful.metric;
+
+import com.google.common.collect.Lists;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.utils.Pair;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation benchmark for writing a batch of http points the way a flush bundles them, one builder shared by the
+ * points of the batch. Compare gc.alloc.rate.norm with a new builder per point, and with the metric line cache.
+ *
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *           -Dexec.args="-cp %classpath org.openjdk.jmh.Main HttpDataPointBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpDataPointBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String[] ROUTES = {"/users", "/users/:id", "/orders", "/orders/:id", "/health"};
+
+    private static final int[] STATUS_CODES = {200, 201, 404, 500};
+
+    private final List<DataPoint> points = new ArrayList<>(BATCH_SIZE);
+
+    private final List<DataPoint> cachedPoints = new ArrayList<>(BATCH_SIZE);
+
+    private final ByteBuf bytes = Unpooled.buffer(BATCH_SIZE * 256);
+
+    private final Buffer buffer = Buffer.buffer(bytes);
+
+    @Setup
+    public void setup() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setNamespace("application")
+                .setApp("app")
+                .setTags(Lists.newArrayList(new Pair<>("env", "production")));
+        MetricLinePrefixCache cache = new MetricLinePrefixCache(1000);
+
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String route = ROUTES[random.nextInt(ROUTES.length)];
+            int statusCode = STATUS_CODES[random.nextInt(STATUS_CODES.length)];
+            // durations in milliseconds with microsecond precision
+            double duration = random.nextInt(1_000_000) / 1000.0;
+
+            points.add(new HttpServerDataPoint(options, "execution", route, "GET", duration, statusCode, HttpDataPoint.Type.SERVER));
+
+            HttpServerDataPoint cached = new HttpServerDataPoint(options, "execution", route, "GET", duration, statusCode,
+                    HttpDataPoint.Type.SERVER);
+            cached.setMetricLineCache(cache);
+            cachedPoints.add(cached);
+        }
+    }
+
+    @Benchmark
+    public int batchNewBuilderPerPoint() {
+        bytes.clear();
+        for (int i = 0; i < points.size(); i++) {
+            points.get(i).writeTo(buffer);
+            buffer.appendByte((byte) '\n');
+        }
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int batchReusedBuilder() {
+        bytes.clear();
+        MetricLineBuilder scratch = new MetricLineBuilder();
+        for (int i = 0; i < points.size(); i++) {
+            points.get(i).writeTo(buffer, scratch);
+            buffer.appendByte((byte) '\n');
+        }
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int batchCachedTemplates() {
+        bytes.clear();
+        MetricLineBuilder scratch = new MetricLineBuilder();
+        for (int i = 0; i < cachedPoints.size(); i++) {
+            cachedPoints.get(i).writeTo(buffer, scratch);
+            buffer.appendByte((byte) '\n');
+        }
+        return buffer.length();
+    }
+}
@@ -0,0 +1,135 @@
+package com.statful.metric;
+
+import com.google.common.collect.Lists;
+import com.statful.client.Aggregation;
+import com.statful.client.AggregationFreq;
+import com.statful.client.MetricType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.NumberFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation benchmark for writing metric lines. A builder reset between lines should write them into a buffer or
+ * string builder with next to no garbage, compare gc.alloc.rate.norm with building a new String for each line.
+ *
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *           -Dexec.args="-cp %classpath org.openjdk.jmh.Main MetricLineBuilderBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricLineBuilderBenchmark {
+
+    private static final List<Aggregation> AGGREGATIONS = Lists.newArrayList(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT);
+
+    private final MetricLineBuilder builder = new MetricLineBuilder();
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private final ByteBuf bytes = Unpooled.buffer(256);
+
+    private final Buffer buffer = Buffer.buffer(bytes);
+
+    private final NumberFormat numberFormat = NumberFormat.getInstance();
+
+    private MetricLineTemplate template;
+
+    private final double[] values = new double[1024];
+
+    private int valueIndex;
+
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        template = fill(new MetricLineBuilder()).template();
+        numberFormat.setMaximumFractionDigits(Integer.MAX_VALUE);
+        numberFormat.setGroupingUsed(false);
+        // durations in milliseconds with microsecond precision
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000_000) / 1000.0;
+        }
+    }
+
+    @Benchmark
+    public String buildString() {
+        return fill(new MetricLineBuilder()).build();
+    }
+
+    @Benchmark
+    public int reusedBuilderToStringBuilder() {
+        line.setLength(0);
+        fill(builder.reset()).appendTo(line);
+        return line.length();
+    }
+
+    @Benchmark
+    public int reusedBuilderToBuffer() {
+        bytes.clear();
+        fill(builder.reset()).appendTo(buffer);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int templateToBuffer() {
+        bytes.clear();
+        template.writeTo(buffer, "123", ++timestamp);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int templateDoubleToBuffer() {
+        bytes.clear();
+        template.writeTo(buffer, nextValue(), ++timestamp);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int templateNumberFormatToBuffer() {
+        bytes.clear();
+        template.writeTo(buffer, numberFormat.format(nextValue()), ++timestamp);
+        return buffer.length();
+    }
+
+    private double nextValue() {
+        valueIndex = (valueIndex + 1) % values.length;
+        return values[valueIndex];
+    }
+
+    private MetricLineBuilder fill(MetricLineBuilder metricLine) {
+        return metricLine
+                .withNamespace("application")
+                .withMetricType(MetricType.TIMER)
+                .withMetricName("execution")
+                .withApp("app")
+                .withTag("transport", "http")
+                .withTag("type", "server")
+                .withTag("verb", "GET")
+                .withTag("statusCode", "200")
+                .withTag("route", "/users")
+                .withValue("123")
+                .withTimestamp(++timestamp)
+                .withAggregations(AGGREGATIONS)
+                .withAggregationFrequency(AggregationFreq.FREQ_10)
+                .withSampleRate(100);
+    }
+}
@@ -4,10 +4,17 @@ import com.google.common.collect.Lists;
 import com.statful.client.Aggregation;
 import com.statful.client.AggregationFreq;
 import com.statful.client.MetricType;
+import io.vertx.core.buffer.Buffer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class MetricLineBuilderTest {
@@ -25,6 +32,20 @@ public class MetricLineBuilderTest {
         victim.withSampleRate(100);
     }
 
+    @Test
+    public void testTemplate() {
+        victim.withMetricType(MetricType.TIMER).withApp("app")
+                .withAggregations(Lists.newArrayList(Aggregation.AVG, Aggregation.P90)).withAggregationFrequency(AggregationFreq.FREQ_30);
+        MetricLineTemplate template = victim.template();
+
+        assertEquals(victim.build(), template.toMetricLine("value", 1));
+        assertEquals(victim.withValue("other").withTimestamp(2).build(), template.toMetricLine("other", 2));
+
+        Buffer buffer = Buffer.buffer();
+        template.writeTo(buffer, "other", 2);
+        assertEquals(victim.build(), buffer.toString());
+    }
+
     @Test
     public void testBuildWithMetricType() {
         victim.withMetricType(MetricType.TIMER);
@@ -92,4 +113,144 @@ public class MetricLineBuilderTest {
         String expected = "namespace.execution,tagName=tagValue value 1 50";
         assertEquals(expected, result);
     }
+
+    @Test
+    public void testAppendTo() {
+        victim.withMetricType(MetricType.TIMER);
+        victim.withAggregations(Lists.newArrayList(Aggregation.AVG, Aggregation.P90));
+        victim.withApp("test_app");
+
+        Buffer buffer = Buffer.buffer("previous\n");
+        victim.appendTo(buffer);
+
+        String expected = "previous\nnamespace.timer.execution,app=test_app,tagName=tagValue value 1 avg,p90,10 100";
+        assertEquals(expected, buffer.toString());
+    }
+
+    @Test
+    public void testAppendToStringBuilder() {
+        StringBuilder sb = new StringBuilder("previous\n");
+        victim.appendTo(sb);
+
+        assertEquals("previous\nnamespace.execution,tagName=tagValue value 1 100", sb.toString());
+    }
+
+    @Test
+    public void testTagsKeepOrderAndReplaceValues() {
+        victim.withTag("b", "1").withTag("a", "2").withTag("tagName", "other");
+
+        assertEquals("namespace.execution,tagName=other,b=1,a=2 value 1 100", victim.build());
+    }
+
+    @Test
+    public void testManyTags() {
+        StringBuilder expected = new StringBuilder("namespace.execution,tagName=tagValue");
+        for (int i = 0; i < 20; i++) {
+            victim.withTag("tag" + i, String.valueOf(i));
+            expected.append(",tag").append(i).append('=').append(i);
+        }
+
+        assertEquals(expected.append(" value 1 100").toString(), victim.build());
+    }
+
+    @Test
+    public void testTagOverridesApp() {
+        victim.withApp("test_app").withTag("app", "other");
+
+        assertEquals("namespace.execution,tagName=tagValue,app=other value 1 100", victim.build());
+    }
+
+    @Test
+    public void testReset() {
+        victim.withMetricType(MetricType.TIMER).withApp("test_app").withAggregations(Lists.newArrayList(Aggregation.AVG));
+        victim.build();
+
+        String result = victim.reset()
+                .withMetricName("other")
+                .withTag("tag", "value")
+                .withValue("2")
+                .withTimestamp(3)
+                .withSampleRate(100)
+                .build();
+
+        assertEquals("other,tag=value 2 3 100", result);
+    }
+
+    @Test
+    public void testAppendToEncodesUtf8() {
+        victim.withTag("route", "/caf\u00e9/\u20ac/\ud83d\ude00");
+
+        Buffer buffer = Buffer.buffer();
+        victim.appendTo(buffer);
+
+        assertArrayEquals(victim.build().getBytes(StandardCharsets.UTF_8), buffer.getBytes());
+    }
+
+    @Test
+    public void testTemplateWritesNumbers() {
+        MetricLineTemplate template = victim.template();
+
+        for (long timestamp : new long[]{0, 7, 10, 1234567890, -42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            Buffer buffer = Buffer.buffer();
+            template.writeTo(buffer, "value", timestamp);
+            assertEquals("namespace.execution,tagName=tagValue value " + timestamp + " 100", buffer.toString());
+        }
+    }
+
+    @Test
+    public void testNumericValues() {
+        assertEquals("namespace.execution,tagName=tagValue 42 1 100", victim.withValue(42L).build());
+        assertEquals("42", victim.getValue());
+        assertEquals(42, victim.getValueAsDouble(), 0);
+
+        assertEquals("namespace.execution,tagName=tagValue 1.5 1 100", victim.withValue(1.5).build());
+        assertEquals(1.5, victim.getValueAsDouble(), 0);
+        assertEquals("namespace.execution,tagName=tagValue 1.5 1 100", victim.copy().build());
+        assertEquals("namespace.execution,tagName=tagValue 12.25 1 100", victim.withValue("12.25").build());
+        assertEquals(12.25, victim.getValueAsDouble(), 0);
+    }
+
+    @Test
+    public void testDecimalValuesArePlainAndShortest() {
+        double[] values = {0, -0.0, 1, -1, 0.1, 0.3, 0.1 + 0.2, 100, 1.5e-7, 123456.789, 1234567891011D, 1e-10, -2.5,
+                1e15, 9007199254740993D, 1e20, 1.7976931348623157e308, Double.MIN_VALUE, (double) 0.1F};
+        String[] expected = {"0", "0", "1", "-1", "0.1", "0.3", "0.30000000000000004", "100", "0.00000015", "123456.789",
+                "1234567891011", "0.0000000001", "-2.5", "1000000000000000", "9007199254740992", "100000000000000000000",
+                "17976931348623157" + zeros(292),
+                "0." + zeros(323) + "49", "0.10000000149011612"};
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(expected[i], victim.withValue(values[i]).getValue());
+        }
+    }
+
+    @Test
+    public void testDecimalValuesRoundTrip() {
+        Random random = new Random(42);
+        MetricLineTemplate template = victim.template();
+
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+            String written = victim.withValue(value).getValue();
+
+            assertEquals(value, Double.parseDouble(written), 0);
+            assertTrue(written, written.length() <= new BigDecimal(Double.toString(value)).toPlainString().length());
+
+            Buffer buffer = Buffer.buffer();
+            template.writeTo(buffer, value, 1);
+            assertEquals(victim.build(), buffer.toString());
+        }
+    }
+
+    @Test
+    public void testTemplateWritesNumericValues() {
+        MetricLineTemplate template = victim.template();
+
+        assertEquals(victim.withValue(-42L).build(), template.toMetricLine(-42L, 1));
+        assertEquals(victim.withValue(0.25).build(), template.toMetricLine(0.25, 1));
+    }
+
+    private static String zeros(int count) {
+        return new String(new char[count]).replace('\0', '0');
+    }
 }
@@ -0,0 +1,55 @@
+package com.statful.metric;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricLinePrefixCacheTest {
+
+    @Test
+    public void testTemplateBuiltOncePerSeries() {
+        MetricLinePrefixCache victim = new MetricLinePrefixCache(10);
+        AtomicInteger built = new AtomicInteger();
+
+        MetricLineTemplate first = victim.get("series", () -> line("series", built));
+        MetricLineTemplate second = victim.get("series", () -> line("series", built));
+
+        assertSame(first, second);
+        assertEquals(1, built.get());
+        assertEquals("namespace.series 5 10 100", first.toMetricLine("5", 10));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        MetricLinePrefixCache victim = new MetricLinePrefixCache(10);
+        AtomicInteger built = new AtomicInteger();
+
+        for (int series = 0; series < 1000; series++) {
+            String name = "series" + series;
+            assertEquals("namespace." + name + " 1 2 100", victim.get(name, () -> line(name, built)).toMetricLine("1", 2));
+        }
+
+        assertTrue(victim.size() <= 10);
+        assertEquals(1000, built.get());
+    }
+
+    @Test
+    public void testDisabledCacheStillBuildsLines() {
+        MetricLinePrefixCache victim = new MetricLinePrefixCache(0);
+        AtomicInteger built = new AtomicInteger();
+
+        assertEquals("namespace.series 1 2 100", victim.get("series", () -> line("series", built)).toMetricLine("1", 2));
+        assertEquals("namespace.series 1 2 100", victim.get("series", () -> line("series", built)).toMetricLine("1", 2));
+        assertEquals(0, victim.size());
+        assertEquals(2, built.get());
+    }
+
+    private static MetricLineBuilder line(String name, AtomicInteger built) {
+        built.incrementAndGet();
+        return new MetricLineBuilder().withNamespace("namespace").withMetricName(name).withSampleRate(100);
+    }
+}
@@ -0,0 +1,333 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.statful.client.Aggregation;
+import com.statful.client.AggregationFreq;
+import com.statful.client.CustomMetric;
+import com.statful.client.MetricType;
+import com.statful.client.PreAggregationOptions;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TimerUnit;
+import com.statful.metric.DataPoint;
+import com.statful.utils.Pair;
+import io.vertx.core.Vertx;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AggregatingSenderTest {
+
+    private Sender delegate;
+
+    private Map<String, Sender> aggregatedSenders;
+
+    private StatfulMetricsOptions options;
+
+    private AggregatingSender victim;
+
+    @Before
+    public void setup() {
+        delegate = mock(Sender.class);
+        when(delegate.addMetric(any())).thenReturn(true);
+        options = new StatfulMetricsOptions().setNamespace("test")
+                .setPreAggregationOptions(new PreAggregationOptions().setEnabled(true).setMaxSeries(2));
+        aggregatedSenders = new HashMap<>();
+        victim = new AggregatingSender(mock(Vertx.class), options, delegate, (aggregation, frequency) ->
+                aggregatedSenders.computeIfAbsent(aggregation.getName() + "/" + frequency.getValue(), path -> mock(Sender.class)), () -> 0);
+    }
+
+    @Test
+    public void testCountersAreSummedPerSeries() {
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "1", 101, Lists.newArrayList(Aggregation.SUM, Aggregation.COUNT), tag("b", "2"), tag("a", "1")));
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "2", 105, Lists.newArrayList(Aggregation.SUM, Aggregation.COUNT), tag("a", "1"), tag("b", "2")));
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "4", 109, Lists.newArrayList(Aggregation.SUM, Aggregation.COUNT), tag("a", "1"), tag("b", "2")));
+
+        verify(delegate, never()).addMetric(any());
+        assertEquals(1, victim.getSeriesCount());
+
+        // the window is not over yet
+        victim.emit(109);
+        verify(delegate, never()).send(any());
+
+        // the first point's tags are kept in their order
+        assertEquals(Sets.newHashSet("sum/10 test.counter.hits,b=2,a=1 7 100 100", "count/10 test.counter.hits,b=2,a=1 3 100 100"), emitted(110));
+        assertEquals(3, victim.getAggregatedPointCount());
+        assertEquals(2, victim.getEmittedPointCount());
+
+        // the series is kept for a window without points, then dropped
+        assertEquals(1, victim.getSeriesCount());
+        victim.emit(119);
+        assertEquals(1, victim.getSeriesCount());
+        victim.emit(120);
+        assertEquals(0, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testNextWindowStartsFromResetValues() {
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.MIN, Aggregation.MAX, Aggregation.P90, Aggregation.COUNT);
+        for (int value = 1; value <= 100; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value), 0, aggregations));
+        }
+        victim.emit(10);
+
+        for (int value = 1; value <= 10; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value * 1000), 10, aggregations));
+        }
+
+        // the first window's values are forgotten by the aggregate the second window reuses
+        assertEquals(Sets.newHashSet("min/10 test.timer.response_time 1000 10 100", "max/10 test.timer.response_time 10000 10 100",
+                "p90/10 test.timer.response_time 9043.967 10 100", "count/10 test.timer.response_time 10 10 100"), emittedSince(20, 2));
+        assertEquals(1, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testGaugesKeepLastMinAndMax() {
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.LAST, Aggregation.MIN, Aggregation.MAX);
+        victim.addMetric(metric(MetricType.GAUGE, "pool", "5", 60, aggregations));
+        victim.addMetric(metric(MetricType.GAUGE, "pool", "2.5", 61, aggregations));
+        victim.addMetric(metric(MetricType.GAUGE, "pool", "3", 62, aggregations));
+
+        assertEquals(Sets.newHashSet("last/10 test.gauge.pool 3 60 100", "min/10 test.gauge.pool 2.5 60 100", "max/10 test.gauge.pool 5 60 100"), emitted(70));
+    }
+
+    @Test
+    public void testTimersBuildDistribution() {
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT);
+        for (int value = 1; value <= 100; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value), 0, aggregations));
+        }
+
+        // percentiles are the highest value equivalent to them at two significant digits of the microseconds
+        assertEquals(Sets.newHashSet("avg/10 test.timer.response_time 50.5 0 100", "p90/10 test.timer.response_time 90.111 0 100",
+                "count/10 test.timer.response_time 100 0 100"), emitted(10));
+    }
+
+    @Test
+    public void testTimersSummarizeAnyNumberOfValues() {
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.MIN, Aggregation.MAX, Aggregation.SUM, Aggregation.P99);
+        for (int value = 1; value <= 20000; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value), 0, aggregations));
+        }
+
+        // the percentile keeps two significant digits, the other aggregations are exact
+        assertEquals(Sets.newHashSet("min/10 test.timer.response_time 1 0 100", "max/10 test.timer.response_time 20000 0 100",
+                "sum/10 test.timer.response_time 200010000 0 100", "p99/10 test.timer.response_time 19922.943 0 100"), emitted(10));
+    }
+
+    @Test
+    public void testSubMillisecondTimersKeepTheirPercentiles() {
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.P90, Aggregation.P99);
+        for (int value = 1; value <= 100; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value / 100d), 0, aggregations));
+        }
+
+        // whole milliseconds would have turned every percentile into the 1ms maximum
+        assertEquals(Sets.newHashSet("p90/10 test.timer.response_time 0.903 0 100", "p99/10 test.timer.response_time 0.991 0 100"), emitted(10));
+    }
+
+    @Test
+    public void testTimerRangeFollowsTimerUnit() {
+        options.setTimerUnit(TimerUnit.MICROSECONDS).getPreAggregationOptions().setTimerHighestTrackableValue(1000);
+        victim = new AggregatingSender(mock(Vertx.class), options, delegate, (aggregation, frequency) ->
+                aggregatedSenders.computeIfAbsent(aggregation.getName() + "/" + frequency.getValue(), path -> mock(Sender.class)), () -> 0);
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.P90, Aggregation.MAX);
+        for (int value = 1; value <= 10; value++) {
+            victim.addMetric(metric(MetricType.TIMER, "response_time", String.valueOf(value * 100), 0, aggregations));
+        }
+        victim.addMetric(metric(MetricType.TIMER, "response_time", "5000", 0, aggregations));
+
+        // values beyond the range count as its highest value, 1000 microseconds
+        assertEquals(Sets.newHashSet("p90/10 test.timer.response_time 1000 0 100", "max/10 test.timer.response_time 5000 0 100"), emitted(10));
+    }
+
+    @Test
+    public void testWindowsFollowAggregationFrequency() {
+        CustomMetric metric = new CustomMetric.Builder().withMetricName("hits").withMetricType(MetricType.COUNTER).withValue(1)
+                .withTimestamp(70).withAggregations(Collections.singletonList(Aggregation.SUM)).withFrequency(AggregationFreq.FREQ_60).build();
+        metric.setOptions(options);
+        victim.addMetric(metric);
+
+        victim.emit(119);
+        assertTrue(aggregatedSenders.isEmpty());
+        assertEquals(Sets.newHashSet("sum/60 test.counter.hits 1 60 100"), emitted(120));
+    }
+
+    @Test
+    public void testUnaggregatablePointsAreSentAsTheyAre() {
+        CustomMetric untyped = new CustomMetric.Builder().withMetricName("untyped").withValue(1).build();
+        untyped.setOptions(options);
+        CustomMetric notNumeric = new CustomMetric.Builder().withMetricName("text").withMetricType(MetricType.GAUGE).withValue("abc").build();
+        notNumeric.setOptions(options);
+
+        assertTrue(victim.addMetric(untyped));
+        assertTrue(victim.addMetric(notNumeric));
+        verify(delegate).addMetric(untyped);
+        verify(delegate).addMetric(notNumeric);
+        assertEquals(0, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testSeriesBeyondMaximumAreSentAsTheyAre() {
+        victim.addMetric(metric(MetricType.COUNTER, "first", "1", 0, Collections.emptyList()));
+        victim.addMetric(metric(MetricType.COUNTER, "second", "1", 0, Collections.emptyList()));
+        DataPoint third = metric(MetricType.COUNTER, "third", "1", 0, Collections.emptyList());
+        victim.addMetric(third);
+
+        verify(delegate).addMetric(third);
+        assertEquals(2, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testMaximumCountsSeriesRatherThanWindows() {
+        victim.addMetric(metric(MetricType.COUNTER, "first", "1", 0, Collections.emptyList()));
+        victim.addMetric(metric(MetricType.COUNTER, "first", "1", 10, Collections.emptyList()));
+        DataPoint second = metric(MetricType.COUNTER, "second", "1", 0, Collections.emptyList());
+        victim.addMetric(second);
+
+        verify(delegate, never()).addMetric(any());
+        assertEquals(2, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testMaximumHoldsUnderConcurrentSeries() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String name = "series" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    victim.addMetric(metric(MetricType.COUNTER, name + "_" + i, "1", 0, Collections.emptyList()));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(2, victim.getSeriesCount());
+        assertEquals(2, victim.getAggregatedPointCount());
+    }
+
+    @Test
+    public void testOnlyFirstPointOfSeriesBuildsItsLine() {
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "1", 0, Collections.emptyList(), tag("b", "2"), tag("a", "1")));
+        DataPoint next = spy(metric(MetricType.COUNTER, "hits", "2", 0, Collections.emptyList(), tag("a", "1"), tag("b", "2")));
+        victim.addMetric(next);
+
+        verify(next, never()).metricLineBuilder();
+        assertEquals(1, victim.getSeriesCount());
+    }
+
+    @Test
+    public void testCloseSendsPendingWindows() {
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "1", 0, Collections.singletonList(Aggregation.SUM)));
+        victim.close(result -> { });
+
+        verify(aggregatedSenders.get("sum/10")).send(any(), any());
+        verify(delegate).close(any());
+        assertEquals(0, victim.getSeriesCount());
+        assertFalse(victim.getEmittedPointCount() == 0);
+    }
+
+    @Test
+    public void testSeriesWithoutAggregationsAreSentWithoutAggregation() {
+        options.setCounterAggregations(Collections.emptyList());
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "1", 0, Collections.emptyList()));
+        victim.addMetric(metric(MetricType.COUNTER, "hits", "2", 0, Collections.emptyList()));
+
+        assertEquals(Lists.newArrayList("test.counter.hits 3 0 100"), delegated(10));
+        assertTrue(aggregatedSenders.isEmpty());
+    }
+
+    @Test
+    public void testWithoutAggregatedPathLinesCarryTheirAggregation() {
+        victim = new AggregatingSender(mock(Vertx.class), options, delegate, null, () -> 0);
+        List<Aggregation> aggregations = Lists.newArrayList(Aggregation.SUM, Aggregation.MAX);
+        victim.addMetric(metric(MetricType.TIMER, "response_time", "1", 0, aggregations));
+        victim.addMetric(metric(MetricType.TIMER, "response_time", "5", 0, aggregations));
+
+        assertEquals(Sets.newHashSet("test.timer.response_time 6 0 sum,10 100", "test.timer.response_time 5 0 max,10 100"),
+                Sets.newHashSet(delegated(10)));
+    }
+
+    @Test
+    public void testWithoutAggregatedPathCountedSeriesAreSentAsTheyAre() {
+        victim = new AggregatingSender(mock(Vertx.class), options, delegate, null, () -> 0);
+        DataPoint counted = metric(MetricType.COUNTER, "hits", "1", 0, Lists.newArrayList(Aggregation.SUM, Aggregation.COUNT));
+
+        assertTrue(victim.addMetric(counted));
+        verify(delegate).addMetric(counted);
+        assertEquals(0, victim.getSeriesCount());
+    }
+
+    /**
+     * @return lines sent through the aggregated ingestion path, prefixed by their aggregation and frequency
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> emitted(long now) {
+        victim.emit(now);
+        Set<String> lines = new HashSet<>();
+        aggregatedSenders.forEach((path, sender) -> {
+            ArgumentCaptor<List<DataPoint>> captor = ArgumentCaptor.forClass(List.class);
+            verify(sender).send(captor.capture());
+            captor.getValue().forEach(point -> lines.add(path + " " + point.toMetricLine()));
+        });
+        return lines;
+    }
+
+    /**
+     * @return lines of the last send through the aggregated ingestion path, after the given number of sends per path
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> emittedSince(long now, int sends) {
+        victim.emit(now);
+        Set<String> lines = new HashSet<>();
+        aggregatedSenders.forEach((path, sender) -> {
+            ArgumentCaptor<List<DataPoint>> captor = ArgumentCaptor.forClass(List.class);
+            verify(sender, times(sends)).send(captor.capture());
+            captor.getValue().forEach(point -> lines.add(path + " " + point.toMetricLine()));
+        });
+        return lines;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> delegated(long now) {
+        ArgumentCaptor<List<DataPoint>> captor = ArgumentCaptor.forClass(List.class);
+        victim.emit(now);
+        verify(delegate).send(captor.capture());
+        return captor.getValue().stream().map(DataPoint::toMetricLine).collect(Collectors.toList());
+    }
+
+    @SafeVarargs
+    private final DataPoint metric(MetricType type, String name, String value, long timestamp, List<Aggregation> aggregations,
+                                   Pair<String, String>... tags) {
+        CustomMetric metric = new CustomMetric.Builder().withMetricName(name).withMetricType(type).withValue(value)
+                .withTimestamp(timestamp).withAggregations(aggregations).withTags(Lists.newArrayList(tags)).build();
+        metric.setOptions(options);
+        return metric;
+    }
+
+    private static Pair<String, String> tag(String name, String value) {
+        return new Pair<>(name, value);
+    }
+}
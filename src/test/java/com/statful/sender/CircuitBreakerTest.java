@@ -0,0 +1,77 @@
+package com.statful.sender;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker victim = new CircuitBreaker(3, 1000, clock::get);
+
+        victim.onFailure();
+        victim.onFailure();
+        victim.onSuccess();
+        victim.onFailure();
+        victim.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, victim.state());
+        assertTrue(victim.tryAcquire());
+
+        victim.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, victim.state());
+        assertEquals(1, victim.opened());
+        assertFalse(victim.isAcquirable());
+        assertFalse(victim.tryAcquire());
+    }
+
+    @Test
+    public void testLetsSingleProbeThroughAfterResetTimeout() {
+        CircuitBreaker victim = new CircuitBreaker(1, 1000, clock::get);
+        victim.onFailure();
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(victim.isAcquirable());
+        assertTrue(victim.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, victim.state());
+        assertFalse(victim.tryAcquire());
+
+        victim.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, victim.state());
+        assertTrue(victim.tryAcquire());
+    }
+
+    @Test
+    public void testFailedProbeReopens() {
+        CircuitBreaker victim = new CircuitBreaker(5, 1000, clock::get);
+        for (int i = 0; i < 5; i++) {
+            victim.onFailure();
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(victim.tryAcquire());
+        victim.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, victim.state());
+        assertEquals(2, victim.opened());
+        assertFalse(victim.tryAcquire());
+    }
+
+    @Test
+    public void testNeverOpensWhenDisabled() {
+        CircuitBreaker victim = new CircuitBreaker(0, 1000, clock::get);
+        for (int i = 0; i < 10; i++) {
+            victim.onFailure();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, victim.state());
+        assertTrue(victim.tryAcquire());
+    }
+}
@@ -0,0 +1,146 @@
+package com.statful.sender;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DiskSpillQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPollInAppendOrder() throws IOException {
+        DiskSpillQueue victim = new DiskSpillQueue(folder.getRoot().toPath(), 64, 1024, TimeUnit.HOURS.toMillis(1));
+
+        victim.append(Buffer.buffer("first"));
+        victim.append(Buffer.buffer("second"));
+        victim.append(Buffer.buffer("a batch larger than a whole segment, which gets a segment of its own"));
+
+        assertEquals("first", poll(victim));
+        assertEquals("second", poll(victim));
+        assertEquals("a batch larger than a whole segment, which gets a segment of its own", poll(victim));
+        assertFalse(victim.poll().isPresent());
+        victim.close();
+    }
+
+    @Test
+    public void testAppendsSlices() throws IOException {
+        DiskSpillQueue victim = new DiskSpillQueue(folder.getRoot().toPath(), 64, 1024, TimeUnit.HOURS.toMillis(1));
+
+        victim.append(Buffer.buffer("line1\nline2").slice(6, 11));
+
+        assertEquals("line2", poll(victim));
+        victim.close();
+    }
+
+    @Test
+    public void testRecoversUnconsumedBatches() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        DiskSpillQueue victim = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        victim.append(Buffer.buffer("consumed"));
+        victim.append(Buffer.buffer("pending"));
+        assertEquals("consumed", poll(victim));
+        victim.close();
+
+        DiskSpillQueue recovered = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        recovered.append(Buffer.buffer("new"));
+
+        assertEquals("pending", poll(recovered));
+        assertEquals("new", poll(recovered));
+        assertFalse(recovered.poll().isPresent());
+        recovered.close();
+    }
+
+    @Test
+    public void testRecoversCorruptSegmentUpToFirstBadRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        DiskSpillQueue victim = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        victim.append(Buffer.buffer("intact"));
+        victim.append(Buffer.buffer("corrupt"));
+        victim.close();
+
+        // the second record's length points past the end of the segment
+        corruptLength(directory, 12 + "intact".length(), 1000);
+
+        DiskSpillQueue recovered = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        assertEquals("intact", poll(recovered));
+        assertFalse(recovered.poll().isPresent());
+        recovered.close();
+    }
+
+    @Test
+    public void testRecoversSegmentWithMinimumLength() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        DiskSpillQueue victim = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        victim.append(Buffer.buffer("corrupt"));
+        victim.close();
+
+        corruptLength(directory, 0, Integer.MIN_VALUE);
+
+        DiskSpillQueue recovered = new DiskSpillQueue(directory, 64, 1024, TimeUnit.HOURS.toMillis(1));
+        assertFalse(recovered.poll().isPresent());
+        recovered.append(Buffer.buffer("new"));
+        assertEquals("new", poll(recovered));
+        recovered.close();
+    }
+
+    @Test
+    public void testDropsOldestSegmentsOverSizeLimit() throws IOException {
+        DiskSpillQueue victim = new DiskSpillQueue(folder.getRoot().toPath(), 32, 64, TimeUnit.HOURS.toMillis(1));
+
+        victim.append(Buffer.buffer("aaaaaaaaaaaaaaaaaaaa"));
+        victim.append(Buffer.buffer("bbbbbbbbbbbbbbbbbbbb"));
+        victim.append(Buffer.buffer("cccccccccccccccccccc"));
+
+        assertEquals(64, victim.diskBytes());
+        assertEquals(1, victim.dropped());
+        assertEquals("bbbbbbbbbbbbbbbbbbbb", poll(victim));
+        assertEquals("cccccccccccccccccccc", poll(victim));
+        victim.close();
+    }
+
+    @Test
+    public void testSkipsExpiredBatches() throws IOException, InterruptedException {
+        DiskSpillQueue victim = new DiskSpillQueue(folder.getRoot().toPath(), 64, 1024, 10);
+
+        victim.append(Buffer.buffer("expired"));
+        Thread.sleep(20);
+
+        assertFalse(victim.poll().isPresent());
+        assertEquals(1, victim.dropped());
+        victim.close();
+    }
+
+    private static void corruptLength(Path directory, int position, int length) throws IOException {
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow(IllegalStateException::new);
+        }
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(Integer.BYTES);
+            bytes.putInt(length).flip();
+            channel.write(bytes, position);
+        }
+    }
+
+    private static String poll(DiskSpillQueue queue) {
+        Optional<Buffer> batch = queue.poll();
+        return batch.map(Buffer::toString).orElse(null);
+    }
+}
@@ -1,6 +1,11 @@
 package com.statful.sender;
 
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.statful.client.CircuitBreakerOptions;
+import com.statful.client.Compression;
+import com.statful.client.HttpConnectionOptions;
+import com.statful.client.HttpRetryOptions;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.metric.DataPoint;
 import io.vertx.core.Context;
@@ -8,21 +13,36 @@ import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpConnection;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.*;
@@ -41,6 +61,10 @@ public class HttpSenderTest {
      * Don't forget to call this in your method
      */
     public void setup(boolean isDryRun, Long flushInterval, Integer flushSize) {
+        this.setup(isDryRun, flushInterval, flushSize, options -> { });
+    }
+
+    public void setup(boolean isDryRun, Long flushInterval, Integer flushSize, Consumer<StatfulMetricsOptions> customizer) {
         StatfulMetricsOptions options = new StatfulMetricsOptions()
                 .setPort(PORT)
                 .setHost(HOST)
@@ -52,6 +76,7 @@ public class HttpSenderTest {
 
         Optional.ofNullable(flushInterval).ifPresent(options::setFlushInterval);
         Optional.ofNullable(flushSize).ifPresent(options::setFlushSize);
+        customizer.accept(options);
 
         this.vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(options));
 
@@ -129,6 +154,300 @@ public class HttpSenderTest {
         });
     }
 
+    @Test
+    public void testSendMultiplexedOverH2c(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpVersion(HttpVersion.HTTP_2).setHttpMaxInFlightRequests(8));
+        Async async = context.async();
+
+        final Set<HttpConnection> connections = ConcurrentHashMap.newKeySet();
+        final AtomicInteger acknowledged = new AtomicInteger();
+
+        server.requestHandler(request -> {
+            context.assertEquals(HttpVersion.HTTP_2, request.version());
+            connections.add(request.connection());
+            request.response().setStatusCode(201).end();
+        });
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            for (int i = 0; i < 3; i++) {
+                victim.send(Lists.newArrayList(new DummyDataPoint("line" + i)), context.asyncAssertSuccess(sent -> {
+                    if (acknowledged.incrementAndGet() == 3) {
+                        context.assertEquals(1, connections.size());
+                        this.teardown(async);
+                    }
+                }));
+            }
+        });
+    }
+
+    @Test
+    public void testHttp2ClientOptions() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions().setSecure(true).setHttpVersion(HttpVersion.HTTP_2)
+                .setHttp2MultiplexingLimit(10).setHttp2WindowSize(1024 * 1024);
+
+        HttpClientOptions clientOptions = HttpSender.clientOptions(options);
+        Assert.assertEquals(HttpVersion.HTTP_2, clientOptions.getProtocolVersion());
+        Assert.assertTrue(clientOptions.isUseAlpn());
+        Assert.assertEquals(1, clientOptions.getHttp2MaxPoolSize());
+        Assert.assertEquals(10, clientOptions.getHttp2MultiplexingLimit());
+        Assert.assertEquals(1024 * 1024, clientOptions.getHttp2ConnectionWindowSize());
+        Assert.assertEquals(1024 * 1024, clientOptions.getInitialSettings().getInitialWindowSize());
+        Assert.assertEquals(2000, clientOptions.getConnectTimeout());
+    }
+
+    @Test
+    public void testPreWarmOpensConnectionsAtStart(TestContext context) {
+        Async async = context.async();
+
+        Vertx serverVertx = Vertx.vertx();
+        HttpServer warmServer = serverVertx.createHttpServer().requestHandler(request -> {
+            context.assertEquals(HttpMethod.OPTIONS, request.method());
+            // neither the metrics path nor the token are exposed by warming up
+            context.assertEquals("*", request.uri());
+            context.assertNull(request.getHeader("M-Api-Token"));
+            request.response().end();
+            this.victim.close(closed -> serverVertx.close(serverClosed -> async.complete()));
+        });
+
+        warmServer.listen(PORT, HOST, listening -> {
+            context.assertTrue(listening.succeeded());
+            this.setup(false, null, null, options -> options.setHttpMaxInFlightRequests(1)
+                    .setHttpConnectionOptions(new HttpConnectionOptions().setPreWarm(true)));
+        });
+    }
+
+    @Test
+    public void testConnectionClientOptions() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions().setHttpConnectionOptions(new HttpConnectionOptions()
+                .setMaxPoolSize(8).setKeepAlive(false).setIdleTimeout(1500).setTcpNoDelay(false).setSendBufferSize(65536)
+                .setPipelining(true).setPipeliningLimit(4));
+
+        HttpClientOptions clientOptions = HttpSender.clientOptions(options);
+        Assert.assertEquals(8, clientOptions.getMaxPoolSize());
+        Assert.assertFalse(clientOptions.isKeepAlive());
+        Assert.assertEquals(1500, clientOptions.getIdleTimeout());
+        Assert.assertEquals(TimeUnit.MILLISECONDS, clientOptions.getIdleTimeoutUnit());
+        Assert.assertFalse(clientOptions.isTcpNoDelay());
+        Assert.assertEquals(65536, clientOptions.getSendBufferSize());
+        Assert.assertTrue(clientOptions.isPipelining());
+        Assert.assertEquals(4, clientOptions.getPipeliningLimit());
+    }
+
+    @Test
+    public void testSendGzipCompressed(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpCompression(Compression.GZIP).setHttpCompressionMinSize(0));
+        this.assertCompressedSend(context, "gzip");
+    }
+
+    @Test
+    public void testSendDeflateCompressedOnWorker(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpCompression(Compression.DEFLATE).setHttpCompressionMinSize(0)
+                .setHttpCompressionOffloadSize(1));
+        this.assertCompressedSend(context, "deflate");
+    }
+
+    private void assertCompressedSend(TestContext context, String encoding) {
+        Async async = context.async();
+
+        final List<String> metricLines = Lists.newArrayList("line1", "line2");
+        final List<DataPoint> dataPoints = metricLines.stream().map(HttpSenderTest.DummyDataPoint::new).collect(Collectors.toList());
+
+        server.requestHandler(request -> {
+            context.assertEquals(encoding, request.getHeader("Content-Encoding"));
+
+            request.bodyHandler(body -> {
+                try {
+                    InputStream compressed = new ByteArrayInputStream(body.getBytes());
+                    InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(compressed) : new InflaterInputStream(compressed);
+                    context.assertEquals("line1\nline2", new String(ByteStreams.toByteArray(in), "UTF-8"));
+                } catch (IOException e) {
+                    context.fail(e);
+                }
+                request.response().setStatusCode(201).end();
+            });
+        });
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(dataPoints, context.asyncAssertSuccess(result -> teardown(async)));
+        });
+    }
+
+    @Test
+    public void testFailedRequestStartFreesSlot(TestContext context) {
+        Vertx vertx = mock(Vertx.class);
+        // the client is never created, starting a request throws
+        Mockito.doNothing().when(vertx).runOnContext(ArgumentMatchers.any());
+
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(5000);
+        when(options.getHttpMaxInFlightRequests()).thenReturn(1);
+
+        HttpSender sender = new HttpSender(vertx, options);
+        final List<DataPoint> dataPoints = Lists.newArrayList(new HttpSenderTest.DummyDataPoint("line1"));
+
+        // without a free slot the second batch would be rejected as too many pending requests
+        for (int i = 0; i < 2; i++) {
+            sender.send(dataPoints, context.asyncAssertFailure(error -> context.assertTrue(error instanceof NullPointerException)));
+        }
+        context.assertFalse(sender.isSaturated());
+    }
+
+    @Test
+    public void testSingleRetryTimerForFailedBatches(TestContext context) {
+        Vertx vertx = mock(Vertx.class);
+        // the client is never created, every request fails and its batch waits for a retry
+        Mockito.doNothing().when(vertx).runOnContext(ArgumentMatchers.any());
+        AtomicInteger timerIds = new AtomicInteger();
+        when(vertx.setTimer(anyLong(), ArgumentMatchers.any())).thenAnswer(invocation -> (long) timerIds.incrementAndGet());
+
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(5000);
+        when(options.getHttpRetryOptions()).thenReturn(new HttpRetryOptions().setInitialBackoff(1000).setMaxBackoff(1000));
+        when(options.getHttpCircuitBreakerOptions()).thenReturn(new CircuitBreakerOptions().setFailureThreshold(100));
+
+        HttpSender sender = new HttpSender(vertx, options);
+        for (int i = 0; i < 20; i++) {
+            sender.send(Lists.newArrayList(new HttpSenderTest.DummyDataPoint("line" + i)), context.asyncAssertFailure());
+        }
+
+        // a timer is only replaced when an earlier batch is queued, at most one is ever armed
+        context.assertTrue(sender.getRetryQueueBytes() > 0);
+        verify(vertx, times(timerIds.get() - 1)).cancelTimer(anyLong());
+    }
+
+    @Test
+    public void testInFlightRequestLimit(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpMaxInFlightRequests(1).setHttpMaxPendingRequests(1));
+        Async async = context.async();
+
+        final List<DataPoint> dataPoints = Lists.newArrayList(new HttpSenderTest.DummyDataPoint("line1"));
+        final List<HttpServerRequest> received = new ArrayList<>();
+
+        server.requestHandler(request -> {
+            received.add(request);
+            if (received.size() == 1) {
+                // one request in flight, one pending and the third one rejected
+                context.assertTrue(victim.isSaturated());
+                request.response().setStatusCode(201).end();
+            } else {
+                context.assertFalse(victim.isSaturated());
+                request.response().setStatusCode(201).end();
+            }
+        });
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(dataPoints, context.asyncAssertSuccess());
+            victim.send(dataPoints, context.asyncAssertSuccess(result -> {
+                context.assertEquals(2, received.size());
+                teardown(async);
+            }));
+            victim.send(dataPoints, context.asyncAssertFailure());
+        });
+    }
+
+    @Test
+    public void testRetryCoalescedIntoNextRequest(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpRetryOptions(new HttpRetryOptions().setInitialBackoff(60000)));
+        Async async = context.async();
+
+        final List<String> bodies = new ArrayList<>();
+
+        server.requestHandler(request -> request.bodyHandler(body -> {
+            bodies.add(body.toString());
+            if (bodies.size() == 1) {
+                request.response().setStatusCode(503).end();
+            } else {
+                request.response().setStatusCode(201).end();
+            }
+        }));
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(Lists.newArrayList(new DummyDataPoint("line1")), context.asyncAssertFailure(failed -> {
+                context.assertEquals(5L, victim.getRetryQueueBytes());
+
+                victim.send(Lists.newArrayList(new DummyDataPoint("line2")), context.asyncAssertSuccess(sent -> {
+                    context.assertEquals(Lists.newArrayList("line1", "line2\nline1"), bodies);
+                    context.assertEquals(0L, victim.getRetryQueueBytes());
+                    teardown(async);
+                }));
+            }));
+        });
+    }
+
+    @Test
+    public void testRetryAfterBackoff(TestContext context) {
+        this.setup(false, null, null, options -> options.setHttpRetryOptions(new HttpRetryOptions().setInitialBackoff(10)));
+        Async async = context.async();
+
+        final List<String> bodies = new ArrayList<>();
+
+        server.requestHandler(request -> request.bodyHandler(body -> {
+            bodies.add(body.toString());
+            if (bodies.size() == 1) {
+                request.response().setStatusCode(503).end();
+            } else {
+                request.response().setStatusCode(201).end();
+                context.assertEquals(Lists.newArrayList("line1", "line1"), bodies);
+                vertx.setTimer(50, timer -> {
+                    context.assertEquals(0L, victim.getRetryQueueBytes());
+                    context.assertEquals(0L, victim.getDiscardedBatchCount());
+                    teardown(async);
+                });
+            }
+        }));
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(Lists.newArrayList(new DummyDataPoint("line1")), context.asyncAssertFailure());
+        });
+    }
+
+    @Test
+    public void testNonRetryableStatusDiscarded(TestContext context) {
+        this.setup(false, null, null);
+        Async async = context.async();
+
+        server.requestHandler(request -> request.response().setStatusCode(400).end());
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(Lists.newArrayList(new DummyDataPoint("line1")), context.asyncAssertFailure(result -> {
+                context.assertEquals(0L, victim.getRetryQueueBytes());
+                context.assertEquals(1L, victim.getDiscardedBatchCount());
+                teardown(async);
+            }));
+        });
+    }
+
+    @Test
+    public void testRequestTimeoutOpensCircuit(TestContext context) {
+        this.setup(false, null, null, options -> options.setTimeout(100)
+                .setHttpRetryOptions(new HttpRetryOptions().setMaxRetries(0))
+                .setHttpCircuitBreakerOptions(new CircuitBreakerOptions().setFailureThreshold(1).setResetTimeout(60000)));
+        Async async = context.async();
+
+        // never answers, the request times out
+        server.requestHandler(request -> { });
+
+        this.server.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            victim.send(Lists.newArrayList(new DummyDataPoint("line1")), context.asyncAssertFailure(timeout -> {
+                context.assertEquals(1L, victim.getCircuitOpenedCount());
+                context.assertTrue(victim.isSaturated());
+
+                victim.send(Lists.newArrayList(new DummyDataPoint("line2")), context.asyncAssertFailure(shed -> {
+                    context.assertEquals("Circuit open", shed.getMessage());
+                    context.assertEquals(2L, victim.getDiscardedBatchCount());
+                    teardown(async);
+                }));
+            }));
+        });
+    }
+
     @Test
     public void testSendFailure(TestContext context) throws Exception {
         this.setup(false, null, null);
@@ -159,7 +478,7 @@ public class HttpSenderTest {
         this.server.listen(PORT, HOST, event -> context.assertTrue(event.succeeded()));
 
         // we will wait for 5 seconds and consider the test a success if nothing is received
-        vertx.setTimer(5000, timer -> async.complete());
+        vertx.setTimer(5000, timer -> this.teardown(async));
 
         final List<String> metricLines = Lists.newArrayList("line1", "line2");
         final List<DataPoint> dataPoints = metricLines.stream().map(HttpSenderTest.DummyDataPoint::new).collect(Collectors.toList());
@@ -0,0 +1,59 @@
+package com.statful.sender;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.core.parsetools.RecordParser;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for a node-local metrics relay, collecting the metric lines streamed to it over a Unix domain
+ * socket or TCP. Meant for tests and benchmarks of the stream transports
+ */
+final class LocalAgentServer {
+
+    private final NetServer server;
+
+    private final SocketAddress address;
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private volatile Handler<String> lineHandler = line -> { };
+
+    LocalAgentServer(Vertx vertx, SocketAddress address) {
+        this.address = address;
+        this.server = vertx.createNetServer().connectHandler(socket -> socket.handler(RecordParser.newDelimited("\n", line -> {
+            bytes.add(line.length() + 1);
+            lines.add(line.toString());
+            lineHandler.handle(line.toString());
+        })));
+    }
+
+    LocalAgentServer lineHandler(Handler<String> handler) {
+        this.lineHandler = handler;
+        return this;
+    }
+
+    void listen(Handler<AsyncResult<NetServer>> handler) {
+        server.listen(address, handler);
+    }
+
+    void close(Handler<AsyncResult<Void>> handler) {
+        server.close(handler);
+    }
+
+    List<String> lines() {
+        return lines;
+    }
+
+    long bytes() {
+        return bytes.sum();
+    }
+}
@@ -0,0 +1,93 @@
+package com.statful.sender;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LogLinearHistogram victim = new LogLinearHistogram(60000, 2);
+        for (int value = 1; value <= 100; value++) {
+            victim.record(value);
+        }
+
+        assertEquals(100, victim.getTotalCount());
+        assertEquals(50, victim.getValueAtPercentile(50));
+        assertEquals(90, victim.getValueAtPercentile(90));
+        assertEquals(99, victim.getValueAtPercentile(99));
+        assertEquals(100, victim.getValueAtPercentile(100));
+        assertEquals(1, victim.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testLargeValuesKeepSignificantDigits() {
+        LogLinearHistogram victim = new LogLinearHistogram(3600000, 3);
+        Random random = new Random(42);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextInt(3600000);
+            victim.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 95, 99}) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = victim.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + expected + " vs " + actual, Math.abs(actual - expected) <= expected / 1000);
+        }
+    }
+
+    @Test
+    public void testResetForgetsValues() {
+        LogLinearHistogram victim = new LogLinearHistogram(60000, 2);
+        for (int value = 1; value <= 100; value++) {
+            victim.record(value * 100);
+        }
+        victim.reset();
+
+        assertEquals(0, victim.getTotalCount());
+        assertEquals(0, victim.getValueAtPercentile(99));
+
+        victim.record(5);
+        assertEquals(1, victim.getTotalCount());
+        assertEquals(5, victim.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testMemoryDoesNotDependOnValues() {
+        LogLinearHistogram victim = new LogLinearHistogram(60000, 2);
+        int buckets = victim.getBucketCount();
+        for (int i = 0; i < 100000; i++) {
+            victim.record(i);
+        }
+
+        assertEquals(buckets, victim.getBucketCount());
+        assertTrue(buckets < 2000);
+    }
+
+    @Test
+    public void testValuesOutOfRangeAreClamped() {
+        LogLinearHistogram victim = new LogLinearHistogram(1000, 2);
+        victim.record(-5);
+        victim.record(5000);
+
+        assertEquals(0, victim.getValueAtPercentile(50));
+        assertEquals(1000, victim.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        assertEquals(0, new LogLinearHistogram(1000, 2).getValueAtPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSignificantDigits() {
+        new LogLinearHistogram(1000, 6);
+    }
+}
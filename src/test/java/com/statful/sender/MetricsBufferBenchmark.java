@@ -0,0 +1,99 @@
+package com.statful.sender;
+
+import com.statful.client.BufferType;
+import com.statful.client.WaitStrategy;
+import com.statful.metric.DataPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for the metrics buffers. Producers add metrics while a single background thread drains the
+ * buffer in batches, like the periodic flush does.
+ *
+ * Run with: mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *           -Dexec.args="-cp %classpath org.openjdk.jmh.Main MetricsBufferBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBufferBenchmark {
+
+    private static final DataPoint DATA_POINT = () -> "namespace.timer.execution,transport=http 10 1 avg,10 100";
+
+    @Param({"BLOCKING", "RING"})
+    public BufferType bufferType;
+
+    @Param({"YIELD"})
+    public WaitStrategy waitStrategy;
+
+    private MetricsBuffer buffer;
+
+    private Thread consumer;
+
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (BufferType.RING.equals(bufferType)) {
+            buffer = new RingMetricsBuffer(5000, waitStrategy);
+        } else {
+            buffer = new BlockingMetricsBuffer(5000);
+        }
+
+        running = true;
+        consumer = new Thread(() -> {
+            final List<DataPoint> batch = new ArrayList<>(100);
+            while (running) {
+                if (buffer.drainTo(batch, 100) == 0) {
+                    Thread.yield();
+                }
+                batch.clear();
+            }
+        }, "metrics-buffer-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws InterruptedException {
+        running = false;
+        consumer.join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean offer1Producer() {
+        return buffer.offer(DATA_POINT);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean offer8Producers() {
+        return buffer.offer(DATA_POINT);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean offer32Producers() {
+        return buffer.offer(DATA_POINT);
+    }
+}
@@ -1,22 +1,46 @@
 package com.statful.sender;
 
+import com.statful.client.BufferType;
+import com.statful.client.FlushMode;
+import com.statful.client.OverflowPolicy;
+import com.statful.client.SpillOptions;
 import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.WaitStrategy;
 import com.statful.metric.DataPoint;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import javax.annotation.Nonnull;
-import java.util.List;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+@RunWith(VertxUnitRunner.class)
 public class MetricsHolderTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testShouldNotAddMetric() {
 
@@ -66,23 +90,458 @@ public class MetricsHolderTest {
         assertEquals(1, dummy.adder.intValue());
     }
 
+    @Test
+    public void testFlushIfRingBufferFull() {
+
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.isDryrun()).thenReturn(false);
+        when(options.getMaxBufferSize()).thenReturn(2);
+        when(options.getFlushSize()).thenReturn(5);
+        when(options.getBufferType()).thenReturn(BufferType.RING);
+        when(options.getBufferWaitStrategy()).thenReturn(WaitStrategy.SPIN);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertFalse(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(1, dummy.adder.intValue());
+    }
+
+    @Test
+    public void testDropNewestCountsRejected() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(1);
+        when(options.getFlushSize()).thenReturn(5);
+        when(options.getBufferOverflowPolicy()).thenReturn(OverflowPolicy.DROP_NEWEST);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertFalse(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(1, dummy.getRejectedCount());
+        assertEquals(0, dummy.getEvictedCount());
+    }
+
+    @Test
+    public void testDropOldestEvicts() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(2);
+        when(options.getFlushSize()).thenReturn(5);
+        when(options.getBufferOverflowPolicy()).thenReturn(OverflowPolicy.DROP_OLDEST);
+        when(options.getBufferType()).thenReturn(BufferType.RING);
+        when(options.getBufferWaitStrategy()).thenReturn(WaitStrategy.SPIN);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(2, dummy.getEvictedCount());
+        assertEquals(0, dummy.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockTimesOutOnWorkerThread() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(1);
+        when(options.getFlushSize()).thenReturn(5);
+        when(options.getBufferOverflowPolicy()).thenReturn(OverflowPolicy.BLOCK);
+        when(options.getBufferOfferTimeout()).thenReturn(50L);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        // the transport can't take the backlog, the flush signalled before waiting frees nothing
+        dummy.saturated = true;
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        long start = System.nanoTime();
+        assertFalse(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(1, dummy.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockFlushesBeforeWaiting() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(1);
+        when(options.getFlushSize()).thenReturn(5);
+        when(options.getBufferOverflowPolicy()).thenReturn(OverflowPolicy.BLOCK);
+        when(options.getBufferOfferTimeout()).thenReturn(10000L);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        // the inline flush empties the buffer, the worker doesn't sit out the offer timeout
+        long start = System.nanoTime();
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertEquals(1, dummy.adder.intValue());
+        assertEquals(1, dummy.getBufferedCount());
+        assertEquals(0, dummy.getRejectedCount());
+    }
+
+    @Test
+    public void testThreadFlushModeFlushesOffProducerThread() throws InterruptedException {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(2);
+        when(options.getFlushMode()).thenReturn(FlushMode.THREAD);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        Vertx vertx = mock(Vertx.class);
+        when(vertx.setPeriodic(anyLong(), any())).thenReturn(42L);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        // signals before the flusher exists are left for the periodic flush
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(0, dummy.adder.intValue());
+
+        dummy.configureFlushInterval(vertx, 1000);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        assertTrue(dummy.sent.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Thread.currentThread(), dummy.sender);
+
+        dummy.stopFlushing();
+        verify(vertx).cancelTimer(42L);
+    }
+
+    @Test
+    public void testContextFlushModeFlushesOnContext(TestContext context) {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(1);
+        when(options.getFlushMode()).thenReturn(FlushMode.CONTEXT);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        Vertx vertx = Vertx.vertx();
+        Async async = context.async();
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+
+        vertx.runOnContext(aVoid -> {
+            dummy.configureFlushInterval(vertx, 1000);
+            Thread contextThread = Thread.currentThread();
+
+            new Thread(() -> {
+                context.assertTrue(dummy.addMetric(mock(DataPoint.class)));
+                vertx.setTimer(100, timer -> {
+                    context.assertEquals(1, dummy.adder.intValue());
+                    context.assertEquals(contextThread, dummy.sender);
+                    dummy.stopFlushing();
+                    vertx.close(context.asyncAssertSuccess(closed -> async.complete()));
+                });
+            }).start();
+        });
+    }
+
+    @Test
+    public void testFlushCycleDrainsUntilEmpty() throws InterruptedException {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(2);
+        when(options.getMaxInFlightBatches()).thenReturn(10);
+        when(options.getFlushMode()).thenReturn(FlushMode.THREAD);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling, 4);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        }
+
+        dummy.configureFlushInterval(mock(Vertx.class), 1000);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        assertTrue(dummy.sent.await(5, TimeUnit.SECONDS));
+        assertEquals(4, dummy.adder.intValue());
+        assertEquals(0, dummy.getBufferedCount());
+
+        dummy.stopFlushing();
+    }
+
+    @Test
+    public void testFlushCycleStopsAtMaxInFlightBatches() throws InterruptedException {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(2);
+        when(options.getMaxInFlightBatches()).thenReturn(2);
+        when(options.getFlushMode()).thenReturn(FlushMode.THREAD);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling, 2);
+        dummy.acknowledge = false;
+        for (int i = 0; i < 7; i++) {
+            assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        }
+
+        dummy.configureFlushInterval(mock(Vertx.class), 1000);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        assertTrue(dummy.sent.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(2, dummy.adder.intValue());
+        assertEquals(4, dummy.getBufferedCount());
+
+        // acknowledging a batch leaves room for the backlog
+        dummy.sent = new CountDownLatch(1);
+        dummy.pending.poll().handle(Future.succeededFuture());
+
+        assertTrue(dummy.sent.await(5, TimeUnit.SECONDS));
+        assertEquals(3, dummy.adder.intValue());
+
+        dummy.stopFlushing();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnacknowledgedBatchFreesSlotAfterDeadline() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(1);
+        when(options.getMaxInFlightBatches()).thenReturn(1);
+        when(options.getTimeout()).thenReturn(100);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        Vertx vertx = mock(Vertx.class);
+        when(vertx.setTimer(anyLong(), any())).thenReturn(1L, 2L);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        dummy.configureFlushInterval(vertx, 1000);
+        dummy.acknowledge = false;
+
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(1, dummy.adder.intValue());
+        assertEquals(1, dummy.getBufferedCount());
+
+        // the transport never answers, the deadline frees the slot for the backlog
+        ArgumentCaptor<Handler<Long>> deadline = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx).setTimer(eq(200L), deadline.capture());
+        deadline.getValue().handle(1L);
+
+        assertEquals(2, dummy.adder.intValue());
+        assertEquals(1, dummy.getUnacknowledgedBatchCount());
+
+        // a late acknowledgement doesn't free the slot a second time
+        dummy.pending.poll().handle(Future.succeededFuture());
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(2, dummy.adder.intValue());
+
+        // the second batch's acknowledgement cancels its deadline
+        dummy.pending.poll().handle(Future.succeededFuture());
+        verify(vertx).cancelTimer(2L);
+        assertEquals(3, dummy.adder.intValue());
+    }
+
+    @Test
+    public void testFlushCycleStopsAtByteBudget() throws InterruptedException {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(2);
+        when(options.getMaxInFlightBatches()).thenReturn(10);
+        when(options.getFlushCycleByteBudget()).thenReturn(1L);
+        when(options.getFlushMode()).thenReturn(FlushMode.THREAD);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling, 1);
+        dummy.acknowledge = false;
+        for (int i = 0; i < 7; i++) {
+            assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        }
+
+        dummy.configureFlushInterval(mock(Vertx.class), 1000);
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+
+        assertTrue(dummy.sent.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(1, dummy.adder.intValue());
+        assertEquals(6, dummy.getBufferedCount());
+
+        dummy.stopFlushing();
+    }
+
+    @Test
+    public void testFlushRequestedDuringCycleRunsAnotherCycle() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(10);
+        when(options.getFlushSize()).thenReturn(1);
+        when(options.getMaxInFlightBatches()).thenReturn(10);
+        // the cycle stops after its first batch, past its last drain
+        when(options.getFlushCycleByteBudget()).thenReturn(1L);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        dataPointAddedWhileSending(dummy);
+
+        assertTrue(dummy.addMetric(dataPoint("first")));
+
+        // the flush signalled by the point added during the cycle isn't left for the periodic flush
+        assertEquals(2, dummy.adder.intValue());
+        assertEquals(0, dummy.getBufferedCount());
+        assertEquals("second", dummy.lastBundle.toString());
+    }
+
+    private static void dataPointAddedWhileSending(DummyMetricsHolder dummy) {
+        dummy.onSend = () -> {
+            dummy.onSend = null;
+            assertTrue(dummy.addMetric(dataPoint("second")));
+        };
+    }
+
+    @Test
+    public void testFlushCycleStopsWhenSaturated() {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(2);
+        when(options.getFlushSize()).thenReturn(1);
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        dummy.saturated = true;
+
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        assertTrue(dummy.addMetric(mock(DataPoint.class)));
+        // the buffer is kept and the overflow policy applies
+        assertFalse(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(0, dummy.adder.intValue());
+        assertEquals(1, dummy.getRejectedCount());
+
+        // once the transport recovers the next flush drains the backlog
+        dummy.saturated = false;
+        assertFalse(dummy.addMetric(mock(DataPoint.class)));
+        assertEquals(2, dummy.adder.intValue());
+        assertEquals(0, dummy.getBufferedCount());
+    }
+
+    @Test
+    public void testSpillsOverflowAndReplays() throws IOException, InterruptedException {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(2);
+        when(options.getFlushSize()).thenReturn(1);
+        when(options.getFlushMode()).thenReturn(FlushMode.THREAD);
+        when(options.getSpillOptions()).thenReturn(new SpillOptions().setEnabled(true).setDirectory(folder.newFolder().getPath()));
+
+        Sampling sampling = mock(Sampling.class);
+        when(sampling.shouldInsert()).thenReturn(true);
+
+        Vertx vertx = mock(Vertx.class);
+        DummyMetricsHolder dummy = new DummyMetricsHolder(options, sampling);
+        dummy.configureFlushInterval(vertx, 5000);
+        dummy.saturated = true;
+
+        assertTrue(dummy.addMetric(dataPoint("first")));
+        assertTrue(dummy.addMetric(dataPoint("second")));
+        // the overflow policy applies on the producer's thread while the flusher moves the oldest metrics to disk
+        assertFalse(dummy.addMetric(dataPoint("third")));
+        assertEquals(1, dummy.getRejectedCount());
+        awaitSpilledBatches(dummy, 1);
+        assertEquals(1, dummy.getBufferedCount());
+        assertTrue(dummy.addMetric(dataPoint("fourth")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Handler<Long>> replay = ArgumentCaptor.forClass(Handler.class);
+        verify(vertx).setPeriodic(eq(1000L), replay.capture());
+
+        dummy.saturated = false;
+        dummy.acknowledge = false;
+        replay.getValue().handle(1L);
+        assertEquals(1, dummy.getReplayedBatchCount());
+        assertEquals("first", dummy.lastBundle.toString());
+
+        dummy.stopFlushing();
+    }
+
+    private static void awaitSpilledBatches(MetricsHolder holder, long batches) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (holder.getSpilledBatchCount() < batches && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(batches, holder.getSpilledBatchCount());
+    }
+
+    private static DataPoint dataPoint(String line) {
+        DataPoint dataPoint = mock(DataPoint.class);
+        doAnswer(invocation -> invocation.<Buffer>getArgument(0).appendString(line)).when(dataPoint).writeTo(any(), any());
+        return dataPoint;
+    }
+
     private static final class DummyMetricsHolder extends MetricsHolder {
 
         private LongAdder adder = new LongAdder();
 
+        private volatile CountDownLatch sent;
+
+        private volatile Thread sender;
+
+        private volatile boolean acknowledge = true;
+
+        private volatile boolean saturated;
+
+        private volatile Buffer lastBundle;
+
+        private volatile Runnable onSend;
+
+        private final Queue<Handler<AsyncResult<Void>>> pending = new ConcurrentLinkedQueue<>();
 
         DummyMetricsHolder(StatfulMetricsOptions options, Sampling sampler) {
+            this(options, sampler, 1);
+        }
+
+        DummyMetricsHolder(StatfulMetricsOptions options, Sampling sampler, int expectedBundles) {
             super(options, sampler);
+            this.sent = new CountDownLatch(expectedBundles);
         }
 
         @Override
-        public void send(@Nonnull List<DataPoint> metrics, @Nonnull Handler<AsyncResult<Void>> sentHandler) {
+        void sendBundle(@Nonnull Buffer bundle, Handler<AsyncResult<Void>> sentHandler) {
             adder.increment();
+            sender = Thread.currentThread();
+            lastBundle = bundle;
+            Runnable sending = onSend;
+            if (sending != null) {
+                sending.run();
+            }
+            if (sentHandler != null) {
+                if (acknowledge) {
+                    sentHandler.handle(Future.succeededFuture());
+                } else {
+                    pending.add(sentHandler);
+                }
+            }
+            sent.countDown();
         }
 
         @Override
-        public void send(@Nonnull List<DataPoint> metrics) {
-            adder.increment();
+        boolean isSaturated() {
+            return saturated;
         }
 
         @Override
@@ -90,4 +549,4 @@ public class MetricsHolderTest {
 
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,241 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.statful.client.CustomMetric;
+import com.statful.client.EndpointMode;
+import com.statful.client.MetricType;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.metric.DataPoint;
+import com.statful.metric.PoolDataPoint;
+import com.statful.utils.Pair;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MultiEndpointSenderTest {
+
+    @Test
+    public void testFailoverPrefersPrimary() {
+        EndpointSender primary = new EndpointSender();
+        EndpointSender fallback = new EndpointSender();
+        MultiEndpointSender victim = new MultiEndpointSender(Lists.newArrayList(primary, fallback), EndpointMode.FAILOVER);
+
+        assertTrue(victim.addMetric(new DummyDataPoint("metric value 1")));
+        assertEquals(1, primary.getBufferedCount());
+        assertEquals(0, fallback.getBufferedCount());
+    }
+
+    @Test
+    public void testFailoverToNextHealthySender() {
+        EndpointSender primary = new EndpointSender();
+        EndpointSender first = new EndpointSender();
+        EndpointSender second = new EndpointSender();
+        MultiEndpointSender victim = new MultiEndpointSender(Lists.newArrayList(primary, first, second), EndpointMode.FAILOVER);
+
+        primary.healthy = false;
+        first.healthy = false;
+        assertSame(second, victim.active());
+
+        // the primary takes over again once it recovers
+        primary.healthy = true;
+        assertSame(primary, victim.active());
+
+        // without any healthy sender metrics stay with the primary
+        primary.healthy = false;
+        second.healthy = false;
+        assertSame(primary, victim.active());
+    }
+
+    @Test
+    public void testFailoverFailsBackOnceThePrimaryRecovers() throws InterruptedException {
+        TransportSender primary = new TransportSender();
+        TransportSender fallback = new TransportSender();
+        MultiEndpointSender victim = new MultiEndpointSender(Lists.newArrayList(primary, fallback), EndpointMode.FAILOVER);
+
+        primary.failing = true;
+        victim.addMetric(new DummyDataPoint("first 1 100"));
+        assertSame(fallback, victim.active());
+
+        victim.addMetric(new DummyDataPoint("second 1 100"));
+        assertEquals(1, fallback.bundles.size());
+
+        // once the retry interval elapses the next batch probes the recovered primary
+        primary.failing = false;
+        Thread.sleep(TransportSender.RETRY_INTERVAL * 2);
+        victim.addMetric(new DummyDataPoint("third 1 100"));
+        assertEquals(Lists.newArrayList("first 1 100", "third 1 100"),
+                primary.bundles.stream().map(Buffer::toString).collect(Collectors.toList()));
+        assertSame(primary, victim.active());
+
+        victim.addMetric(new DummyDataPoint("fourth 1 100"));
+        assertEquals(3, primary.bundles.size());
+        assertEquals(1, fallback.bundles.size());
+    }
+
+    @Test
+    public void testShardingKeepsSeriesTogether() {
+        List<MetricsHolder> senders = Lists.newArrayList(new EndpointSender(), new EndpointSender(), new EndpointSender());
+        MultiEndpointSender victim = new MultiEndpointSender(senders, EndpointMode.SHARDING);
+
+        for (int series = 0; series < 30; series++) {
+            MetricsHolder owner = victim.shard(new DummyDataPoint("metric" + series + ",tag=a 1 100"));
+            for (int point = 0; point < 5; point++) {
+                assertSame(owner, victim.shard(new DummyDataPoint("metric" + series + ",tag=a " + point + " " + (100 + point))));
+            }
+        }
+    }
+
+    @Test
+    public void testShardingSpreadsSeries() {
+        List<MetricsHolder> senders = Lists.newArrayList(new EndpointSender(), new EndpointSender(), new EndpointSender());
+        MultiEndpointSender victim = new MultiEndpointSender(senders, EndpointMode.SHARDING);
+
+        for (int series = 0; series < 300; series++) {
+            victim.addMetric(new DummyDataPoint("metric" + series + " 1 100"));
+        }
+
+        for (MetricsHolder sender : senders) {
+            assertTrue(sender.getBufferedCount() > 50);
+        }
+    }
+
+    @Test
+    public void testShardedSendCompletesOnceAllShardsSent() {
+        EndpointSender first = new EndpointSender();
+        EndpointSender second = new EndpointSender();
+        MultiEndpointSender victim = new MultiEndpointSender(Lists.newArrayList(first, second), EndpointMode.SHARDING);
+
+        List<DataPoint> metrics = new ArrayList<>();
+        for (int series = 0; series < 20; series++) {
+            metrics.add(new DummyDataPoint("metric" + series + " 1 100"));
+        }
+
+        AtomicBoolean sent = new AtomicBoolean();
+        victim.send(metrics, result -> sent.set(result.succeeded()));
+
+        assertTrue(sent.get());
+        assertEquals(2, first.bundles.size() + second.bundles.size());
+        assertEquals(20, countLines(first.bundles) + countLines(second.bundles));
+    }
+
+    @Test
+    public void testSeriesKey() {
+        assertEquals("namespace.counter.hits,app=a", new DummyDataPoint("namespace.counter.hits,app=a 1 100 sum,10 100").seriesKey());
+        assertEquals("no-value", new DummyDataPoint("no-value").seriesKey());
+        assertEquals("gauge.pool,name=db,type=in-use",
+                new PoolDataPoint(mock(StatfulMetricsOptions.class), "db", "in-use", 3).seriesKey());
+        assertEquals("counter.hits,app=a", new CustomMetric.Builder().withMetricName("hits").withMetricType(MetricType.COUNTER)
+                .withTags(Lists.newArrayList(new Pair<>("app", "a"))).withValue(1).build().seriesKey());
+    }
+
+    private static int countLines(List<Buffer> bundles) {
+        return bundles.stream().mapToInt(bundle -> bundle.toString().split("\n").length).sum();
+    }
+
+    private static final class EndpointSender extends MetricsHolder {
+
+        private volatile boolean healthy = true;
+
+        private final List<Buffer> bundles = new ArrayList<>();
+
+        EndpointSender() {
+            super(options(), sampling());
+        }
+
+        private static Sampling sampling() {
+            Sampling sampling = mock(Sampling.class);
+            when(sampling.shouldInsert()).thenReturn(true);
+            return sampling;
+        }
+
+        private static StatfulMetricsOptions options() {
+            StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+            when(options.getMaxBufferSize()).thenReturn(1000);
+            when(options.getFlushSize()).thenReturn(1000);
+            return options;
+        }
+
+        @Override
+        void sendBundle(@Nonnull Buffer bundle, Handler<AsyncResult<Void>> sentHandler) {
+            bundles.add(bundle);
+            if (sentHandler != null) {
+                sentHandler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        @Override
+        public void close(Handler<AsyncResult<Void>> handler) {
+        }
+    }
+
+    /**
+     * Sender flushing every metric on its own, through a transport that can be made to fail
+     */
+    private static final class TransportSender extends MetricsHolder {
+
+        private static final long RETRY_INTERVAL = 50;
+
+        private volatile boolean failing;
+
+        private final List<Buffer> bundles = new ArrayList<>();
+
+        TransportSender() {
+            super(options(), EndpointSender.sampling());
+        }
+
+        private static StatfulMetricsOptions options() {
+            StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+            when(options.getMaxBufferSize()).thenReturn(1000);
+            when(options.getFlushSize()).thenReturn(1);
+            when(options.getEndpointRetryInterval()).thenReturn(RETRY_INTERVAL);
+            return options;
+        }
+
+        @Override
+        void sendBundle(@Nonnull Buffer bundle, Handler<AsyncResult<Void>> sentHandler) {
+            bundles.add(bundle);
+            if (failing) {
+                sentHandler.handle(Future.failedFuture("connection refused"));
+            } else {
+                sentHandler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public void close(Handler<AsyncResult<Void>> handler) {
+        }
+    }
+
+    private static final class DummyDataPoint implements DataPoint {
+
+        private final String line;
+
+        DummyDataPoint(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public String toMetricLine() {
+            return this.line;
+        }
+    }
+}
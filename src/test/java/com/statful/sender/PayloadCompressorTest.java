@@ -0,0 +1,75 @@
+package com.statful.sender;
+
+import com.google.common.io.ByteStreams;
+import com.statful.client.Compression;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadCompressorTest {
+
+    private static final String LINES = "namespace.timer.execution,app=test,host=a avg,p90,count,10 100 1500000000\n"
+            + "namespace.timer.execution,app=test,host=b avg,p90,count,10 150 1500000000\n"
+            + "namespace.timer.execution,app=test,host=c avg,p90,count,10 200 1500000000";
+
+    @Test
+    public void testNoCompression() {
+        PayloadCompressor victim = new PayloadCompressor(Compression.NONE, 6, 0);
+        assertFalse(victim.shouldCompress(Buffer.buffer(LINES)));
+    }
+
+    @Test
+    public void testBelowMinSize() {
+        PayloadCompressor victim = new PayloadCompressor(Compression.GZIP, 6, LINES.length() + 1);
+        assertFalse(victim.shouldCompress(Buffer.buffer(LINES)));
+        assertTrue(victim.shouldCompress(Buffer.buffer(LINES + "\n")));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        PayloadCompressor victim = new PayloadCompressor(Compression.GZIP, 9, 0);
+        Buffer compressed = victim.compress(Buffer.buffer(LINES));
+
+        assertEquals("gzip", victim.contentEncoding());
+        assertTrue(compressed.length() < LINES.length());
+        assertEquals(LINES, inflate(new GZIPInputStream(new ByteArrayInputStream(compressed.getBytes()))));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        PayloadCompressor victim = new PayloadCompressor(Compression.DEFLATE, 1, 0);
+        Buffer compressed = victim.compress(Buffer.buffer(LINES));
+
+        assertEquals("deflate", victim.contentEncoding());
+        assertTrue(compressed.length() < LINES.length());
+        assertEquals(LINES, inflate(new InflaterInputStream(new ByteArrayInputStream(compressed.getBytes()))));
+    }
+
+    @Test
+    public void testContentEncodingIgnoresDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        // the dotless i of the turkish locale would turn gzip into an unknown encoding
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals("gzip", new PayloadCompressor(Compression.GZIP, 1, 0).contentEncoding());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static String inflate(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return new String(ByteStreams.toByteArray(in), "UTF-8");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.statful.sender;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryQueueTest {
+
+    @Test
+    public void testDiscardsOldestWhenFull() {
+        RetryQueue victim = new RetryQueue(10);
+
+        assertTrue(victim.add(entry("aaaa", 0)));
+        assertTrue(victim.add(entry("bbbb", 0)));
+        assertTrue(victim.add(entry("cccc", 0)));
+
+        assertEquals(8, victim.bytes());
+        assertEquals(1, victim.discarded());
+        assertEquals("bbbb,cccc", payloads(victim.poll(100, false)));
+    }
+
+    @Test
+    public void testRejectsBatchLargerThanQueue() {
+        RetryQueue victim = new RetryQueue(3);
+
+        assertFalse(victim.add(entry("aaaa", 0)));
+        assertEquals(0, victim.bytes());
+        assertEquals(1, victim.discarded());
+    }
+
+    @Test
+    public void testPollWithinBudget() {
+        RetryQueue victim = new RetryQueue(100);
+        victim.add(entry("aaaa", 0));
+        victim.add(entry("bbbb", 0));
+        victim.add(entry("cc", 0));
+
+        assertEquals("aaaa", payloads(victim.poll(6, false)));
+        assertEquals("", payloads(victim.poll(3, false)));
+        assertEquals(6, victim.bytes());
+    }
+
+    @Test
+    public void testPollDueOnly() {
+        RetryQueue victim = new RetryQueue(100);
+        victim.add(entry("later", TimeUnit.MINUTES.toNanos(1)));
+        victim.add(entry("now", 0));
+
+        assertEquals("now", payloads(victim.poll(100, true)));
+        assertEquals("later", payloads(victim.poll(100, false)));
+    }
+
+    @Test
+    public void testPollDueTakesOversizedBatchAlone() {
+        RetryQueue victim = new RetryQueue(100);
+        victim.add(entry("oversized", 0));
+        victim.add(entry("b", 0));
+
+        assertEquals("oversized", payloads(victim.poll(4, true)));
+        assertEquals("b", payloads(victim.poll(4, true)));
+    }
+
+    @Test
+    public void testEarliestDueAt() {
+        RetryQueue victim = new RetryQueue(100);
+        assertFalse(victim.earliestDueAt().isPresent());
+
+        RetryQueue.Entry later = entry("later", TimeUnit.MINUTES.toNanos(1));
+        RetryQueue.Entry sooner = entry("sooner", TimeUnit.SECONDS.toNanos(1));
+        victim.add(later);
+        victim.add(sooner);
+
+        assertEquals(sooner.getDueAt(), victim.earliestDueAt().getAsLong());
+    }
+
+    private static RetryQueue.Entry entry(String payload, long delay) {
+        return new RetryQueue.Entry(Buffer.buffer(payload), 1, System.nanoTime() + delay);
+    }
+
+    private static String payloads(List<RetryQueue.Entry> entries) {
+        return entries.stream().map(entry -> entry.getPayload().toString()).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,133 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.statful.client.WaitStrategy;
+import com.statful.metric.DataPoint;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RingMetricsBufferTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new RingMetricsBuffer(0, WaitStrategy.SPIN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleSlotCapacity() {
+        new RingMetricsBuffer(1, WaitStrategy.SPIN);
+    }
+
+    @Test
+    public void testOfferUntilFull() {
+        RingMetricsBuffer victim = new RingMetricsBuffer(3, WaitStrategy.SPIN);
+
+        assertTrue(victim.offer(mock(DataPoint.class)));
+        assertTrue(victim.offer(mock(DataPoint.class)));
+        assertTrue(victim.offer(mock(DataPoint.class)));
+        assertFalse(victim.offer(mock(DataPoint.class)));
+        assertEquals(3, victim.size());
+    }
+
+    @Test
+    public void testDrainKeepsInsertionOrder() {
+        RingMetricsBuffer victim = new RingMetricsBuffer(3, WaitStrategy.YIELD);
+        DataPoint first = mock(DataPoint.class);
+        DataPoint second = mock(DataPoint.class);
+        DataPoint third = mock(DataPoint.class);
+
+        victim.offer(first);
+        victim.offer(second);
+
+        List<DataPoint> drained = Lists.newArrayList();
+        assertEquals(1, victim.drainTo(drained, 1));
+        assertSame(first, drained.get(0));
+
+        // wraps around the ring
+        victim.offer(third);
+        victim.offer(first);
+
+        assertEquals(3, victim.drainTo(drained, 10));
+        assertEquals(Lists.newArrayList(first, second, third, first), drained);
+        assertEquals(0, victim.size());
+        assertEquals(0, victim.drainTo(drained, 10));
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 8;
+        final int perProducer = 10000;
+        RingMetricsBuffer victim = new RingMetricsBuffer(producers * perProducer, WaitStrategy.PARK);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int i = 0; i < producers; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < perProducer; j++) {
+                    victim.offer(mock(DataPoint.class));
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        List<DataPoint> drained = Lists.newArrayList();
+        assertEquals(producers * perProducer, victim.drainTo(drained, Integer.MAX_VALUE));
+        assertEquals(producers * perProducer, drained.stream().distinct().count());
+    }
+
+    @Test
+    public void testPollOldest() {
+        RingMetricsBuffer victim = new RingMetricsBuffer(2, WaitStrategy.SPIN);
+        DataPoint first = mock(DataPoint.class);
+
+        assertNull(victim.poll());
+        victim.offer(first);
+        victim.offer(mock(DataPoint.class));
+
+        assertSame(first, victim.poll());
+        assertEquals(1, victim.size());
+    }
+
+    @Test
+    public void testOfferWithTimeout() {
+        RingMetricsBuffer victim = new RingMetricsBuffer(2, WaitStrategy.PARK);
+
+        assertTrue(victim.offer(mock(DataPoint.class), 10, TimeUnit.MILLISECONDS));
+        assertTrue(victim.offer(mock(DataPoint.class), 10, TimeUnit.MILLISECONDS));
+        assertFalse(victim.offer(mock(DataPoint.class), 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testOfferWithTimeoutParksWhenSpinning() {
+        RingMetricsBuffer victim = new RingMetricsBuffer(2, WaitStrategy.SPIN);
+        victim.offer(mock(DataPoint.class));
+        victim.offer(mock(DataPoint.class));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+
+        assertFalse(victim.offer(mock(DataPoint.class), 200, TimeUnit.MILLISECONDS));
+
+        // a spinning wait would keep the thread on the cpu for the whole timeout
+        long waited = System.nanoTime() - start;
+        assertTrue(threads.getCurrentThreadCpuTime() - cpuStart < waited / 2);
+    }
+}
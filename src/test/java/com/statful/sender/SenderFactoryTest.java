@@ -1,5 +1,12 @@
 package com.statful.sender;
 
+import com.google.common.collect.Lists;
+import com.statful.client.Aggregation;
+import com.statful.client.CustomMetric;
+import com.statful.client.Endpoint;
+import com.statful.client.EndpointMode;
+import com.statful.client.MetricType;
+import com.statful.client.PreAggregationOptions;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.client.Transport;
 import io.vertx.core.Context;
@@ -7,6 +14,7 @@ import io.vertx.core.Vertx;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -50,4 +58,85 @@ public class SenderFactoryTest {
 
         assertTrue(victim.create(vertx, options) instanceof UDPSender);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTcpSenderCreation() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions();
+        options.setTransport(Transport.TCP);
+
+        assertTrue(victim.create(vertx, options) instanceof TCPSender);
+    }
+
+    @Test
+    public void testMultiEndpointSenderCreation() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setTransport(Transport.UDP)
+                .setEndpointMode(EndpointMode.SHARDING)
+                .setEndpoints(Lists.newArrayList(new Endpoint("relay-1", 2013), new Endpoint("relay-2", 2013)));
+
+        Sender sender = victim.create(vertx, options);
+        assertTrue(sender instanceof MultiEndpointSender);
+        assertEquals(2, ((MultiEndpointSender) sender).getSenders().size());
+        assertTrue(((MultiEndpointSender) sender).getSenders().stream().allMatch(UDPSender.class::isInstance));
+    }
+
+    @Test
+    public void testAggregatingSenderCreation() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setTransport(Transport.UDP)
+                .setPreAggregationOptions(new PreAggregationOptions().setEnabled(true));
+
+        assertTrue(victim.create(vertx, options) instanceof AggregatingSender);
+    }
+
+    @Test
+    public void testOnlyHttpAggregatesCountedSeries() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setPreAggregationOptions(new PreAggregationOptions().setEnabled(true));
+
+        AggregatingSender udp = (AggregatingSender) victim.create(vertx, new StatfulMetricsOptions(options).setTransport(Transport.UDP));
+        udp.addMetric(counter(options));
+        assertEquals(0, udp.getSeriesCount());
+
+        AggregatingSender http = (AggregatingSender) victim.create(vertx, new StatfulMetricsOptions(options).setTransport(Transport.HTTP));
+        http.addMetric(counter(options));
+        assertEquals(1, http.getSeriesCount());
+    }
+
+    @Test
+    public void testTeeSenderCreation() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setTransport(Transport.UDP)
+                .setTeeEndpoints(Lists.newArrayList(new Endpoint("collector", 443, Transport.HTTP)));
+
+        Sender sender = victim.create(vertx, options);
+        assertTrue(sender instanceof TeeSender);
+        assertEquals(2, ((TeeSender) sender).getDestinations().size());
+        assertTrue(((TeeSender) sender).getDestinations().get(0) instanceof UDPSender);
+        assertTrue(((TeeSender) sender).getDestinations().get(1) instanceof HttpSender);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTeeAndMultiEndpointAreExclusive() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setEndpoints(Lists.newArrayList(new Endpoint("relay-1", 2013)))
+                .setTeeEndpoints(Lists.newArrayList(new Endpoint("relay-2", 2013)));
+
+        victim.create(vertx, options);
+    }
+
+    @Test
+    public void testUnixSocketSenderCreation() {
+        StatfulMetricsOptions options = new StatfulMetricsOptions();
+        options.setTransport(Transport.UNIX);
+
+        assertTrue(victim.create(vertx, options) instanceof UnixSocketSender);
+    }
+
+    private static CustomMetric counter(StatfulMetricsOptions options) {
+        CustomMetric metric = new CustomMetric.Builder().withMetricName("hits").withMetricType(MetricType.COUNTER).withValue(1)
+                .withAggregations(Lists.newArrayList(Aggregation.COUNT)).build();
+        metric.setOptions(options);
+        return metric;
+    }
+}
@@ -0,0 +1,136 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TcpOptions;
+import com.statful.metric.DataPoint;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@RunWith(VertxUnitRunner.class)
+public class TCPSenderTest {
+
+    private static final String HOST = "0.0.0.0";
+    private static final int PORT = 1239;
+    private NetServer server;
+
+    private TCPSender victim;
+
+    private Vertx vertx;
+
+    /**
+     * not using @junit @Before since the server has to be listening before the sender connects.
+     * Don't forget to call this in your method
+     */
+    private void setup(Consumer<StatfulMetricsOptions> customizer) {
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setPort(PORT)
+                .setHost(HOST)
+                .setEnablePoolMetrics(false)
+                .setMaxBufferSize(5000)
+                .setFlushSize(2)
+                .setSecure(false);
+        customizer.accept(options);
+
+        this.victim = new TCPSender(vertx, options);
+    }
+
+    /**
+     * Not using junit @after annotation since we want to wait for the servers to close
+     *
+     * @param async used to finish the test
+     */
+    private void teardown(Async async) {
+        this.victim.close(victimClose -> this.server.close(serverClose -> this.vertx.close(vertxClose -> async.complete())));
+    }
+
+    @Test
+    public void testStreamsBufferedLinesOnceConnected(TestContext context) {
+        this.vertx = Vertx.vertx(new VertxOptions());
+        Async async = context.async();
+
+        final List<String> lines = new ArrayList<>();
+        this.server = vertx.createNetServer().connectHandler(socket -> socket.handler(RecordParser.newDelimited("\n", line -> {
+            lines.add(line.toString());
+            if (lines.size() == 3) {
+                context.assertEquals(Lists.newArrayList("line1", "line2", "line3"), lines);
+                context.assertEquals(2L, victim.getSentBatches());
+                teardown(async);
+            }
+        })));
+
+        this.server.listen(PORT, HOST, listening -> {
+            context.assertTrue(listening.succeeded());
+            this.setup(options -> { });
+
+            // buffered while connecting, flushed once connected
+            victim.addMetric(new DummyDataPoint("line1"));
+            victim.addMetric(new DummyDataPoint("line2"));
+            victim.addMetric(new DummyDataPoint("line3"));
+        });
+    }
+
+    @Test
+    public void testReconnectsAfterConnectionLoss(TestContext context) {
+        this.vertx = Vertx.vertx(new VertxOptions());
+        Async async = context.async();
+
+        final AtomicInteger accepted = new AtomicInteger();
+        this.server = vertx.createNetServer().connectHandler(socket -> {
+            if (accepted.incrementAndGet() == 1) {
+                socket.close();
+            } else {
+                vertx.setTimer(50, timer -> {
+                    context.assertEquals(2L, victim.getConnectionCount());
+                    context.assertFalse(victim.isSaturated());
+                    teardown(async);
+                });
+            }
+        });
+
+        this.server.listen(PORT, HOST, listening -> {
+            context.assertTrue(listening.succeeded());
+            this.setup(options -> options.setTcpOptions(new TcpOptions().setReconnectInitialBackoff(10)));
+        });
+    }
+
+    @Test
+    public void testSaturatedWhileDisconnected(TestContext context) {
+        this.vertx = Vertx.vertx(new VertxOptions());
+        Async async = context.async();
+
+        this.setup(options -> options.setTcpOptions(new TcpOptions().setReconnectInitialBackoff(10)));
+        context.assertTrue(victim.isSaturated());
+
+        victim.send(Lists.newArrayList(new DummyDataPoint("line1")), context.asyncAssertFailure(notConnected -> {
+            context.assertEquals("Not connected", notConnected.getMessage());
+            victim.close(closed -> vertx.close(vertxClose -> async.complete()));
+        }));
+    }
+
+    private static final class DummyDataPoint implements DataPoint {
+
+        private final String line;
+
+        DummyDataPoint(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public String toMetricLine() {
+            return this.line;
+        }
+    }
+}
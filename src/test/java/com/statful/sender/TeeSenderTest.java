@@ -0,0 +1,154 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.metric.DataPoint;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TeeSenderTest {
+
+    @Test
+    public void testEncodesOnceForEveryDestination() {
+        DestinationSender first = new DestinationSender(true);
+        DestinationSender second = new DestinationSender(true);
+        TeeSender victim = new TeeSender(mock(Vertx.class), options(4), Lists.newArrayList(first, second));
+
+        AtomicBoolean sent = new AtomicBoolean();
+        victim.send(Collections.singletonList(new DummyDataPoint("metric 1 100")), result -> sent.set(result.succeeded()));
+
+        assertTrue(sent.get());
+        assertEquals(1, first.bundles.size());
+        assertEquals(1, second.bundles.size());
+        assertSame(first.bundles.get(0), second.bundles.get(0));
+    }
+
+    @Test
+    public void testSlowDestinationDoesNotStallOthers() {
+        DestinationSender fast = new DestinationSender(true);
+        DestinationSender slow = new DestinationSender(false);
+        TeeSender victim = new TeeSender(mock(Vertx.class), options(2), Lists.newArrayList(fast, slow));
+
+        for (int batch = 0; batch < 5; batch++) {
+            victim.send(Collections.singletonList(new DummyDataPoint("metric " + batch + " 100")));
+        }
+
+        assertEquals(5, fast.bundles.size());
+        // one batch in flight, two queued and the two oldest queued batches dropped
+        assertEquals(1, slow.bundles.size());
+        assertEquals(2, victim.getDroppedBatchCount());
+        assertFalse(victim.isSaturated());
+
+        // completing the in flight batch sends the queued ones, newest last
+        slow.complete();
+        slow.complete();
+        assertEquals(3, slow.bundles.size());
+        assertEquals("metric 4 100", slow.bundles.get(2).toString().trim());
+    }
+
+    @Test
+    public void testSaturatedOnlyWhenEveryDestinationIsFull() {
+        DestinationSender first = new DestinationSender(false);
+        DestinationSender second = new DestinationSender(false);
+        TeeSender victim = new TeeSender(mock(Vertx.class), options(1), Lists.newArrayList(first, second));
+
+        victim.send(Collections.singletonList(new DummyDataPoint("metric 1 100")));
+        assertFalse(victim.isSaturated());
+
+        victim.send(Collections.singletonList(new DummyDataPoint("metric 2 100")));
+        assertTrue(victim.isSaturated());
+
+        first.complete();
+        assertFalse(victim.isSaturated());
+    }
+
+    @Test
+    public void testCloseClosesEveryDestination() {
+        DestinationSender first = new DestinationSender(true);
+        DestinationSender second = new DestinationSender(true);
+        TeeSender victim = new TeeSender(mock(Vertx.class), options(1), Lists.newArrayList(first, second));
+
+        AtomicBoolean closed = new AtomicBoolean();
+        victim.close(result -> closed.set(result.succeeded()));
+
+        assertTrue(closed.get());
+        assertTrue(first.closed);
+        assertTrue(second.closed);
+    }
+
+    private static StatfulMetricsOptions options(int queueSize) {
+        StatfulMetricsOptions options = mock(StatfulMetricsOptions.class);
+        when(options.getMaxBufferSize()).thenReturn(1000);
+        when(options.getFlushSize()).thenReturn(1000);
+        when(options.getSampleRate()).thenReturn(100);
+        when(options.getTeeQueueSize()).thenReturn(queueSize);
+        return options;
+    }
+
+    private static final class DestinationSender extends MetricsHolder {
+
+        private final boolean immediate;
+
+        private final List<Buffer> bundles = new ArrayList<>();
+
+        private final List<Handler<AsyncResult<Void>>> pending = new ArrayList<>();
+
+        private boolean closed;
+
+        DestinationSender(boolean immediate) {
+            super(options(1), mock(Sampling.class));
+            this.immediate = immediate;
+        }
+
+        void complete() {
+            pending.remove(0).handle(Future.succeededFuture());
+        }
+
+        @Override
+        void sendBundle(@Nonnull Buffer bundle, Handler<AsyncResult<Void>> sentHandler) {
+            bundles.add(bundle);
+            if (immediate) {
+                sentHandler.handle(Future.succeededFuture());
+            } else {
+                pending.add(sentHandler);
+            }
+        }
+
+        @Override
+        public void close(Handler<AsyncResult<Void>> handler) {
+            closed = true;
+            handler.handle(Future.succeededFuture());
+        }
+    }
+
+    private static final class DummyDataPoint implements DataPoint {
+
+        private final String line;
+
+        DummyDataPoint(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public String toMetricLine() {
+            return this.line;
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package com.statful.sender;
 
 import com.google.common.collect.Lists;
+import com.statful.client.SpillOptions;
 import com.statful.client.StatfulMetricsOptions;
 import com.statful.metric.DataPoint;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.datagram.DatagramSocket;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 @RunWith(VertxUnitRunner.class)
@@ -28,6 +41,10 @@ public class UDPSenderTest {
 
     private static final String HOST = "0.0.0.0";
     private static final int PORT = 1239;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private DatagramSocket receiver;
 
     private UDPSender victim;
@@ -39,8 +56,13 @@ public class UDPSenderTest {
      * Don't forget to call this in your method
      */
     public void setup(boolean isDryRun, Long flushInterval, Integer flushSize) {
+        this.setup(isDryRun, flushInterval, flushSize, options -> { });
+    }
+
+    public void setup(boolean isDryRun, Long flushInterval, Integer flushSize, Consumer<StatfulMetricsOptions> customizer) {
         StatfulMetricsOptions options = new StatfulMetricsOptions();
         options.setPort(PORT).setHost(HOST).setDryrun(isDryRun).setEnablePoolMetrics(false).setMaxBufferSize(5000);
+        customizer.accept(options);
 
         Optional.ofNullable(flushInterval).ifPresent(options::setFlushInterval);
         Optional.ofNullable(flushSize).ifPresent(options::setFlushSize);
@@ -118,6 +140,111 @@ public class UDPSenderTest {
         });
     }
 
+    @Test
+    public void testSendPacksLinesIntoDatagrams(TestContext context) {
+        this.setup(false, null, null, options -> options.setUdpMaxPayloadSize(11));
+        Async async = context.async();
+
+        final List<String> metricLines = Lists.newArrayList("line1", "line2", "line3");
+        final List<DataPoint> dataPoints = metricLines.stream().map(DummyDataPoint::new).collect(Collectors.toList());
+        final List<String> received = new ArrayList<>();
+
+        this.receiver.listen(PORT, HOST, event -> {
+            context.assertTrue(event.succeeded());
+            receiver.handler(packet -> {
+                received.add(packet.data().toString());
+                if (received.size() == 2) {
+                    context.assertEquals(Lists.newArrayList("line1\nline2", "line3"), received);
+                    this.receiver.close(ignore -> this.victim.close(victimClose -> async.complete()));
+                }
+            });
+
+            victim.send(dataPoints, context.asyncAssertSuccess(result -> {
+                context.assertEquals(2L, victim.getSentPackets());
+                context.assertEquals(16L, victim.getSentBytes());
+                context.assertEquals(2, victim.getLastBatchPackets());
+                context.assertEquals(16, victim.getLastBatchBytes());
+            }));
+        });
+    }
+
+    @Test
+    public void testLastBatchCountersOnlyCoverLastFlush(TestContext context) {
+        this.setup(false, null, null, options -> options.setUdpMaxPayloadSize(11));
+
+        final List<DataPoint> first = Lists.newArrayList(new DummyDataPoint("line1"), new DummyDataPoint("line2"),
+                new DummyDataPoint("line3"));
+        final List<DataPoint> second = Lists.newArrayList(new DummyDataPoint("line4"));
+
+        victim.send(first, context.asyncAssertSuccess(sentFirst ->
+                victim.send(second, context.asyncAssertSuccess(sentSecond -> {
+                    context.assertEquals(1, victim.getLastBatchPackets());
+                    context.assertEquals(5, victim.getLastBatchBytes());
+                    context.assertEquals(3L, victim.getSentPackets());
+                    context.assertEquals(21L, victim.getSentBytes());
+                }))));
+    }
+
+    @Test
+    public void testSpillsOnlyFailedDatagrams(TestContext context) throws IOException {
+        Vertx vertx = mock(Vertx.class);
+        doAnswer(invocation -> {
+            invocation.<Handler<Void>>getArgument(0).handle(null);
+            return null;
+        }).when(vertx).runOnContext(ArgumentMatchers.any());
+
+        // the datagram holding line3 fails, the one before it went through
+        DatagramSocket datagramSocket = mock(DatagramSocket.class);
+        when(vertx.createDatagramSocket(ArgumentMatchers.any())).thenReturn(datagramSocket);
+        when(datagramSocket.send(any(Buffer.class), anyInt(), anyString(), ArgumentMatchers.any())).thenAnswer(invocation -> {
+            Handler<AsyncResult<DatagramSocket>> handler = invocation.getArgument(3);
+            if (invocation.<Buffer>getArgument(0).toString().contains("line3")) {
+                handler.handle(Future.failedFuture("unreachable"));
+            } else {
+                handler.handle(Future.succeededFuture(datagramSocket));
+            }
+            return datagramSocket;
+        });
+
+        Path spillDirectory = folder.newFolder().toPath();
+        StatfulMetricsOptions options = new StatfulMetricsOptions().setUdpMaxPayloadSize(11)
+                .setSpillOptions(new SpillOptions().setEnabled(true).setDirectory(spillDirectory.toString()));
+
+        UDPSender sender = new UDPSender(vertx, options);
+        final List<DataPoint> dataPoints = Lists.newArrayList(new DummyDataPoint("line1"), new DummyDataPoint("line2"),
+                new DummyDataPoint("line3"));
+
+        sender.send(dataPoints, context.asyncAssertFailure(failed -> {
+            context.assertEquals(1L, sender.getSpilledBatchCount());
+            context.assertEquals(1L, sender.getSentPackets());
+
+            try {
+                DiskSpillQueue spilled = new DiskSpillQueue(spillDirectory, 1024, 1024 * 1024, TimeUnit.HOURS.toMillis(1));
+                context.assertEquals("line3", spilled.poll().map(Buffer::toString).orElse(null));
+                context.assertFalse(spilled.poll().isPresent());
+            } catch (IOException e) {
+                context.fail(e);
+            }
+        }));
+    }
+
+    @Test
+    public void testPackKeepsSmallBundleWhole() {
+        Buffer bundle = Buffer.buffer("line1\nline2");
+        List<Buffer> packets = UDPSender.pack(bundle, 11);
+
+        assertEquals(1, packets.size());
+        assertEquals("line1\nline2", packets.get(0).toString());
+    }
+
+    @Test
+    public void testPackNeverSplitsLines() {
+        Buffer bundle = Buffer.buffer("a\nlonger line\nb\nc\nd");
+        List<String> packets = UDPSender.pack(bundle, 3).stream().map(Buffer::toString).collect(Collectors.toList());
+
+        assertEquals(Lists.newArrayList("a", "longer line", "b\nc", "d"), packets);
+    }
+
     @Test
     public void testDryRunMetricsNotSent(TestContext context) {
 
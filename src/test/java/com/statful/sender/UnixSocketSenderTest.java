@@ -0,0 +1,129 @@
+package com.statful.sender;
+
+import com.google.common.collect.Lists;
+import com.statful.client.StatfulMetricsOptions;
+import com.statful.client.TcpOptions;
+import com.statful.metric.DataPoint;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+@RunWith(VertxUnitRunner.class)
+public class UnixSocketSenderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Domain sockets need netty's native transport, a test dependency only available on linux and macOS
+     */
+    private static Vertx nativeVertx() {
+        Vertx vertx = Vertx.vertx(new VertxOptions().setPreferNativeTransport(true));
+        if (!vertx.isNativeTransportEnabled()) {
+            vertx.close();
+        }
+        Assume.assumeTrue(vertx.isNativeTransportEnabled());
+        return vertx;
+    }
+
+    @Test
+    public void testStreamsLinesToLocalAgent(TestContext context) {
+        Vertx vertx = nativeVertx();
+
+        Async async = context.async();
+        String path = new File(folder.getRoot(), "statful.sock").getPath();
+
+        StatfulMetricsOptions options = new StatfulMetricsOptions().setUnixSocketPath(path).setEnablePoolMetrics(false).setFlushSize(2);
+
+        LocalAgentServer agent = new LocalAgentServer(vertx, SocketAddress.domainSocketAddress(path));
+        agent.listen(listening -> {
+            context.assertTrue(listening.succeeded());
+
+            UnixSocketSender victim = new UnixSocketSender(vertx, options);
+            agent.lineHandler(line -> {
+                if (agent.lines().size() == 2) {
+                    context.assertEquals(Lists.newArrayList("line1", "line2"), agent.lines());
+                    victim.close(closed -> agent.close(agentClosed -> vertx.close(vertxClosed -> async.complete())));
+                }
+            });
+
+            victim.addMetric(new DummyDataPoint("line1"));
+            victim.addMetric(new DummyDataPoint("line2"));
+        });
+    }
+
+    @Test
+    public void testKeepsMetricsUntilAgentListens(TestContext context) {
+        Vertx vertx = nativeVertx();
+        Async async = context.async();
+        String path = new File(folder.getRoot(), "statful.sock").getPath();
+
+        StatfulMetricsOptions options = new StatfulMetricsOptions().setUnixSocketPath(path).setEnablePoolMetrics(false)
+                .setFlushSize(1).setFlushInterval(10).setTcpOptions(new TcpOptions().setReconnectInitialBackoff(10).setReconnectMaxBackoff(20));
+
+        UnixSocketSender victim = new UnixSocketSender(vertx, options);
+        victim.addMetric(new DummyDataPoint("line1"));
+        victim.addMetric(new DummyDataPoint("line2"));
+
+        // nothing listens on the socket yet, flushes keep the metrics buffered instead of dropping them
+        vertx.setTimer(100, waited -> {
+            context.assertEquals(2, victim.getBufferedCount());
+            context.assertEquals(0L, victim.getSentBatches());
+            context.assertEquals(0L, victim.getConnectionCount());
+
+            LocalAgentServer agent = new LocalAgentServer(vertx, SocketAddress.domainSocketAddress(path));
+            agent.lineHandler(line -> {
+                if (agent.lines().size() == 2) {
+                    context.assertEquals(Lists.newArrayList("line1", "line2"), agent.lines());
+                    context.assertEquals(0, victim.getBufferedCount());
+                    victim.close(closed -> agent.close(agentClosed -> vertx.close(vertxClosed -> async.complete())));
+                }
+            });
+            agent.listen(context.asyncAssertSuccess());
+        });
+    }
+
+    @Test
+    public void testKeepsMetricsWithoutNativeTransport(TestContext context) {
+        Vertx vertx = Vertx.vertx();
+        Async async = context.async();
+
+        StatfulMetricsOptions options = new StatfulMetricsOptions()
+                .setUnixSocketPath(new File(folder.getRoot(), "missing.sock").getPath()).setEnablePoolMetrics(false)
+                .setFlushSize(1).setFlushInterval(10);
+
+        UnixSocketSender victim = new UnixSocketSender(vertx, options);
+        context.assertTrue(victim.addMetric(new DummyDataPoint("line1")));
+
+        // the socket never opens, flushes leave the metric buffered
+        vertx.setTimer(100, waited -> {
+            context.assertEquals(1, victim.getBufferedCount());
+            context.assertEquals(0L, victim.getSentBatches());
+            victim.close(closed -> vertx.close(vertxClosed -> async.complete()));
+        });
+    }
+
+    private static final class DummyDataPoint implements DataPoint {
+
+        private final String line;
+
+        DummyDataPoint(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public String toMetricLine() {
+            return this.line;
+        }
+    }
+}